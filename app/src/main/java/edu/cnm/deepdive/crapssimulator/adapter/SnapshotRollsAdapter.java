@@ -17,28 +17,46 @@ package edu.cnm.deepdive.crapssimulator.adapter;
 
 import android.content.Context;
 import android.graphics.drawable.Drawable;
+import android.view.Choreographer;
+import android.view.Choreographer.FrameCallback;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
 import androidx.annotation.ColorInt;
 import androidx.annotation.DrawableRes;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import edu.cnm.deepdive.crapssimulator.R;
 import edu.cnm.deepdive.crapssimulator.adapter.SnapshotRollsAdapter.Holder;
+import edu.cnm.deepdive.crapssimulator.adapter.SnapshotRollsAdapter.Item;
 import edu.cnm.deepdive.crapssimulator.databinding.ItemRollBinding;
+import edu.cnm.deepdive.crapssimulator.model.PackedRolls;
 import edu.cnm.deepdive.crapssimulator.model.Roll;
+import edu.cnm.deepdive.crapssimulator.model.Round;
 import edu.cnm.deepdive.crapssimulator.model.Snapshot;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.stream.IntStream;
 
 /**
- * Adapts a {@link Snapshot} for use in a {@link RecyclerView}. Each {@link Roll} in {@link
- * Snapshot#getRolls()} is displayed as an item in the list, using vector drawable resources to
- * present the dice faces. The entire list is given a semi-transparent background color
- * corresponding to the outcome: red for a loss, green for a win.
+ * Adapts a sequence of {@link Snapshot} instances for use in a {@link RecyclerView}. Each {@link
+ * Roll} of the current snapshot is displayed as an item in the list, using vector drawable
+ * resources to present the dice faces. The entire list is given a semi-transparent background
+ * color corresponding to the outcome: red for a loss, green for a win.
+ * <p>A single instance is intended to serve for the lifetime of the host: snapshots are passed to
+ * {@link #submit(Snapshot)}, which retains only the most recent, and hands it to the underlying
+ * {@link ListAdapter} at most once per display frame. Differences between successive lists of
+ * rolls are computed by {@link DiffUtil} on a background thread, so only the rolls that actually
+ * changed are rebound. The die-face drawables, colors, and value labels are loaded once, and shared
+ * by all items.</p>
+ * <p>All methods must be invoked on the main thread.</p>
  */
-public class SnapshotRollsAdapter extends RecyclerView.Adapter<Holder> {
+public class SnapshotRollsAdapter extends ListAdapter<Item, Holder> implements FrameCallback {
 
   @DrawableRes
   private static final int[] faceResources = {
@@ -50,21 +68,54 @@ public class SnapshotRollsAdapter extends RecyclerView.Adapter<Holder> {
       R.drawable.face_6
   };
 
+  private static final String[] valueLabels = IntStream
+      .rangeClosed(0, Round.NUM_DICE * Round.NUM_SIDES)
+      .mapToObj(String::valueOf)
+      .toArray(String[]::new);
+
+  private static final DiffUtil.ItemCallback<Item> DIFF_CALLBACK =
+      new DiffUtil.ItemCallback<Item>() {
+
+        @Override
+        public boolean areItemsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+          return oldItem.position == newItem.position;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+          return oldItem.roll == newItem.roll && oldItem.win == newItem.win;
+        }
+
+      };
+
   private final LayoutInflater inflater;
   private final Drawable[] faces;
   @ColorInt private final int winColor;
   @ColorInt private final int lossColor;
-  private final List<Roll> rolls;
-  private final boolean win;
+  private final Choreographer choreographer;
+
+  private Snapshot pending;
+  private boolean framePosted;
 
   /**
-   * Initializes this instance with the specified app {@link Context} and the {@link Snapshot} to be
-   * adapted for display.
+   * Initializes this instance with the specified app {@link Context}. Differences between lists of
+   * rolls are computed on the shared background executor of {@link AsyncDifferConfig}.
    *
    * @param context App context.
-   * @param snapshot {@link Snapshot} to adapt.
    */
-  public SnapshotRollsAdapter(Context context, Snapshot snapshot) {
+  public SnapshotRollsAdapter(Context context) {
+    this(context, null);
+  }
+
+  /**
+   * Initializes this instance with the specified app {@link Context}, computing differences between
+   * lists of rolls on the specified {@link Executor}&mdash;or on the shared background executor of
+   * {@link AsyncDifferConfig}, if {@code diffExecutor} is {@code null}.
+   */
+  SnapshotRollsAdapter(Context context, @Nullable Executor diffExecutor) {
+    super(new AsyncDifferConfig.Builder<>(DIFF_CALLBACK)
+        .setBackgroundThreadExecutor(diffExecutor)
+        .build());
     inflater = LayoutInflater.from(context);
     faces = IntStream
         .of(faceResources)
@@ -72,8 +123,45 @@ public class SnapshotRollsAdapter extends RecyclerView.Adapter<Holder> {
         .toArray(Drawable[]::new);
     winColor = ContextCompat.getColor(context, R.color.win_color);
     lossColor = ContextCompat.getColor(context, R.color.loss_color);
-    rolls = snapshot.getRolls();
-    win = snapshot.isWin();
+    choreographer = Choreographer.getInstance();
+  }
+
+  /**
+   * Schedules the rolls of the specified {@link Snapshot} for display in the next frame. If this
+   * method is invoked again before then, only the most recent snapshot is displayed.
+   *
+   * @param snapshot {@link Snapshot} to adapt.
+   */
+  public void submit(@NonNull Snapshot snapshot) {
+    pending = snapshot;
+    if (!framePosted) {
+      framePosted = true;
+      choreographer.postFrameCallback(this);
+    }
+  }
+
+  @Override
+  public void doFrame(long frameTimeNanos) {
+    Snapshot snapshot = pending;
+    pending = null;
+    framePosted = false;
+    int rollCount = snapshot.getRollCount();
+    boolean win = snapshot.isWin();
+    List<Item> items = new ArrayList<>(rollCount);
+    for (int i = 0; i < rollCount; i++) {
+      items.add(new Item(i, snapshot.getPackedRoll(i), win));
+    }
+    submitList(items);
+  }
+
+  @Override
+  public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+    super.onDetachedFromRecyclerView(recyclerView);
+    if (framePosted) {
+      choreographer.removeFrameCallback(this);
+      framePosted = false;
+      pending = null;
+    }
   }
 
   @NonNull
@@ -84,12 +172,26 @@ public class SnapshotRollsAdapter extends RecyclerView.Adapter<Holder> {
 
   @Override
   public void onBindViewHolder(@NonNull Holder holder, int position) {
-    holder.bind(position);
+    holder.bind(getItem(position));
   }
 
-  @Override
-  public int getItemCount() {
-    return rolls.size();
+  /**
+   * Single roll, in packed form, at a given position in the list, along with the outcome of the
+   * round that included it. Instances are immutable; rolls at the same position are compared by
+   * content, so a roll that's unchanged from one snapshot to the next isn't rebound.
+   */
+  static final class Item {
+
+    final int position;
+    final byte roll;
+    final boolean win;
+
+    Item(int position, byte roll, boolean win) {
+      this.position = position;
+      this.roll = roll;
+      this.win = win;
+    }
+
   }
 
   class Holder extends RecyclerView.ViewHolder {
@@ -101,13 +203,11 @@ public class SnapshotRollsAdapter extends RecyclerView.Adapter<Holder> {
       this.binding = binding;
     }
 
-    private void bind(int position) {
-      Roll roll = rolls.get(position);
-      int[] dice = roll.getDice();
-      binding.getRoot().setBackgroundColor(win ? winColor : lossColor);
-      binding.die1.setImageDrawable(faces[dice[0] - 1]);
-      binding.die2.setImageDrawable(faces[dice[1] - 1]);
-      binding.value.setText(String.valueOf(roll.getValue()));
+    private void bind(Item item) {
+      binding.getRoot().setBackgroundColor(item.win ? winColor : lossColor);
+      binding.die1.setImageDrawable(faces[PackedRolls.die(item.roll, 0) - 1]);
+      binding.die2.setImageDrawable(faces[PackedRolls.die(item.roll, 1) - 1]);
+      binding.value.setText(valueLabels[PackedRolls.value(item.roll)]);
     }
 
   }
@@ -36,13 +36,16 @@ class CrapsFragment : Fragment() {
     private val actions: MutableMap<Int, Runnable> = HashMap()
     private var binding: FragmentCrapsBinding? = null
     private lateinit var viewModel: CrapsViewModel
+    private lateinit var rollsAdapter: SnapshotRollsAdapter
     private var running = false
     private lateinit var summaryFormat: String
+    private lateinit var varianceReducedFormat: String
     private lateinit var errorMessageFormat: String
 
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
         setHasOptionsMenu(true)
+        rollsAdapter = SnapshotRollsAdapter(requireContext())
     }
 
     override fun onCreateView(
@@ -50,12 +53,14 @@ class CrapsFragment : Fragment() {
     ): View? {
         binding = FragmentCrapsBinding.inflate(inflater, container, false)
         summaryFormat = getString(R.string.summary_format)
+        varianceReducedFormat = getString(R.string.variance_reduced_format)
         errorMessageFormat = getString(R.string.error_message_format)
         return binding?.root
     }
 
     override fun onViewCreated(view: View, savedInstanceState: Bundle?) {
         super.onViewCreated(view, savedInstanceState)
+        binding!!.rolls.adapter = rollsAdapter
         viewModel = ViewModelProvider(this).get(CrapsViewModel::class.java).apply {
             lifecycle.addObserver(this)
             val owner = viewLifecycleOwner
@@ -91,6 +96,7 @@ class CrapsFragment : Fragment() {
 
     override fun onDestroyView() {
         super.onDestroyView()
+        binding?.rolls?.adapter = null
         binding = null
     }
 
@@ -101,7 +107,7 @@ class CrapsFragment : Fragment() {
         val resources = resources
         val winQuantity = resources.getQuantityString(R.plurals.win_quantity, wins.toInt())
         val roundQuantity = resources.getQuantityString(R.plurals.round_quantity, rounds.toInt())
-        binding!!.summary.text = String.format(
+        var summary = String.format(
             summaryFormat!!,
             wins,
             winQuantity,
@@ -109,8 +115,18 @@ class CrapsFragment : Fragment() {
             roundQuantity,
             winningPercentage
         )
-        val adapter = SnapshotRollsAdapter(context, snapshot)
-        binding!!.rolls.adapter = adapter
+        val estimate = snapshot.statistics.varianceReducedEstimate
+        if (estimate.pairs > 0) {
+            summary = String.format(
+                varianceReducedFormat,
+                summary,
+                100 * estimate.winRate,
+                100 * estimate.winRateError,
+                estimate.winRateGain
+            )
+        }
+        binding!!.summary.text = summary
+        rollsAdapter.submit(snapshot)
     }
 
     private fun showError(throwable: Throwable) {
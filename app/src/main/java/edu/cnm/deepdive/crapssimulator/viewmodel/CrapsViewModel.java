@@ -29,7 +29,12 @@ import androidx.preference.PreferenceManager;
 import edu.cnm.deepdive.crapssimulator.R;
 import edu.cnm.deepdive.crapssimulator.model.Snapshot;
 import edu.cnm.deepdive.crapssimulator.service.CrapsRepository;
+import edu.cnm.deepdive.crapssimulator.service.CrapsRepository.Mode;
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.rng.simple.RandomSource;
 
 /**
  * Exposes simulation-control methods and manages lifecycle-aware subset of system state (model
@@ -37,6 +42,8 @@ import io.reactivex.rxjava3.disposables.CompositeDisposable;
  */
 public class CrapsViewModel extends AndroidViewModel implements DefaultLifecycleObserver {
 
+  private static final String CHECKPOINT_FILE = "simulation.checkpoint";
+
   private final CrapsRepository crapsRepository;
   private final MutableLiveData<Snapshot> snapshot;
   private final MutableLiveData<Boolean> running;
@@ -45,7 +52,14 @@ public class CrapsViewModel extends AndroidViewModel implements DefaultLifecycle
   private final SharedPreferences preferences;
   private final String batchSizePrefKey;
   private final int batchSizePrefDefault;
-
+  private final String adaptiveBatchPrefKey;
+  private final boolean adaptiveBatchPrefDefault;
+  private final String snapshotIntervalPrefKey;
+  private final String snapshotIntervalPrefDefault;
+  private final String engineModePrefKey;
+  private final String engineModePrefDefault;
+  private final String randomSourcePrefKey;
+  private final String randomSourcePrefDefault;
 
   /**
    * Initializes this instance with the specified {@link Application} as a context.
@@ -54,7 +68,7 @@ public class CrapsViewModel extends AndroidViewModel implements DefaultLifecycle
    */
   public CrapsViewModel(@NonNull Application application) {
     super(application);
-    crapsRepository = new CrapsRepository();
+    crapsRepository = createRepository(application);
     snapshot = new MutableLiveData<>(new Snapshot());
     running = new MutableLiveData<>(false);
     throwable = new MutableLiveData<>();
@@ -63,6 +77,14 @@ public class CrapsViewModel extends AndroidViewModel implements DefaultLifecycle
     Resources resources = application.getResources();
     batchSizePrefKey = resources.getString(R.string.batch_size_pref_key);
     batchSizePrefDefault = resources.getInteger(R.integer.batch_size_pref_default);
+    adaptiveBatchPrefKey = resources.getString(R.string.adaptive_batch_pref_key);
+    adaptiveBatchPrefDefault = resources.getBoolean(R.bool.adaptive_batch_pref_default);
+    snapshotIntervalPrefKey = resources.getString(R.string.snapshot_interval_pref_key);
+    snapshotIntervalPrefDefault = resources.getString(R.string.snapshot_interval_pref_default);
+    engineModePrefKey = resources.getString(R.string.engine_mode_pref_key);
+    engineModePrefDefault = resources.getString(R.string.engine_mode_pref_default);
+    randomSourcePrefKey = resources.getString(R.string.random_source_pref_key);
+    randomSourcePrefDefault = resources.getString(R.string.random_source_pref_default);
   }
 
   /**
@@ -97,17 +119,26 @@ public class CrapsViewModel extends AndroidViewModel implements DefaultLifecycle
 
   /**
    * Starts the simulation in continuous-execution mode, with each batch of rounds starting as soon
-   * as the previous batch completes.
+   * as the previous batch completes. Depending on the preference settings, the batch size is either
+   * fixed, or adjusted to publish snapshots at a steady rate.
    */
   public void runFast() {
     running.setValue(true);
-    crapsRepository.runFast(getBatchSizePreference());
+    crapsRepository.setMode(getEngineModePreference());
+    crapsRepository.setRandomSource(getRandomSourcePreference());
+    if (preferences.getBoolean(adaptiveBatchPrefKey, adaptiveBatchPrefDefault)) {
+      crapsRepository.runFastAdaptive(getSnapshotIntervalPreference(), TimeUnit.MILLISECONDS);
+    } else {
+      crapsRepository.runFast(getBatchSizePreference());
+    }
   }
 
   /**
    * Simulates one batch of rounds of play.
    */
   public void runOnce() {
+    crapsRepository.setMode(getEngineModePreference());
+    crapsRepository.setRandomSource(getRandomSourcePreference());
     crapsRepository.runOnce(getBatchSizePreference());
   }
 
@@ -139,6 +170,26 @@ public class CrapsViewModel extends AndroidViewModel implements DefaultLifecycle
     DefaultLifecycleObserver.super.onPause(owner);
   }
 
+  @Override
+  protected void onCleared() {
+    pending.clear();
+    crapsRepository.close();
+    super.onCleared();
+  }
+
+  private CrapsRepository createRepository(Application application) {
+    int parallelism = Runtime.getRuntime().availableProcessors();
+    CrapsRepository repository;
+    try {
+      repository =
+          new CrapsRepository(parallelism, new File(application.getFilesDir(), CHECKPOINT_FILE));
+    } catch (IOException e) {
+      Log.e(getClass().getSimpleName(), e.getMessage(), e);
+      repository = new CrapsRepository(parallelism);
+    }
+    return repository;
+  }
+
   private void subscribeToSnapshots() {
     pending.add(
         crapsRepository
@@ -159,4 +210,18 @@ public class CrapsViewModel extends AndroidViewModel implements DefaultLifecycle
     return (int) Math.pow(10, preferences.getInt(batchSizePrefKey, batchSizePrefDefault));
   }
 
+  private long getSnapshotIntervalPreference() {
+    return Long.parseLong(
+        preferences.getString(snapshotIntervalPrefKey, snapshotIntervalPrefDefault));
+  }
+
+  private Mode getEngineModePreference() {
+    return Mode.valueOf(preferences.getString(engineModePrefKey, engineModePrefDefault));
+  }
+
+  private RandomSource getRandomSourcePreference() {
+    return RandomSource.valueOf(
+        preferences.getString(randomSourcePrefKey, randomSourcePrefDefault));
+  }
+
 }
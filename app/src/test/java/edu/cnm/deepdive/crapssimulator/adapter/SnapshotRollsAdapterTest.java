@@ -0,0 +1,193 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.graphics.drawable.ColorDrawable;
+import android.os.Looper;
+import android.widget.FrameLayout;
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import edu.cnm.deepdive.crapssimulator.R;
+import edu.cnm.deepdive.crapssimulator.adapter.SnapshotRollsAdapter.Holder;
+import edu.cnm.deepdive.crapssimulator.adapter.SnapshotRollsAdapter.Item;
+import edu.cnm.deepdive.crapssimulator.databinding.ItemRollBinding;
+import edu.cnm.deepdive.crapssimulator.model.DiceSource;
+import edu.cnm.deepdive.crapssimulator.model.Round;
+import edu.cnm.deepdive.crapssimulator.model.Snapshot;
+import edu.cnm.deepdive.crapssimulator.model.Statistics;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Verifies that {@link SnapshotRollsAdapter} coalesces snapshots to one list update per frame,
+ * rebinds only the rolls that changed, and shares its die-face drawables between items. Rounds are
+ * played with scripted dice, and differences are computed on the main thread, so that each test is
+ * deterministic.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SnapshotRollsAdapterTest {
+
+  private static final Duration FRAME = Duration.ofMillis(50);
+
+  private Context context;
+  private List<List<Item>> updates;
+  private SnapshotRollsAdapter adapter;
+
+  @Before
+  public void setUp() {
+    context = ApplicationProvider.getApplicationContext();
+    updates = new ArrayList<>();
+    adapter = new SnapshotRollsAdapter(context, Runnable::run) {
+      @Override
+      public void onCurrentListChanged(@NonNull List<Item> previousList,
+          @NonNull List<Item> currentList) {
+        updates.add(currentList);
+      }
+    };
+  }
+
+  @Test
+  public void submit_coalescesToOneUpdatePerFrame() {
+    adapter.submit(snapshot(3, 4));
+    adapter.submit(snapshot(1, 1));
+    adapter.submit(snapshot(2, 2, 3, 3, 1, 3));
+    assertEquals(0, updates.size());
+    nextFrame();
+    assertEquals(1, updates.size());
+    assertEquals(3, adapter.getItemCount());
+    nextFrame();
+    assertEquals(1, updates.size());
+  }
+
+  @Test
+  public void submit_rebindsOnlyChangedRolls() {
+    List<int[]> changes = new ArrayList<>();
+    adapter.submit(snapshot(2, 2, 3, 3, 1, 3));
+    nextFrame();
+    adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+      @Override
+      public void onItemRangeChanged(int positionStart, int itemCount) {
+        changes.add(new int[]{positionStart, itemCount});
+      }
+
+      @Override
+      public void onItemRangeInserted(int positionStart, int itemCount) {
+        changes.add(new int[]{positionStart, itemCount});
+      }
+
+      @Override
+      public void onItemRangeRemoved(int positionStart, int itemCount) {
+        changes.add(new int[]{positionStart, itemCount});
+      }
+    });
+    adapter.submit(snapshot(2, 2, 3, 3, 1, 3));
+    nextFrame();
+    assertEquals(0, changes.size());
+    adapter.submit(snapshot(2, 2, 3, 3, 2, 2));
+    nextFrame();
+    assertEquals(1, changes.size());
+    assertEquals(2, changes.get(0)[0]);
+    assertEquals(1, changes.get(0)[1]);
+  }
+
+  @Test
+  public void bind_sharesFaceDrawables() {
+    adapter.submit(snapshot(3, 3, 3, 4));
+    nextFrame();
+    ItemRollBinding first = bind(0);
+    ItemRollBinding second = bind(1);
+    assertSame(first.die1.getDrawable(), second.die1.getDrawable());
+    assertSame(first.die1.getDrawable(), first.die2.getDrawable());
+    assertNotSame(first.die2.getDrawable(), second.die2.getDrawable());
+    assertEquals("6", first.value.getText().toString());
+    assertEquals("7", second.value.getText().toString());
+    assertEquals(ContextCompat.getColor(context, R.color.loss_color),
+        ((ColorDrawable) second.getRoot().getBackground()).getColor());
+  }
+
+  private ItemRollBinding bind(int position) {
+    Holder holder = adapter.onCreateViewHolder(new FrameLayout(context), 0);
+    adapter.onBindViewHolder(holder, position);
+    return ItemRollBinding.bind(holder.itemView);
+  }
+
+  private static void nextFrame() {
+    shadowOf(Looper.getMainLooper()).idleFor(FRAME);
+  }
+
+  private static Snapshot snapshot(int... dice) {
+    Round round = new Round(new ScriptedDice(dice));
+    round.play();
+    return new Snapshot(round, 0, 0, Statistics.empty());
+  }
+
+  private static class ScriptedDice implements DiceSource {
+
+    private final int[] script;
+    private int next;
+
+    ScriptedDice(int[] script) {
+      this.script = script;
+    }
+
+    @Override
+    public int getNumDice() {
+      return Round.NUM_DICE;
+    }
+
+    @Override
+    public int getNumSides() {
+      return Round.NUM_SIDES;
+    }
+
+    @Override
+    public int roll(int[] dice) {
+      int sum = 0;
+      for (int i = 0; i < Round.NUM_DICE; i++) {
+        dice[i] = script[next++];
+        sum += dice[i];
+      }
+      return sum;
+    }
+
+    @Override
+    public int rollSum() {
+      return roll(new int[Round.NUM_DICE]);
+    }
+
+    @Override
+    public int rollOutcome() {
+      int[] dice = new int[Round.NUM_DICE];
+      roll(dice);
+      return (dice[0] - 1) + (dice[1] - 1) * Round.NUM_SIDES;
+    }
+
+  }
+
+}
@@ -0,0 +1,118 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import edu.cnm.deepdive.crapssimulator.model.Round.State;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.rng.UniformRandomProvider;
+import org.apache.commons.rng.simple.RandomSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the throughput (operations per second) and, with the GC profiler enabled, the allocation
+ * per operation of the {@link Roll} constructor, {@link DiceSource#rollSum()}, {@link
+ * Round#play()}, {@link Round#play(boolean)}, {@link Round.State#next(int, int)}, and the equivalent
+ * lookup in the {@link CompiledRules} transition table, for each of several sources of
+ * randomness.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+public class ModelBenchmark {
+
+  @Param({"XO_RO_SHI_RO_128_PP", "XO_SHI_RO_256_PP", "SPLIT_MIX_64", "L64_X128_MIX", "MT",
+      "JDK"})
+  public String source;
+
+  private UniformRandomProvider rng;
+  private DiceSource dice;
+  private Round round;
+  private int[] values;
+  private int index;
+  private byte[] transitions;
+  private int numValues;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    rng = RandomSource.valueOf(source).create();
+    dice = DiceSource.create(rng, Round.NUM_DICE, Round.NUM_SIDES);
+    round = new Round(dice);
+    CompiledRules rules = Rules.standard().compile();
+    transitions = rules.transitions;
+    numValues = rules.numValues;
+    values = new int[1024];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = 2 + rng.nextInt(Round.NUM_SIDES) + rng.nextInt(Round.NUM_SIDES);
+    }
+  }
+
+  @Benchmark
+  public Roll roll() {
+    return new Roll(dice);
+  }
+
+  @Benchmark
+  public int rollSum() {
+    return dice.rollSum();
+  }
+
+  @Benchmark
+  public boolean playRecorded() {
+    return round.play();
+  }
+
+  @Benchmark
+  public boolean playCounting() {
+    return round.play(false);
+  }
+
+  @Benchmark
+  public void stateNext(Blackhole blackhole) {
+    int value = values[index];
+    index = (index + 1) & (values.length - 1);
+    State state = State.COME_OUT.next(value, 0);
+    if (state == State.POINT) {
+      state = state.next(values[index], value);
+    }
+    blackhole.consume(state);
+  }
+
+  @Benchmark
+  public void tableNext(Blackhole blackhole) {
+    int value = values[index];
+    index = (index + 1) & (values.length - 1);
+    int next = transitions[value];
+    if (next > 0) {
+      next = transitions[next * numValues + values[index]];
+    }
+    blackhole.consume(next);
+  }
+
+}
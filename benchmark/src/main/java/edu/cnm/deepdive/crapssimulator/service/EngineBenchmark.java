@@ -0,0 +1,96 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.service;
+
+import edu.cnm.deepdive.crapssimulator.model.StatisticsAccumulator;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.rng.simple.RandomSource;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput, in rounds per second, of a batch of rounds simulated by the {@link
+ * Engine} used in {@link CrapsRepository}, for small and large batch sizes, single and multiple
+ * workers, and several sources of randomness. The {@code rounds} secondary result is reported
+ * in rounds per second; with the GC profiler enabled, the normalized allocation rate is reported in
+ * bytes per batch, so it must be divided by {@link #batchSize} to obtain bytes per round.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EngineBenchmark {
+
+  @Param({"XO_RO_SHI_RO_128_PP", "XO_SHI_RO_256_PP", "XO_RO_SHI_RO_128_SS", "L64_X128_MIX",
+      "SPLIT_MIX_64"})
+  public String source;
+
+  @Param({"10", "1000000"})
+  public int batchSize;
+
+  @Param({"1", "0"})
+  public int parallelism;
+
+  private Engine engine;
+  private StatisticsAccumulator statistics;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    int workers = (parallelism > 0) ? parallelism : Runtime.getRuntime().availableProcessors();
+    engine = new ParallelEngine(RandomSource.valueOf(source), workers);
+    statistics = new StatisticsAccumulator();
+  }
+
+  /**
+   * Simulates a single batch of {@link #batchSize} rounds.
+   */
+  @Benchmark
+  public long play(RoundCounter counter) {
+    counter.rounds += batchSize;
+    return engine.play(batchSize, statistics);
+  }
+
+  /**
+   * Accumulates the number of rounds simulated, so that JMH reports it as a secondary (rounds per
+   * second) result.
+   */
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class RoundCounter {
+
+    public long rounds;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      rounds = 0;
+    }
+
+  }
+
+}
@@ -0,0 +1,69 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.cli;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts the bytes allocated by all live threads of this JVM, using the HotSpot-specific extension
+ * of {@link java.lang.management.ThreadMXBean}. Allocations by threads that have terminated are not
+ * included, so this is suitable only for measurements over the lifetime of long-lived threads, such
+ * as those of a simulation's worker pool.
+ */
+final class AllocationProbe implements LongSupplier {
+
+  private final com.sun.management.ThreadMXBean threads;
+
+  private AllocationProbe(com.sun.management.ThreadMXBean threads) {
+    this.threads = threads;
+  }
+
+  /**
+   * Returns an allocation probe, or {@code null} if per-thread allocation counting isn't supported
+   * (or can't be enabled) in this JVM.
+   *
+   * @return {@link AllocationProbe}
+   */
+  static AllocationProbe create() {
+    AllocationProbe probe = null;
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+      try {
+        if (threads.isThreadAllocatedMemorySupported()) {
+          threads.setThreadAllocatedMemoryEnabled(true);
+          probe = new AllocationProbe(threads);
+        }
+      } catch (UnsupportedOperationException | SecurityException e) {
+        // Allocation counting unavailable; no probe.
+      }
+    }
+    return probe;
+  }
+
+  @Override
+  public long getAsLong() {
+    long total = 0;
+    for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+      if (bytes > 0) {
+        total += bytes;
+      }
+    }
+    return total;
+  }
+
+}
@@ -0,0 +1,460 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.cli;
+
+import edu.cnm.deepdive.crapssimulator.model.ConfidenceInterval;
+import edu.cnm.deepdive.crapssimulator.model.HandStatistics;
+import edu.cnm.deepdive.crapssimulator.model.Snapshot;
+import edu.cnm.deepdive.crapssimulator.model.Statistics;
+import edu.cnm.deepdive.crapssimulator.model.VarianceReducedEstimate;
+import edu.cnm.deepdive.crapssimulator.service.CrapsRepository;
+import edu.cnm.deepdive.crapssimulator.service.CrapsRepository.Mode;
+import edu.cnm.deepdive.crapssimulator.service.Engine;
+import edu.cnm.deepdive.crapssimulator.service.EngineMetrics;
+import edu.cnm.deepdive.crapssimulator.service.EngineMetrics.Histogram;
+import edu.cnm.deepdive.crapssimulator.service.EngineMetrics.Throughput;
+import io.reactivex.rxjava3.disposables.Disposable;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.rng.simple.RandomSource;
+
+/**
+ * Runs a Craps simulation from the command line, on a plain JVM, printing progress (throughput and
+ * running results) as snapshots stream from a {@link CrapsRepository}, and a summary on completion.
+ * Batches are requested one at a time, each as soon as the previous one has been published, so the
+ * simulation runs at full speed, and stops at exactly the requested number of rounds.
+ * Alternatively, with {@code --precision}, the simulation runs until the confidence interval for the
+ * probability of a win is narrow enough, reporting the estimated number of rounds remaining.
+ * <p>The {@link EngineMetrics} of the run are included in the summary (and optionally in each
+ * progress report), and are emitted as JDK Flight Recorder events, for recordings started with
+ * {@code -XX:StartFlightRecording}.</p>
+ * <p>With {@code --rng}, several sources of randomness may be listed; the simulation then rotates
+ * among them, one batch at a time, and the summary includes the throughput of each, so that they
+ * may be compared under identical conditions.</p>
+ */
+public final class CrapsRunner {
+
+  private static final double EXACT_WIN_PROBABILITY = 244.0 / 495;
+  private static final long PRECISION_BATCH_MILLIS = 100;
+  private static final String USAGE = String.join(System.lineSeparator(),
+      "Usage: craps-runner [options]",
+      "  --rounds N        Total number of rounds to simulate (default 1e9).",
+      "  --precision H     Instead of a number of rounds, simulate until the half-width of the",
+      "                    confidence interval for the win probability is at most H.",
+      "  --confidence C    Confidence level of the interval (default 0.95).",
+      "  --batch N         Number of rounds per batch (default 1e6).",
+      "  --threads N       Number of worker threads (default: available processors).",
+      "  --seed S          Seed for a reproducible run (default: unseeded).",
+      "  --mode MODE       Engine mode: simulated, sampled, or antithetic (default simulated).",
+      "  --rng SOURCES     Comma-separated commons-rng sources (e.g. XO_RO_SHI_RO_128_PP,",
+      "                    L64_X128_MIX), used in rotation (default XO_RO_SHI_RO_128_PP).",
+      "  --checkpoint F    Checkpoint file, from which an interrupted run resumes.",
+      "  --interval SEC    Seconds between progress reports (default 1).",
+      "  --metrics         Include engine metrics in each progress report.",
+      "  --vector          In simulated mode, play rounds with the SIMD engine, if the vector",
+      "                    module and jdk.incubator.vector are available (default: scalar).",
+      "  --help            Print this message.");
+
+  private final CrapsRepository repository;
+  private final long rounds;
+  private final int batch;
+  private final long interval;
+  private final boolean reportMetrics;
+  private final double precision;
+  private final double confidence;
+  private final RandomSource[] sources;
+  private final PrintStream out;
+  private final CountDownLatch done;
+  private final AtomicReference<Throwable> failure;
+
+  private long startTime;
+  private long startRounds;
+  private long lastReportTime;
+  private long lastReportRounds;
+  private Snapshot last;
+  private long batches;
+
+  private CrapsRunner(CrapsRepository repository, Options options, PrintStream out) {
+    this.repository = repository;
+    rounds = options.rounds;
+    batch = options.batch;
+    interval = TimeUnit.MILLISECONDS.toNanos((long) (1000 * options.interval));
+    reportMetrics = options.metrics;
+    precision = options.precision;
+    confidence = options.confidence;
+    sources = options.sources;
+    this.out = out;
+    done = new CountDownLatch(1);
+    failure = new AtomicReference<>();
+  }
+
+  /**
+   * Parses the command-line options, runs the simulation, and prints the results.
+   *
+   * @param args Command-line options; see {@code --help}.
+   */
+  public static void main(String[] args) {
+    int status = 0;
+    try {
+      Options options = Options.parse(args);
+      if (options.help) {
+        System.out.println(USAGE);
+      } else {
+        CrapsRepository repository = options.createRepository();
+        repository.setMode(options.mode);
+        if (options.vector) {
+          Engine.Factory factory = VectorSupport.getFactory();
+          if (factory != null) {
+            repository.setEngineFactory(factory);
+          } else {
+            System.err.println("Vector engine unavailable; using the scalar engine.");
+          }
+        }
+        if (options.sources != null) {
+          // Each source is validated; the first one set is the last, and takes effect.
+          for (int i = options.sources.length - 1; i >= 0; i--) {
+            repository.setRandomSource(options.sources[i]);
+          }
+        }
+        EngineMetrics metrics = repository.getMetrics();
+        metrics.setAllocationCounter(AllocationProbe.create());
+        FlightRecorderMetrics.register(metrics);
+        try {
+          new CrapsRunner(repository, options, System.out).run();
+        } finally {
+          repository.close();
+        }
+      }
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(USAGE);
+      status = 2;
+    } catch (IOException | RuntimeException e) {
+      e.printStackTrace();
+      status = 1;
+    } catch (InterruptedException e) {
+      status = 1;
+    }
+    System.exit(status);
+  }
+
+  private void run() throws InterruptedException {
+    Disposable subscription = repository
+        .getSnapshots()
+        .subscribe(this::onSnapshot, (throwable) -> {
+          failure.set(throwable);
+          done.countDown();
+        });
+    repository.runOnce(0);
+    done.await();
+    subscription.dispose();
+    Throwable throwable = failure.get();
+    if (throwable != null) {
+      throw new RuntimeException(throwable);
+    }
+    summarize();
+  }
+
+  private void onSnapshot(Snapshot snapshot) {
+    long now = System.nanoTime();
+    if (last == null) {
+      startTime = now;
+      startRounds = snapshot.getRounds();
+      lastReportTime = now;
+      lastReportRounds = startRounds;
+      if (startRounds > 0) {
+        out.printf(Locale.ROOT, "Resumed at %,d rounds.%n", startRounds);
+      }
+    }
+    if (sources != null && sources.length > 1) {
+      repository.setRandomSource(sources[(int) (batches++ % sources.length)]);
+    }
+    long remaining;
+    if (precision > 0) {
+      if (last == null) {
+        // The initial snapshot only reports the starting tally; the precision-targeted run follows.
+        repository.runToPrecision(
+            precision, confidence, PRECISION_BATCH_MILLIS, TimeUnit.MILLISECONDS);
+        remaining = 1;
+      } else {
+        remaining = snapshot.getRemainingRounds();
+      }
+    } else {
+      remaining = rounds - snapshot.getRounds();
+      if (remaining > 0) {
+        repository.runOnce((int) Math.min(batch, remaining));
+      }
+    }
+    last = snapshot;
+    if (now - lastReportTime >= interval) {
+      report(snapshot, now);
+    }
+    if (remaining <= 0) {
+      done.countDown();
+    }
+  }
+
+  private void report(Snapshot snapshot, long now) {
+    long count = snapshot.getRounds();
+    out.printf(Locale.ROOT,
+        "%,18d rounds  win rate %.6f +/- %.6f  %6.2f M rounds/s (overall %6.2f M rounds/s)%n",
+        count, winRate(snapshot), standardError(snapshot),
+        rate(count - lastReportRounds, now - lastReportTime),
+        rate(count - startRounds, now - startTime));
+    if (snapshot.getRemainingRounds() > 0) {
+      out.printf(Locale.ROOT, "%18s interval %s  ~%,d rounds remaining%n", "",
+          snapshot.getInterval(), snapshot.getRemainingRounds());
+    }
+    lastReportTime = now;
+    lastReportRounds = count;
+    if (reportMetrics) {
+      EngineMetrics metrics = repository.getMetrics();
+      out.printf(Locale.ROOT,
+          "%18s batch p50 %s p99 %s  latency p50 %s p99 %s  dropped %,d  %.1f B/round%n", "",
+          duration(metrics.getBatchDurations().getPercentile(50)),
+          duration(metrics.getBatchDurations().getPercentile(99)),
+          duration(metrics.getPublishLatencies().getPercentile(50)),
+          duration(metrics.getPublishLatencies().getPercentile(99)),
+          metrics.getSnapshotsDropped(), metrics.getBytesPerRound());
+    }
+  }
+
+  private void summarize() {
+    long elapsed = System.nanoTime() - startTime;
+    Snapshot snapshot = last;
+    Statistics statistics = snapshot.getStatistics();
+    double winRate = winRate(snapshot);
+    out.printf(Locale.ROOT, "%nRounds:             %,d (%,d wins, %,d losses)%n",
+        snapshot.getRounds(), snapshot.getWins(), snapshot.getLosses());
+    out.printf(Locale.ROOT, "Win rate:           %.8f +/- %.8f (exact %.8f; error %+.2f SE)%n",
+        winRate, standardError(snapshot), EXACT_WIN_PROBABILITY,
+        (winRate - EXACT_WIN_PROBABILITY) / Math.max(standardError(snapshot), Double.MIN_VALUE));
+    ConfidenceInterval interval = ConfidenceInterval.wilson(
+        snapshot.getWins(), snapshot.getRounds(), confidence);
+    out.printf(Locale.ROOT, "Wilson interval:    %s, half-width %.8f%n",
+        interval, interval.getHalfWidth());
+    VarianceReducedEstimate estimate = statistics.getVarianceReducedEstimate();
+    if (estimate.getPairs() > 0) {
+      out.printf(Locale.ROOT,
+          "Variance-reduced:   %.8f +/- %.8f (%,d antithetic pairs; %.2fx effective rounds)%n",
+          estimate.getWinRate(), estimate.getWinRateError(), estimate.getPairs(),
+          estimate.getWinRateGain());
+      if (estimate.getWageredPairs() > 0) {
+        out.printf(Locale.ROOT, "Mean net (reduced): %.8f +/- %.8f (%.2fx effective rounds)%n",
+            estimate.getMeanNet(), estimate.getMeanNetError(), estimate.getMeanNetGain());
+      }
+    }
+    out.printf(Locale.ROOT, "Rolls per round:    %.6f%n", statistics.getMeanRollCount());
+    out.printf(Locale.ROOT, "Longest streaks:    %d wins, %d losses%n",
+        statistics.getLongestWinStreak(), statistics.getLongestLossStreak());
+    HandStatistics hands = statistics.getHandStatistics();
+    if (hands.getHands() > 0) {
+      out.printf(Locale.ROOT,
+          "Shooter hands:      %,d; %.4f rolls (exact %.4f), %.4f points made (exact %.4f)%n",
+          hands.getHands(), hands.getMeanRolls(), HandStatistics.EXACT_MEAN_ROLLS,
+          hands.getMeanPointsMade(), HandStatistics.EXACT_MEAN_POINTS_MADE);
+      out.printf(Locale.ROOT,
+          "Hand length:        p50 %d, p90 %d, p99 %d rolls; longest %d rolls, most points %d%n",
+          hands.getRollCountPercentile(50), hands.getRollCountPercentile(90),
+          hands.getRollCountPercentile(99), hands.getLongestHand(), hands.getMostPointsMade());
+    }
+    out.printf(Locale.ROOT, "Elapsed:            %.3f s%n", elapsed / 1e9);
+    out.printf(Locale.ROOT, "Throughput:         %.2f M rounds/s%n",
+        rate(snapshot.getRounds() - startRounds, elapsed));
+    summarize(repository.getMetrics());
+  }
+
+  private void summarize(EngineMetrics metrics) {
+    out.printf(Locale.ROOT, "%nEngine throughput:  %.2f M rounds/s, %.2f M rolls/s%n",
+        metrics.getRoundsPerSecond() / 1e6, metrics.getRollsPerSecond() / 1e6);
+    out.printf(Locale.ROOT, "Batch duration:     %s%n", percentiles(metrics.getBatchDurations()));
+    out.printf(Locale.ROOT, "Publish latency:    %s%n", percentiles(metrics.getPublishLatencies()));
+    out.printf(Locale.ROOT, "Snapshots:          %,d published, %,d dropped%n",
+        metrics.getSnapshotsPublished(), metrics.getSnapshotsDropped());
+    out.printf(Locale.ROOT, "Allocation:         %.1f bytes/round%n", metrics.getBytesPerRound());
+    for (RandomSource source : metrics.getSources()) {
+      Throughput throughput = metrics.getThroughput(source);
+      out.printf(Locale.ROOT, "%-21s%.2f M rounds/s, %.2f M rolls/s (%,d rounds)%n",
+          source + ":", throughput.getRoundsPerSecond() / 1e6,
+          throughput.getRollsPerSecond() / 1e6, throughput.getRounds());
+    }
+  }
+
+  private static String percentiles(Histogram histogram) {
+    return String.format(Locale.ROOT, "p50 %s, p90 %s, p99 %s, max %s (%,d samples)",
+        duration(histogram.getPercentile(50)), duration(histogram.getPercentile(90)),
+        duration(histogram.getPercentile(99)), duration(histogram.getPercentile(100)),
+        histogram.getCount());
+  }
+
+  private static String duration(long nanos) {
+    String formatted;
+    if (nanos < 10_000) {
+      formatted = String.format(Locale.ROOT, "%d ns", nanos);
+    } else if (nanos < 10_000_000) {
+      formatted = String.format(Locale.ROOT, "%.1f us", nanos / 1e3);
+    } else {
+      formatted = String.format(Locale.ROOT, "%.1f ms", nanos / 1e6);
+    }
+    return formatted;
+  }
+
+  private static double winRate(Snapshot snapshot) {
+    long rounds = snapshot.getRounds();
+    return (rounds > 0) ? (double) snapshot.getWins() / rounds : 0;
+  }
+
+  private static double standardError(Snapshot snapshot) {
+    long rounds = snapshot.getRounds();
+    double p = winRate(snapshot);
+    return (rounds > 0) ? Math.sqrt(p * (1 - p) / rounds) : 0;
+  }
+
+  private static double rate(long rounds, long nanos) {
+    return (nanos > 0) ? rounds * 1e3 / nanos : 0;
+  }
+
+  private static class Options {
+
+    private long rounds = 1_000_000_000L;
+    private int batch = 1_000_000;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Long seed;
+    private Mode mode = Mode.SIMULATED;
+    private RandomSource[] sources;
+    private File checkpoint;
+    private double interval = 1;
+    private double precision;
+    private double confidence = ConfidenceInterval.DEFAULT_CONFIDENCE;
+    private boolean metrics;
+    private boolean vector;
+    private boolean help;
+
+    private static Options parse(String[] args) throws IllegalArgumentException {
+      Options options = new Options();
+      for (int i = 0; i < args.length; i++) {
+        String option = args[i];
+        if (option.equals("--help") || option.equals("-h")) {
+          options.help = true;
+          continue;
+        }
+        if (option.equals("--metrics")) {
+          options.metrics = true;
+          continue;
+        }
+        if (option.equals("--vector")) {
+          options.vector = true;
+          continue;
+        }
+        if (i + 1 >= args.length) {
+          throw new IllegalArgumentException("Missing value for " + option);
+        }
+        String value = args[++i];
+        try {
+          switch (option) {
+            case "--rounds":
+              options.rounds = parseCount(value);
+              break;
+            case "--batch":
+              options.batch = (int) Math.min(parseCount(value), Integer.MAX_VALUE);
+              break;
+            case "--threads":
+              options.threads = (int) parseCount(value);
+              break;
+            case "--seed":
+              options.seed = Long.parseLong(value);
+              break;
+            case "--mode":
+              options.mode = Mode.valueOf(value.toUpperCase(Locale.ROOT));
+              break;
+            case "--rng":
+              options.sources = parseSources(value);
+              break;
+            case "--checkpoint":
+              options.checkpoint = new File(value);
+              break;
+            case "--interval":
+              options.interval = Double.parseDouble(value);
+              break;
+            case "--precision":
+              options.precision = Double.parseDouble(value);
+              break;
+            case "--confidence":
+              options.confidence = Double.parseDouble(value);
+              break;
+            default:
+              throw new IllegalArgumentException("Unknown option " + option);
+          }
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+        }
+      }
+      if (options.rounds < 0 || options.batch < 1 || options.threads < 1
+          || !(options.interval >= 0) || !(options.precision >= 0)
+          || !(options.confidence > 0 && options.confidence < 1)) {
+        throw new IllegalArgumentException("Option values out of range");
+      }
+      if (options.seed != null && options.sources != null) {
+        throw new IllegalArgumentException("A seeded run can't select sources of randomness");
+      }
+      if (options.seed != null && options.vector) {
+        throw new IllegalArgumentException("A seeded run can't use the vector engine");
+      }
+      return options;
+    }
+
+    private static RandomSource[] parseSources(String value) throws IllegalArgumentException {
+      String[] names = value.split(",");
+      RandomSource[] sources = new RandomSource[names.length];
+      for (int i = 0; i < names.length; i++) {
+        try {
+          sources[i] = RandomSource.valueOf(names[i].trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+          throw new IllegalArgumentException("Unknown source of randomness: " + names[i]);
+        }
+      }
+      return sources;
+    }
+
+    private static long parseCount(String value) throws NumberFormatException {
+      String digits = value.replace("_", "");
+      return (digits.contains("e") || digits.contains("E"))
+          ? (long) Double.parseDouble(digits)
+          : Long.parseLong(digits);
+    }
+
+    private CrapsRepository createRepository() throws IOException {
+      CrapsRepository repository;
+      if (checkpoint != null) {
+        repository = (seed != null)
+            ? new CrapsRepository(threads, seed, checkpoint)
+            : new CrapsRepository(threads, checkpoint);
+      } else {
+        repository = (seed != null)
+            ? new CrapsRepository(threads, seed)
+            : new CrapsRepository(threads);
+      }
+      return repository;
+    }
+
+  }
+
+}
@@ -0,0 +1,141 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.cli;
+
+import edu.cnm.deepdive.crapssimulator.service.EngineMetrics;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Emits {@link EngineMetrics} as JDK Flight Recorder events: a {@code BatchEvent} for every batch
+ * simulated, and a periodic {@code EngineMetricsEvent} (every second, by default) summarizing
+ * throughput, batch durations, and snapshot delivery. The events are recorded only when a
+ * recording is running (e.g. when the JVM is started with {@code -XX:StartFlightRecording}), and
+ * cost next to nothing otherwise.
+ */
+final class FlightRecorderMetrics {
+
+  private static final String CATEGORY = "Craps Simulator";
+
+  private FlightRecorderMetrics() {
+    // Static methods only.
+  }
+
+  /**
+   * Registers the events, and the periodic emission of the specified metrics.
+   *
+   * @param metrics Source of the metrics.
+   */
+  static void register(EngineMetrics metrics) {
+    metrics.setListener((rounds, rolls, nanos) -> {
+      BatchEvent event = new BatchEvent();
+      if (event.shouldCommit()) {
+        event.rounds = rounds;
+        event.rolls = rolls;
+        event.batchDuration = nanos;
+        event.commit();
+      }
+    });
+    FlightRecorder.addPeriodicEvent(EngineMetricsEvent.class, () -> {
+      EngineMetricsEvent event = new EngineMetricsEvent();
+      if (event.shouldCommit()) {
+        EngineMetrics.Histogram batchDurations = metrics.getBatchDurations();
+        EngineMetrics.Histogram publishLatencies = metrics.getPublishLatencies();
+        event.rounds = metrics.getRounds();
+        event.roundsPerSecond = metrics.getRoundsPerSecond();
+        event.rollsPerSecond = metrics.getRollsPerSecond();
+        event.batchDurationMedian = batchDurations.getPercentile(50);
+        event.batchDuration99 = batchDurations.getPercentile(99);
+        event.publishLatencyMedian = publishLatencies.getPercentile(50);
+        event.publishLatency99 = publishLatencies.getPercentile(99);
+        event.snapshotsPublished = metrics.getSnapshotsPublished();
+        event.snapshotsDropped = metrics.getSnapshotsDropped();
+        event.bytesPerRound = metrics.getBytesPerRound();
+        event.commit();
+      }
+    });
+  }
+
+  @Name("edu.cnm.deepdive.crapssimulator.Batch")
+  @Label("Simulation Batch")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  static final class BatchEvent extends Event {
+
+    @Label("Rounds")
+    int rounds;
+
+    @Label("Rolls")
+    long rolls;
+
+    @Label("Batch Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long batchDuration;
+
+  }
+
+  @Name("edu.cnm.deepdive.crapssimulator.EngineMetrics")
+  @Label("Engine Metrics")
+  @Description("Cumulative throughput, batch durations, and snapshot delivery of the simulation")
+  @Category(CATEGORY)
+  @Period("1 s")
+  @StackTrace(false)
+  static final class EngineMetricsEvent extends Event {
+
+    @Label("Rounds")
+    long rounds;
+
+    @Label("Rounds per Second")
+    double roundsPerSecond;
+
+    @Label("Rolls per Second")
+    double rollsPerSecond;
+
+    @Label("Median Batch Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long batchDurationMedian;
+
+    @Label("99th Percentile Batch Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long batchDuration99;
+
+    @Label("Median Publish Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long publishLatencyMedian;
+
+    @Label("99th Percentile Publish Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long publishLatency99;
+
+    @Label("Snapshots Published")
+    long snapshotsPublished;
+
+    @Label("Snapshots Dropped")
+    long snapshotsDropped;
+
+    @Label("Bytes per Round")
+    double bytesPerRound;
+
+  }
+
+}
@@ -0,0 +1,51 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.cli;
+
+import edu.cnm.deepdive.crapssimulator.service.Engine;
+
+/**
+ * Loads the SIMD engine of the {@code vector} module, if it's available. That module uses the
+ * incubating Vector API, and is compiled for a later Java release than this one; it's loaded by
+ * name, so that this application still runs (with the scalar engine) on a JVM without the {@code
+ * jdk.incubator.vector} module, or without that module resolved (it must be added explicitly, e.g.
+ * with {@code --add-modules jdk.incubator.vector}).
+ */
+final class VectorSupport {
+
+  private static final String ENGINE_CLASS = "edu.cnm.deepdive.crapssimulator.vector.VectorEngine";
+
+  private VectorSupport() {
+    // Static methods only.
+  }
+
+  /**
+   * Returns the factory of the SIMD engine, or {@code null} if it can't be loaded in this JVM.
+   *
+   * @return {@link Engine.Factory}
+   */
+  static Engine.Factory getFactory() {
+    Engine.Factory factory = null;
+    try {
+      Class<?> engineClass = Class.forName(ENGINE_CLASS);
+      factory = (Engine.Factory) engineClass.getField("FACTORY").get(null);
+    } catch (ReflectiveOperationException | LinkageError e) {
+      // Module not present, not resolved, or not supported by this JVM; no factory.
+    }
+    return factory;
+  }
+
+}
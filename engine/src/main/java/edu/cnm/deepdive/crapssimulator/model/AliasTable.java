@@ -0,0 +1,105 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import org.apache.commons.rng.UniformRandomProvider;
+
+/**
+ * Samples from a fixed discrete distribution in constant time, using Walker's alias method (with
+ * Vose's construction). Instances of this class are immutable, and may be shared across threads, as
+ * long as each thread uses its own source of randomness.
+ */
+public final class AliasTable {
+
+  private final double[] probabilities;
+  private final int[] aliases;
+
+  /**
+   * Initializes this instance from the specified (not necessarily normalized) weights.
+   *
+   * @param weights Non-negative weights of the outcomes {@code 0 .. weights.length - 1}.
+   * @throws IllegalArgumentException If {@code weights} is empty, contains a negative value, or has
+   *     a zero sum.
+   */
+  public AliasTable(double[] weights) throws IllegalArgumentException {
+    int size = weights.length;
+    double total = 0;
+    for (double weight : weights) {
+      if (weight < 0) {
+        throw new IllegalArgumentException();
+      }
+      total += weight;
+    }
+    if (size == 0 || total <= 0) {
+      throw new IllegalArgumentException();
+    }
+    probabilities = new double[size];
+    aliases = new int[size];
+    double[] scaled = new double[size];
+    int[] small = new int[size];
+    int[] large = new int[size];
+    int numSmall = 0;
+    int numLarge = 0;
+    for (int i = 0; i < size; i++) {
+      scaled[i] = weights[i] * size / total;
+      if (scaled[i] < 1) {
+        small[numSmall++] = i;
+      } else {
+        large[numLarge++] = i;
+      }
+    }
+    while (numSmall > 0 && numLarge > 0) {
+      int less = small[--numSmall];
+      int more = large[--numLarge];
+      probabilities[less] = scaled[less];
+      aliases[less] = more;
+      scaled[more] -= 1 - scaled[less];
+      if (scaled[more] < 1) {
+        small[numSmall++] = more;
+      } else {
+        large[numLarge++] = more;
+      }
+    }
+    while (numLarge > 0) {
+      probabilities[large[--numLarge]] = 1;
+    }
+    while (numSmall > 0) {
+      // Only reachable through rounding error; the remaining columns are (almost exactly) full.
+      probabilities[small[--numSmall]] = 1;
+    }
+  }
+
+  /**
+   * Draws an outcome from the distribution, using the specified source of randomness.
+   *
+   * @param rng Source of randomness.
+   * @return Outcome index, in the range {@code 0 .. size() - 1}.
+   */
+  public int sample(UniformRandomProvider rng) {
+    int column = rng.nextInt(probabilities.length);
+    return (rng.nextDouble() < probabilities[column]) ? column : aliases[column];
+  }
+
+  /**
+   * Returns the number of outcomes in the distribution.
+   *
+   * @return {@code int}
+   */
+  public int size() {
+    return probabilities.length;
+  }
+
+}
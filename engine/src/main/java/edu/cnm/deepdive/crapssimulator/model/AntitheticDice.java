@@ -0,0 +1,149 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import java.util.Arrays;
+
+/**
+ * Source of 2d6 rolls for antithetic pairs of rounds. While playing the primary round of a pair,
+ * rolls are drawn from a delegate source, and retained; while playing the antithetic round, the
+ * retained rolls are replayed, each mapped through a permutation of the 36 joint outcomes. Since
+ * each permutation preserves the uniform distribution of outcomes, and is selected only by the
+ * come-out roll (which is independent of later rolls), the rolls of the antithetic round are
+ * distributed exactly as those of any other round.
+ * <p>The come-out roll is replayed unchanged. Each later roll is mapped through a permutation that
+ * exchanges the outcomes summing to the point with as many of the outcomes summing to 7, leaving
+ * all other outcomes unchanged. Thus, both rounds of a pair end on the same roll; whenever the
+ * primary round makes its point, the antithetic round sevens out, and vice versa (except on the
+ * sevens without a counterpart, which end both rounds in a loss).</p>
+ */
+final class AntitheticDice implements DiceSource {
+
+  private static final int NUM_OUTCOMES = Round.NUM_SIDES * Round.NUM_SIDES;
+  private static final int INITIAL_CAPACITY = 16;
+  private static final byte[][] PERMUTATIONS = buildPermutations();
+
+  private final DiceSource delegate;
+
+  private byte[] outcomes;
+  private int count;
+  private int position;
+  private boolean replaying;
+  private byte[] permutation;
+
+  AntitheticDice(DiceSource delegate) {
+    if (delegate.getNumDice() != Round.NUM_DICE || delegate.getNumSides() != Round.NUM_SIDES) {
+      throw new IllegalArgumentException();
+    }
+    this.delegate = delegate;
+    outcomes = new byte[INITIAL_CAPACITY];
+  }
+
+  /**
+   * Prepares for the primary round of a pair: subsequent rolls are drawn from the delegate, and
+   * retained.
+   */
+  void beginPrimary() {
+    replaying = false;
+    count = 0;
+  }
+
+  /**
+   * Prepares for the antithetic round of a pair: subsequent rolls replay the rolls retained from
+   * the primary round, mapped by the permutation selected by its come-out roll. Should the
+   * antithetic round outlast the primary (which the permutations prevent), further rolls are drawn
+   * from the delegate.
+   */
+  void beginAntithetic() {
+    replaying = true;
+    position = 0;
+    permutation = PERMUTATIONS[(count > 0) ? PackedRolls.value(outcomes[0]) : 0];
+  }
+
+  @Override
+  public int getNumDice() {
+    return Round.NUM_DICE;
+  }
+
+  @Override
+  public int getNumSides() {
+    return Round.NUM_SIDES;
+  }
+
+  @Override
+  public int roll(int[] dice) {
+    byte code = (byte) rollOutcome();
+    for (int i = 0; i < Round.NUM_DICE; i++) {
+      dice[i] = PackedRolls.die(code, i);
+    }
+    return PackedRolls.value(code);
+  }
+
+  @Override
+  public int rollSum() {
+    return PackedRolls.value((byte) rollOutcome());
+  }
+
+  @Override
+  public int rollOutcome() {
+    int outcome;
+    if (!replaying) {
+      outcome = delegate.rollOutcome();
+      if (count == outcomes.length) {
+        outcomes = Arrays.copyOf(outcomes, 2 * outcomes.length);
+      }
+      outcomes[count++] = (byte) outcome;
+    } else if (position < count) {
+      int retained = outcomes[position];
+      outcome = (position == 0) ? retained : permutation[retained];
+      position++;
+    } else {
+      outcome = delegate.rollOutcome();
+    }
+    return outcome;
+  }
+
+  @Override
+  public void discardBuffered() {
+    delegate.discardBuffered();
+  }
+
+  private static byte[][] buildPermutations() {
+    int maxValue = Round.NUM_DICE * Round.NUM_SIDES;
+    byte[][] permutations = new byte[maxValue + 1][NUM_OUTCOMES];
+    for (int point = 0; point <= maxValue; point++) {
+      byte[] permutation = permutations[point];
+      for (int outcome = 0; outcome < NUM_OUTCOMES; outcome++) {
+        permutation[outcome] = (byte) outcome;
+      }
+      if (Round.State.COME_OUT.next(Math.max(point, 2), 0) == Round.State.POINT) {
+        int seven = 0;
+        for (int outcome = 0; outcome < NUM_OUTCOMES; outcome++) {
+          if (PackedRolls.value((byte) outcome) == point) {
+            while (PackedRolls.value((byte) seven) != 7) {
+              seven++;
+            }
+            permutation[outcome] = (byte) seven;
+            permutation[seven] = (byte) outcome;
+            seven++;
+          }
+        }
+      }
+    }
+    return permutations;
+  }
+
+}
@@ -0,0 +1,128 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import org.apache.commons.rng.UniformRandomProvider;
+
+/**
+ * Plays antithetic pairs of rounds: the second round of each pair replays the dice of the first,
+ * transformed so that the outcomes of the two rounds are negatively correlated, while each round,
+ * taken alone, is distributed exactly as a round played with independent dice (see {@link
+ * AntitheticDice}). Both rounds of a pair share the come-out roll; after a point is established,
+ * whenever one round makes its point, the other (almost always) sevens out.
+ * <p>Each round is added to the {@link StatisticsAccumulator} as usual, so the tally, statistics,
+ * and wagering results are unbiased; in addition, each pair is added to the accumulator's {@link
+ * VarianceReducedEstimate}, which removes the variance of the shared come-out roll with control
+ * variates.</p>
+ */
+public final class AntitheticRounds {
+
+  private final AntitheticDice dice;
+  private final Round round;
+
+  private StatisticsAccumulator statistics;
+
+  /**
+   * Initializes this instance with the specified source of randomness.
+   *
+   * @param rng Source of randomness.
+   */
+  public AntitheticRounds(UniformRandomProvider rng) {
+    dice = new AntitheticDice(DiceSource.create(rng, Round.NUM_DICE, Round.NUM_SIDES));
+    round = new Round(dice);
+  }
+
+  /**
+   * Returns the {@link Round} used to play both rounds of each pair; after a pair is played, this
+   * holds the antithetic round. A {@link Round.Listener} or {@link RollTape} set on the returned
+   * instance receives the rolls of both rounds.
+   *
+   * @return {@link Round}
+   */
+  public Round getRound() {
+    return round;
+  }
+
+  /**
+   * Sets the {@link Rules} variant of subsequent pairs of rounds.
+   *
+   * @param rules {@link Rules} variant, with {@link Round#NUM_DICE} dice of {@link
+   *     Round#NUM_SIDES} sides.
+   * @throws IllegalArgumentException If {@code rules} has different dice.
+   */
+  public void setRules(Rules rules) throws IllegalArgumentException {
+    round.setRules(rules);
+  }
+
+  /**
+   * Sets the {@link StatisticsAccumulator} to which each subsequent round, and pair of rounds, is
+   * added.
+   *
+   * @param statistics Destination of round and pair outcomes; {@code null} disables accumulation.
+   */
+  public void setStatistics(StatisticsAccumulator statistics) {
+    this.statistics = statistics;
+    round.setStatistics(statistics);
+  }
+
+  /**
+   * Plays an antithetic pair of rounds, returning the number of wins.
+   *
+   * @param record Flag indicating whether the rolls of the antithetic (second) round should be
+   *     retained.
+   * @return Number of rounds (0, 1, or 2) won.
+   */
+  public int playPair(boolean record) {
+    StatisticsAccumulator statistics = this.statistics;
+    double startNet = (statistics != null) ? statistics.net : 0;
+    long startWagered = (statistics != null) ? statistics.wageredRounds : 0;
+    dice.beginPrimary();
+    boolean primaryWin = round.play(false);
+    int point = round.getPoint();
+    double primaryNet = (statistics != null) ? statistics.net - startNet : 0;
+    dice.beginAntithetic();
+    boolean antitheticWin = round.play(record);
+    int wins = (primaryWin ? 1 : 0) + (antitheticWin ? 1 : 0);
+    if (statistics != null) {
+      double antitheticNet = statistics.net - startNet - primaryNet;
+      statistics.addPair(wins, point, primaryWin && point == 0,
+          statistics.wageredRounds > startWagered, primaryNet, antitheticNet);
+    }
+    return wins;
+  }
+
+  /**
+   * Plays a single round, without an antithetic partner (e.g. to complete a batch of an odd number
+   * of rounds). The round is added to the tally and statistics, but not to the variance-reduced
+   * estimate.
+   *
+   * @param record Flag indicating whether the rolls of the round should be retained.
+   * @return Flag indicating whether the round was won.
+   */
+  public boolean playSingle(boolean record) {
+    dice.beginPrimary();
+    return round.play(record);
+  }
+
+  /**
+   * Discards any dice values drawn in advance from the source of randomness, and not yet used; see
+   * {@link DiceSource#discardBuffered()}.
+   */
+  public void discardBuffered() {
+    dice.discardBuffered();
+  }
+
+}
@@ -0,0 +1,112 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+/**
+ * Enumerates the wagers supported by {@link Wagering}. Payouts are expressed as the amount won per
+ * unit wagered (so a payout of 1 is "even money"); the wagered amount is returned to the bettor in
+ * addition to the payout.
+ */
+public enum Bet {
+  /** Placed before each come-out roll; wins on a natural or on making the point. */
+  PASS,
+  /** Placed before each come-out roll; wins on 2 or 3 (12 is a push), or on a seven-out. */
+  DONT_PASS,
+  /**
+   * Free odds behind the pass line, placed when a point is established; paid at true odds (the
+   * ratio of the ways of rolling the seven-out to those of rolling the point).
+   */
+  PASS_ODDS,
+  /** Free odds laid behind the don't pass line, placed when a point is established. */
+  DONT_PASS_ODDS,
+  /** Placed on every roll after a point is established; resolved like a pass bet. */
+  COME,
+  /** Placed on every roll after a point is established; resolved like a don't pass bet. */
+  DONT_COME,
+  /** Place bet on 4 (working only while a point is established); pays 9:5. */
+  PLACE_4,
+  /** Place bet on 5 (working only while a point is established); pays 7:5. */
+  PLACE_5,
+  /** Place bet on 6 (working only while a point is established); pays 7:6. */
+  PLACE_6,
+  /** Place bet on 8 (working only while a point is established); pays 7:6. */
+  PLACE_8,
+  /** Place bet on 9 (working only while a point is established); pays 7:5. */
+  PLACE_9,
+  /** Place bet on 10 (working only while a point is established); pays 9:5. */
+  PLACE_10,
+  /** One-roll bet placed on every roll; wins on 2, 3, 4, 9, 10, 11, or 12 (2 pays 2:1, 12 3:1). */
+  FIELD;
+
+  private static final int NUM_VALUES = Round.NUM_DICE * Round.NUM_SIDES + 1;
+  private static final int[] WAYS = new int[NUM_VALUES];
+  private static final double[] PLACE_PAYOUTS = new double[NUM_VALUES];
+  private static final double[] FIELD_PAYOUTS = new double[NUM_VALUES];
+
+  static {
+    for (int value = 2; value < NUM_VALUES; value++) {
+      WAYS[value] = Math.min(value - 1, NUM_VALUES - value);
+    }
+    PLACE_PAYOUTS[4] = PLACE_PAYOUTS[10] = 9.0 / 5;
+    PLACE_PAYOUTS[5] = PLACE_PAYOUTS[9] = 7.0 / 5;
+    PLACE_PAYOUTS[6] = PLACE_PAYOUTS[8] = 7.0 / 6;
+    FIELD_PAYOUTS[2] = 2;
+    FIELD_PAYOUTS[3] = FIELD_PAYOUTS[4] = FIELD_PAYOUTS[9] = FIELD_PAYOUTS[10] = 1;
+    FIELD_PAYOUTS[11] = 1;
+    FIELD_PAYOUTS[12] = 3;
+  }
+
+  /**
+   * Returns the number on which a place bet wins, or 0 if this is not a place bet.
+   *
+   * @return {@code int}
+   */
+  public int getPlaceNumber() {
+    switch (this) {
+      case PLACE_4:
+        return 4;
+      case PLACE_5:
+        return 5;
+      case PLACE_6:
+        return 6;
+      case PLACE_8:
+        return 8;
+      case PLACE_9:
+        return 9;
+      case PLACE_10:
+        return 10;
+      default:
+        return 0;
+    }
+  }
+
+  static double trueOdds(int point, int sevenOut) {
+    return (double) ways(sevenOut) / ways(point);
+  }
+
+  private static int ways(int value) {
+    return (value >= 0 && value < NUM_VALUES) ? WAYS[value] : 0;
+  }
+
+  static double placePayout(int number) {
+    return PLACE_PAYOUTS[number];
+  }
+
+  static double fieldPayout(int value) {
+    return FIELD_PAYOUTS[value];
+  }
+
+}
@@ -0,0 +1,113 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import java.util.Arrays;
+
+/**
+ * Specifies the amount wagered on each {@link Bet} whenever that bet is available: line bets before
+ * each come-out roll, odds when a point is established, come and don't come bets on each roll while
+ * a point is established, place bets while a point is established, and field bets on every roll.
+ * Instances of this class are immutable.
+ */
+public final class BettingStrategy {
+
+  private static final BettingStrategy NONE = new BettingStrategy(new double[Bet.values().length]);
+
+  private final double[] amounts;
+
+  private BettingStrategy(double[] amounts) {
+    this.amounts = amounts;
+  }
+
+  /**
+   * Returns a strategy with no wagers.
+   *
+   * @return {@code BettingStrategy}
+   */
+  public static BettingStrategy none() {
+    return NONE;
+  }
+
+  /**
+   * Returns a copy of this strategy, with the specified amount wagered on the specified {@link Bet}.
+   *
+   * @param bet {@link Bet} type.
+   * @param amount Amount wagered each time the bet is available; 0 to remove the bet.
+   * @return {@code BettingStrategy}
+   * @throws IllegalArgumentException If {@code amount} is negative or not finite.
+   */
+  public BettingStrategy with(Bet bet, double amount) throws IllegalArgumentException {
+    if (!(amount >= 0) || Double.isInfinite(amount)) {
+      throw new IllegalArgumentException();
+    }
+    double[] amounts = Arrays.copyOf(this.amounts, this.amounts.length);
+    amounts[bet.ordinal()] = amount;
+    return new BettingStrategy(amounts);
+  }
+
+  /**
+   * Returns the amount wagered on the specified {@link Bet}.
+   *
+   * @param bet {@link Bet} type.
+   * @return {@code double}
+   */
+  public double getAmount(Bet bet) {
+    return amounts[bet.ordinal()];
+  }
+
+  /**
+   * Returns a flag indicating whether this strategy includes any wagers.
+   *
+   * @return {@code boolean}
+   */
+  public boolean isEmpty() {
+    for (double amount : amounts) {
+      if (amount > 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj == this
+        || (obj instanceof BettingStrategy
+        && Arrays.equals(amounts, ((BettingStrategy) obj).amounts));
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(amounts);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    for (Bet bet : Bet.values()) {
+      double amount = amounts[bet.ordinal()];
+      if (amount > 0) {
+        if (builder.length() > 0) {
+          builder.append(", ");
+        }
+        builder.append(bet).append('=').append(amount);
+      }
+    }
+    return (builder.length() > 0) ? builder.toString() : "NONE";
+  }
+
+}
@@ -0,0 +1,336 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compiled form of a {@link Rules} variant: a dense transition table, indexed by the state of a
+ * round and the sum of the dice rolled, and the exact probabilities of the outcomes of a round,
+ * computed by solving the absorbing Markov chain defined by that table. The state of a round in
+ * progress is encoded as its point, with 0 standing for the come-out roll; each table entry is the
+ * encoded state after the roll, or {@link #WIN} or {@link #LOSS} if the roll ends the round.
+ * <p>Instances are obtained with {@link Rules#compile()}, and held in a bounded
+ * least-recently-used cache; they are immutable, and may be shared by all threads.</p>
+ */
+public final class CompiledRules {
+
+  /** Encoded state of a round won. */
+  public static final int WIN = -1;
+  /** Encoded state of a round lost. */
+  public static final int LOSS = -2;
+
+  private static final int CACHE_SIZE = 16;
+  private static final Map<Rules, CompiledRules> cache =
+      new LinkedHashMap<Rules, CompiledRules>(CACHE_SIZE, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Rules, CompiledRules> eldest) {
+          return size() > CACHE_SIZE;
+        }
+
+      };
+
+  final int numValues;
+  final byte[] transitions;
+  final double[] sumProbabilities;
+  final double[] pointProbabilities;
+  final double[] pointWinProbabilities;
+  final double[] logContinueProbabilities;
+  final AliasTable comeOutTable;
+  final int[] comeOutOutcomes;
+
+  private final Rules rules;
+  private final double naturalProbability;
+  private final double crapsProbability;
+  private final double winProbability;
+  private final double expectedRolls;
+  private final double sevenOutProbability;
+  private final double pointMadeProbability;
+
+  private CompiledRules(Rules rules) {
+    this.rules = rules;
+    numValues = rules.getMaxSum() + 1;
+    sumProbabilities = DiceTables.sumProbabilities(rules.getNumDice(), rules.getNumSides());
+    transitions = new byte[numValues * numValues];
+    for (int point = 0; point < numValues; point++) {
+      for (int sum = 0; sum < numValues; sum++) {
+        transitions[point * numValues + sum] = (byte) transition(rules, point, sum);
+      }
+    }
+    pointProbabilities = new double[numValues];
+    logContinueProbabilities = new double[numValues];
+    double natural = 0;
+    double craps = 0;
+    for (int sum = 0; sum < numValues; sum++) {
+      int next = transitions[sum];
+      if (next == WIN) {
+        natural += sumProbabilities[sum];
+      } else if (next == LOSS) {
+        craps += sumProbabilities[sum];
+      } else if (next > 0) {
+        pointProbabilities[next] += sumProbabilities[sum];
+      }
+    }
+    naturalProbability = natural;
+    crapsProbability = craps;
+    double[][] solution = solve();
+    pointWinProbabilities = solution[0];
+    winProbability = pointWinProbabilities[0];
+    expectedRolls = solution[1][0];
+    double sevenOut = 0;
+    double pointMade = 0;
+    int numOutcomes = 2;
+    for (int point = 1; point < numValues; point++) {
+      if (pointProbabilities[point] > 0) {
+        sevenOut += pointProbabilities[point] * (1 - pointWinProbabilities[point]);
+        pointMade += pointProbabilities[point] * pointWinProbabilities[point];
+        double continuing = 0;
+        for (int sum = 0; sum < numValues; sum++) {
+          if (transitions[point * numValues + sum] == point) {
+            continuing += sumProbabilities[sum];
+          }
+        }
+        logContinueProbabilities[point] = Math.log(continuing);
+        numOutcomes++;
+      }
+    }
+    sevenOutProbability = sevenOut;
+    pointMadeProbability = pointMade;
+    // The come-out roll's consequence (a win, a loss, or one of the points), for direct sampling.
+    double[] weights = new double[numOutcomes];
+    comeOutOutcomes = new int[numOutcomes];
+    weights[0] = naturalProbability;
+    comeOutOutcomes[0] = WIN;
+    weights[1] = crapsProbability;
+    comeOutOutcomes[1] = LOSS;
+    for (int point = 1, index = 2; point < numValues; point++) {
+      if (pointProbabilities[point] > 0) {
+        weights[index] = pointProbabilities[point];
+        comeOutOutcomes[index++] = point;
+      }
+    }
+    comeOutTable = new AliasTable(weights);
+  }
+
+  /**
+   * Returns the compiled form of the specified rules, from the cache if present.
+   */
+  static CompiledRules of(Rules rules) {
+    synchronized (cache) {
+      CompiledRules compiled = cache.get(rules);
+      if (compiled == null) {
+        compiled = new CompiledRules(rules);
+        cache.put(rules, compiled);
+      }
+      return compiled;
+    }
+  }
+
+  /**
+   * Returns the rules compiled into this instance.
+   *
+   * @return {@link Rules}
+   */
+  public Rules getRules() {
+    return rules;
+  }
+
+  /**
+   * Returns the encoded state of a round following a roll of the specified sum in the specified
+   * state: the point established or still in effect, or {@link #WIN} or {@link #LOSS}.
+   *
+   * @param point Point in effect, or 0 for the come-out roll.
+   * @param sum Sum of the dice rolled.
+   * @return {@code int}
+   * @throws IndexOutOfBoundsException If either value is negative or exceeds the largest sum.
+   */
+  public int next(int point, int sum) throws IndexOutOfBoundsException {
+    if (point < 0 || point >= numValues || sum < 0 || sum >= numValues) {
+      throw new IndexOutOfBoundsException();
+    }
+    return transitions[point * numValues + sum];
+  }
+
+  /**
+   * Returns the exact probability that a round is won.
+   *
+   * @return {@code double}
+   */
+  public double getWinProbability() {
+    return winProbability;
+  }
+
+  /**
+   * Returns the exact probability of a natural (a win on the come-out roll).
+   *
+   * @return {@code double}
+   */
+  public double getNaturalProbability() {
+    return naturalProbability;
+  }
+
+  /**
+   * Returns the exact probability of craps (a loss on the come-out roll).
+   *
+   * @return {@code double}
+   */
+  public double getCrapsProbability() {
+    return crapsProbability;
+  }
+
+  /**
+   * Returns the exact probability that the specified point is established on the come-out roll.
+   *
+   * @param point Point.
+   * @return {@code double}
+   */
+  public double getPointProbability(int point) {
+    return (point > 0 && point < numValues) ? pointProbabilities[point] : 0;
+  }
+
+  /**
+   * Returns the exact probability that the specified point, once established, is made.
+   *
+   * @param point Point.
+   * @return {@code double}
+   */
+  public double getPointWinProbability(int point) {
+    return (point > 0 && point < numValues) ? pointWinProbabilities[point] : 0;
+  }
+
+  /**
+   * Returns the exact expected number of rolls in a round.
+   *
+   * @return {@code double}
+   */
+  public double getExpectedRolls() {
+    return expectedRolls;
+  }
+
+  /**
+   * Returns the exact expected number of rolls in a shooter hand, which continues until a
+   * seven-out (a loss after a point is established); this is infinite if a seven-out is
+   * impossible.
+   *
+   * @return {@code double}
+   */
+  public double getExpectedHandRolls() {
+    return (sevenOutProbability > 0)
+        ? expectedRolls / sevenOutProbability
+        : Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Returns the exact expected number of points made in a shooter hand; this is infinite if a
+   * seven-out is impossible.
+   *
+   * @return {@code double}
+   */
+  public double getExpectedHandPointsMade() {
+    return (sevenOutProbability > 0)
+        ? pointMadeProbability / sevenOutProbability
+        : Double.POSITIVE_INFINITY;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s: P(win) = %.8f, E(rolls) = %.6f",
+        rules, winProbability, expectedRolls);
+  }
+
+  private static int transition(Rules rules, int point, int sum) {
+    int next;
+    if (point == 0) {
+      if (rules.isNatural(sum)) {
+        next = WIN;
+      } else if (rules.isCraps(sum)) {
+        next = LOSS;
+      } else {
+        next = rules.isPoint(sum) ? sum : 0;
+      }
+    } else if (sum == point) {
+      next = WIN;
+    } else if (sum == rules.getSevenOut()) {
+      next = LOSS;
+    } else {
+      next = point;
+    }
+    return next;
+  }
+
+  /**
+   * Solves the absorbing Markov chain defined by the transition table, for the probability of
+   * absorption in {@link #WIN}, and the expected number of rolls until absorption, from each
+   * transient state: {@code (I - Q) x = b}, where {@code Q} holds the transition probabilities
+   * between transient states, and {@code b} the probabilities of a win in one roll (or 1, for the
+   * expected number of rolls). The system is solved by Gaussian elimination with partial pivoting.
+   */
+  private double[][] solve() {
+    int[] states = new int[numValues];
+    int[] indices = new int[numValues];
+    int size = 0;
+    for (int state = 0; state < numValues; state++) {
+      if (state == 0 || pointProbabilities[state] > 0) {
+        indices[state] = size;
+        states[size++] = state;
+      }
+    }
+    double[][] matrix = new double[size][size + 2];
+    for (int row = 0; row < size; row++) {
+      int state = states[row];
+      matrix[row][row] += 1;
+      matrix[row][size + 1] = 1;
+      for (int sum = 0; sum < numValues; sum++) {
+        double probability = sumProbabilities[sum];
+        int next = transitions[state * numValues + sum];
+        if (probability > 0 && next == WIN) {
+          matrix[row][size] += probability;
+        } else if (probability > 0 && next >= 0) {
+          matrix[row][indices[next]] -= probability;
+        }
+      }
+    }
+    for (int pivot = 0; pivot < size; pivot++) {
+      int best = pivot;
+      for (int row = pivot + 1; row < size; row++) {
+        if (Math.abs(matrix[row][pivot]) > Math.abs(matrix[best][pivot])) {
+          best = row;
+        }
+      }
+      double[] swap = matrix[pivot];
+      matrix[pivot] = matrix[best];
+      matrix[best] = swap;
+      for (int row = 0; row < size; row++) {
+        if (row != pivot && matrix[row][pivot] != 0) {
+          double factor = matrix[row][pivot] / matrix[pivot][pivot];
+          for (int column = pivot; column < size + 2; column++) {
+            matrix[row][column] -= factor * matrix[pivot][column];
+          }
+        }
+      }
+    }
+    double[] wins = new double[numValues];
+    double[] rolls = new double[numValues];
+    for (int row = 0; row < size; row++) {
+      wins[states[row]] = matrix[row][size] / matrix[row][row];
+      rolls[states[row]] = matrix[row][size + 1] / matrix[row][row];
+    }
+    return new double[][]{wins, rolls};
+  }
+
+}
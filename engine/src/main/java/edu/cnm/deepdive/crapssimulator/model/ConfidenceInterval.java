@@ -0,0 +1,241 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+/**
+ * Encapsulates a Wilson score interval for a binomial proportion (e.g. the probability of a win),
+ * computed from a tally of successes and trials. Unlike the normal-approximation (Wald) interval,
+ * the Wilson interval is well-behaved for small numbers of trials and for proportions near 0 or 1;
+ * for large numbers of trials, the two converge. Since the interval depends only on the tally, it
+ * may be recomputed incrementally, in constant time, as the tally grows.
+ * <p>Note that if a run is stopped as soon as an interval computed after each batch is narrow
+ * enough, the actual coverage of the final interval is slightly below the nominal confidence
+ * level; a higher confidence level may be specified to compensate.</p>
+ * <p>As might be inferred from the name, instances of this class are immutable.</p>
+ */
+public final class ConfidenceInterval {
+
+  /** Confidence level used when none is specified. */
+  public static final double DEFAULT_CONFIDENCE = 0.95;
+
+  private final long successes;
+  private final long trials;
+  private final double confidence;
+  private final double z;
+  private final double center;
+  private final double halfWidth;
+
+  private ConfidenceInterval(long successes, long trials, double confidence) {
+    this.successes = successes;
+    this.trials = trials;
+    this.confidence = confidence;
+    z = criticalValue(confidence);
+    double zSquared = z * z;
+    if (trials > 0) {
+      double p = (double) successes / trials;
+      double scale = 1 / (trials + zSquared);
+      center = (successes + zSquared / 2) * scale;
+      halfWidth = z * scale * Math.sqrt(trials * p * (1 - p) + zSquared / 4);
+    } else {
+      center = 0.5;
+      halfWidth = 0.5;
+    }
+  }
+
+  /**
+   * Returns the Wilson score interval, at the specified confidence level, for the proportion of
+   * successes in the specified number of trials.
+   *
+   * @param successes Number of successes.
+   * @param trials Number of trials.
+   * @param confidence Confidence level, strictly between 0 and 1 (e.g. 0.95).
+   * @return {@link ConfidenceInterval}
+   * @throws IllegalArgumentException If {@code successes} is negative or greater than {@code
+   *     trials}, or {@code confidence} is not strictly between 0 and 1.
+   */
+  public static ConfidenceInterval wilson(long successes, long trials, double confidence)
+      throws IllegalArgumentException {
+    if (successes < 0 || successes > trials) {
+      throw new IllegalArgumentException();
+    }
+    return new ConfidenceInterval(successes, trials, confidence);
+  }
+
+  /**
+   * Returns the critical value of the standard normal distribution for a two-sided interval at the
+   * specified confidence level; e.g. approximately 1.96 for a confidence level of 0.95.
+   *
+   * @param confidence Confidence level, strictly between 0 and 1.
+   * @return {@code double}
+   * @throws IllegalArgumentException If {@code confidence} is not strictly between 0 and 1.
+   */
+  public static double criticalValue(double confidence) throws IllegalArgumentException {
+    if (!(confidence > 0 && confidence < 1)) {
+      throw new IllegalArgumentException();
+    }
+    return NormalQuantile.of((1 + confidence) / 2);
+  }
+
+  /**
+   * Returns the lower bound of this interval.
+   *
+   * @return {@code double}
+   */
+  public double getLower() {
+    return Math.max(0, center - halfWidth);
+  }
+
+  /**
+   * Returns the upper bound of this interval.
+   *
+   * @return {@code double}
+   */
+  public double getUpper() {
+    return Math.min(1, center + halfWidth);
+  }
+
+  /**
+   * Returns the center of this interval. (This is not the observed proportion of successes, but
+   * that proportion shifted slightly toward 0.5.)
+   *
+   * @return {@code double}
+   */
+  public double getCenter() {
+    return center;
+  }
+
+  /**
+   * Returns the half-width of this interval.
+   *
+   * @return {@code double}
+   */
+  public double getHalfWidth() {
+    return halfWidth;
+  }
+
+  /**
+   * Returns the confidence level of this interval.
+   *
+   * @return {@code double}
+   */
+  public double getConfidence() {
+    return confidence;
+  }
+
+  /**
+   * Returns the number of trials from which this interval was computed.
+   *
+   * @return {@code long}
+   */
+  public long getTrials() {
+    return trials;
+  }
+
+  /**
+   * Returns an estimate of the total number of trials required for the half-width of the interval
+   * to shrink to the specified value, assuming that the observed proportion of successes doesn't
+   * change. (Before any trials, a proportion of 0.5&mdash;the worst case&mdash;is assumed.) The
+   * estimate is the exact solution of the Wilson half-width equation for that proportion.
+   *
+   * @param halfWidth Target half-width, greater than 0.
+   * @return {@code long}
+   * @throws IllegalArgumentException If {@code halfWidth} is not greater than 0.
+   */
+  public long estimateTrials(double halfWidth) throws IllegalArgumentException {
+    if (!(halfWidth > 0)) {
+      throw new IllegalArgumentException();
+    }
+    double p = (trials > 0) ? (double) successes / trials : 0.5;
+    double variance = p * (1 - p);
+    double zSquared = z * z;
+    double hSquared = halfWidth * halfWidth;
+    // Solves h^2 m^2 - z^2 pq m + z^4 (pq - 1/4) = 0 for m = n + z^2.
+    double m = zSquared
+        * (variance + Math.sqrt(variance * variance + hSquared * (1 - 4 * variance)))
+        / (2 * hSquared);
+    return (long) Math.ceil(Math.max(0, m - zSquared));
+  }
+
+  /**
+   * Returns an estimate of the number of trials, in addition to those already included, required
+   * for the half-width of the interval to shrink to the specified value; 0 if it is already that
+   * narrow. See {@link #estimateTrials(double)}.
+   *
+   * @param halfWidth Target half-width, greater than 0.
+   * @return {@code long}
+   * @throws IllegalArgumentException If {@code halfWidth} is not greater than 0.
+   */
+  public long estimateRemainingTrials(double halfWidth) throws IllegalArgumentException {
+    long remaining = 0;
+    if (this.halfWidth > halfWidth) {
+      // The observed interval isn't narrow enough, so at least one more trial is required.
+      remaining = Math.max(1, estimateTrials(halfWidth) - trials);
+    } else if (!(halfWidth > 0)) {
+      throw new IllegalArgumentException();
+    }
+    return remaining;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("[%.8f, %.8f] (%s%%)", getLower(), getUpper(), 100 * confidence);
+  }
+
+  /**
+   * Computes quantiles of the standard normal distribution, using the rational approximation of
+   * P. J. Acklam (relative error less than 1.15e-9).
+   */
+  static final class NormalQuantile {
+
+    private static final double[] A = {-3.969683028665376e+01, 2.209460984245205e+02,
+        -2.759285104469687e+02, 1.383577518672690e+02, -3.066479806614716e+01,
+        2.506628277459239e+00};
+    private static final double[] B = {-5.447609879822406e+01, 1.615858368580409e+02,
+        -1.556989798598866e+02, 6.680131188771972e+01, -1.328068155288572e+01};
+    private static final double[] C = {-7.784894002430293e-03, -3.223964580411365e-01,
+        -2.400758277161838e+00, -2.549732539343734e+00, 4.374664141464968e+00,
+        2.938163982698783e+00};
+    private static final double[] D = {7.784695709041462e-03, 3.224671290700398e-01,
+        2.445134137142996e+00, 3.754408661907416e+00};
+    private static final double P_LOW = 0.02425;
+    private static final double P_HIGH = 1 - P_LOW;
+
+    private NormalQuantile() {
+      // Static methods only.
+    }
+
+    static double of(double p) {
+      double x;
+      if (p < P_LOW) {
+        double q = Math.sqrt(-2 * Math.log(p));
+        x = (((((C[0] * q + C[1]) * q + C[2]) * q + C[3]) * q + C[4]) * q + C[5])
+            / ((((D[0] * q + D[1]) * q + D[2]) * q + D[3]) * q + 1);
+      } else if (p <= P_HIGH) {
+        double q = p - 0.5;
+        double r = q * q;
+        x = (((((A[0] * r + A[1]) * r + A[2]) * r + A[3]) * r + A[4]) * r + A[5]) * q
+            / (((((B[0] * r + B[1]) * r + B[2]) * r + B[3]) * r + B[4]) * r + 1);
+      } else {
+        double q = Math.sqrt(-2 * Math.log(1 - p));
+        x = -(((((C[0] * q + C[1]) * q + C[2]) * q + C[3]) * q + C[4]) * q + C[5])
+            / ((((D[0] * q + D[1]) * q + D[2]) * q + D[3]) * q + 1);
+      }
+      return x;
+    }
+
+  }
+
+}
@@ -0,0 +1,148 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Accumulates the sums required by a {@link VarianceReducedEstimate}, over antithetic pairs of
+ * rounds: for each pair, the number of wins, and the net wagering result, along with the control
+ * variates (whether the shared come-out roll was a natural, or craps) and their products. Like
+ * {@link StatisticsAccumulator}, which embeds an instance of this class, accumulators may be
+ * merged, and their state saved and restored.
+ */
+final class ControlVariateAccumulator {
+
+  long pairs;
+  long wins;
+  long winSquares;
+  long naturals;
+  long naturalWins;
+  long craps;
+  long crapsWins;
+  long wageredPairs;
+  long wageredNaturals;
+  long wageredCraps;
+  double net;
+  double netSquares;
+  double naturalNet;
+  double crapsNet;
+  double roundNetSquares;
+
+  void add(int wins, int point, boolean natural, boolean wagered, double primaryNet,
+      double antitheticNet) {
+    boolean crapped = (point == 0 && !natural);
+    pairs++;
+    this.wins += wins;
+    winSquares += wins * wins;
+    if (natural) {
+      naturals++;
+      naturalWins += wins;
+    } else if (crapped) {
+      craps++;
+      crapsWins += wins;
+    }
+    if (wagered) {
+      double net = primaryNet + antitheticNet;
+      wageredPairs++;
+      this.net += net;
+      netSquares += net * net;
+      roundNetSquares += primaryNet * primaryNet + antitheticNet * antitheticNet;
+      if (natural) {
+        wageredNaturals++;
+        naturalNet += net;
+      } else if (crapped) {
+        wageredCraps++;
+        crapsNet += net;
+      }
+    }
+  }
+
+  void merge(ControlVariateAccumulator other) {
+    pairs += other.pairs;
+    wins += other.wins;
+    winSquares += other.winSquares;
+    naturals += other.naturals;
+    naturalWins += other.naturalWins;
+    craps += other.craps;
+    crapsWins += other.crapsWins;
+    wageredPairs += other.wageredPairs;
+    wageredNaturals += other.wageredNaturals;
+    wageredCraps += other.wageredCraps;
+    net += other.net;
+    netSquares += other.netSquares;
+    naturalNet += other.naturalNet;
+    crapsNet += other.crapsNet;
+    roundNetSquares += other.roundNetSquares;
+  }
+
+  void reset() {
+    pairs = 0;
+    wins = 0;
+    winSquares = 0;
+    naturals = 0;
+    naturalWins = 0;
+    craps = 0;
+    crapsWins = 0;
+    wageredPairs = 0;
+    wageredNaturals = 0;
+    wageredCraps = 0;
+    net = 0;
+    netSquares = 0;
+    naturalNet = 0;
+    crapsNet = 0;
+    roundNetSquares = 0;
+  }
+
+  void save(ByteBuffer buffer) {
+    buffer
+        .putLong(pairs)
+        .putLong(wins)
+        .putLong(winSquares)
+        .putLong(naturals)
+        .putLong(naturalWins)
+        .putLong(craps)
+        .putLong(crapsWins)
+        .putLong(wageredPairs)
+        .putLong(wageredNaturals)
+        .putLong(wageredCraps)
+        .putDouble(net)
+        .putDouble(netSquares)
+        .putDouble(naturalNet)
+        .putDouble(crapsNet)
+        .putDouble(roundNetSquares);
+  }
+
+  void restore(ByteBuffer buffer) throws BufferUnderflowException {
+    pairs = buffer.getLong();
+    wins = buffer.getLong();
+    winSquares = buffer.getLong();
+    naturals = buffer.getLong();
+    naturalWins = buffer.getLong();
+    craps = buffer.getLong();
+    crapsWins = buffer.getLong();
+    wageredPairs = buffer.getLong();
+    wageredNaturals = buffer.getLong();
+    wageredCraps = buffer.getLong();
+    net = buffer.getDouble();
+    netSquares = buffer.getDouble();
+    naturalNet = buffer.getDouble();
+    crapsNet = buffer.getDouble();
+    roundNetSquares = buffer.getDouble();
+  }
+
+}
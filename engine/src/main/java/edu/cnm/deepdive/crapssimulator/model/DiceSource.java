@@ -0,0 +1,110 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import org.apache.commons.rng.UniformRandomProvider;
+
+/**
+ * Source of dice rolls, for a fixed number of dice, each with a fixed number of sides. Implementations
+ * are free to sample the dice in whatever way is most efficient for the configuration, as long as
+ * each die is independent and uniformly distributed. Instances are not thread-safe; each thread
+ * should use its own.
+ * <p>Implementations may draw values from the source of randomness in advance, and buffer them;
+ * see {@link #discardBuffered()}.</p>
+ */
+public interface DiceSource {
+
+  /**
+   * Returns a {@code DiceSource} for the specified configuration, backed by the specified source of
+   * randomness. The implementation is selected by the configuration: when the number of joint
+   * outcomes is small enough, each roll is a single uniform digit, decoded into dice values and
+   * sum by table lookup; otherwise, each die is a separate digit, and sums alone are drawn from a
+   * cached distribution of sums. In either case, many digits are extracted from each 64-bit word
+   * drawn from {@code rng}, and buffered.
+   *
+   * @param rng Source of randomness.
+   * @param numDice Number of dice in each roll.
+   * @param numSides Number of sides on each die.
+   * @return {@code DiceSource}
+   * @throws IllegalArgumentException If {@code numDice} or {@code numSides} is less than 1.
+   */
+  static DiceSource create(UniformRandomProvider rng, int numDice, int numSides)
+      throws IllegalArgumentException {
+    if (numDice < 1 || numSides < 1) {
+      throw new IllegalArgumentException();
+    }
+    return (DiceTables.hasJointTable(numDice, numSides))
+        ? new TableDiceSource(rng, numDice, numSides)
+        : new IndependentDiceSource(rng, numDice, numSides);
+  }
+
+  /**
+   * Returns the number of dice in each roll.
+   *
+   * @return {@code int}
+   */
+  int getNumDice();
+
+  /**
+   * Returns the number of sides on each die.
+   *
+   * @return {@code int}
+   */
+  int getNumSides();
+
+  /**
+   * Rolls the dice, writing the value of each into the specified array, and returning the sum.
+   *
+   * @param dice Destination of the dice values; must have a length of at least {@link
+   *     #getNumDice()}.
+   * @return Sum of dice values.
+   */
+  int roll(int[] dice);
+
+  /**
+   * Rolls the dice, returning only the sum of their values. This is typically cheaper than {@link
+   * #roll(int[])}.
+   *
+   * @return Sum of dice values.
+   */
+  int rollSum();
+
+  /**
+   * Rolls the dice, returning the index of their joint outcome: {@code sum((dice[i] - 1) *
+   * numSides^i)}, so that the value of the first die varies fastest. For 2d6, this is the encoding
+   * used by {@link PackedRolls}.
+   *
+   * @return Index of the joint outcome, in the range 0 (inclusive) to {@code numSides^numDice}
+   *     (exclusive).
+   * @throws UnsupportedOperationException If the number of joint outcomes exceeds {@link
+   *     Integer#MAX_VALUE}.
+   */
+  int rollOutcome() throws UnsupportedOperationException;
+
+  /**
+   * Discards any values drawn from the source of randomness in advance, and not yet used, so that
+   * subsequent rolls depend only on the state of the source of randomness from this point on. An
+   * engine that saves and restores the state of the source should invoke this method whenever it
+   * saves the state (e.g. at the end of each batch); otherwise, rolls after restoring the state
+   * would differ from those after saving it. The values discarded are wasted, so discarding after
+   * every few rolls (e.g. with very small batches) increases the cost of each roll. The default
+   * implementation does nothing.
+   */
+  default void discardBuffered() {
+    // No buffered values by default.
+  }
+
+}
@@ -0,0 +1,118 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes and caches the per-configuration tables used by the {@link DiceSource}
+ * implementations: distributions of sums, and joint-outcome decoding tables. Cached tables are
+ * immutable, and are shared by all sources (on all threads) with the same configuration.
+ */
+final class DiceTables {
+
+  static final int MAX_JOINT_OUTCOMES = 4096;
+
+  private static final Map<Long, double[]> sumProbabilities = new ConcurrentHashMap<>();
+  private static final Map<Long, AliasTable> sumTables = new ConcurrentHashMap<>();
+  private static final Map<Long, Joint> jointTables = new ConcurrentHashMap<>();
+
+  private DiceTables() {
+  }
+
+  /**
+   * Returns a flag indicating whether the number of joint outcomes of the specified configuration
+   * is small enough for a joint-outcome decoding table.
+   */
+  static boolean hasJointTable(int numDice, int numSides) {
+    long outcomes = 1;
+    for (int i = 0; i < numDice && outcomes <= MAX_JOINT_OUTCOMES; i++) {
+      outcomes *= numSides;
+    }
+    return outcomes <= MAX_JOINT_OUTCOMES;
+  }
+
+  /**
+   * Returns the probability of each sum (indexed by sum, from 0 to {@code numDice * numSides}).
+   * The returned array must not be modified.
+   */
+  static double[] sumProbabilities(int numDice, int numSides) {
+    return sumProbabilities.computeIfAbsent(key(numDice, numSides), (key) -> {
+      double[] probabilities = {1};
+      for (int die = 0; die < numDice; die++) {
+        double[] convolved = new double[probabilities.length + numSides];
+        for (int value = 0; value < probabilities.length; value++) {
+          for (int face = 1; face <= numSides; face++) {
+            convolved[value + face] += probabilities[value] / numSides;
+          }
+        }
+        probabilities = convolved;
+      }
+      return probabilities;
+    });
+  }
+
+  /** Returns an {@link AliasTable} for sampling sums directly (outcome index = sum). */
+  static AliasTable sumTable(int numDice, int numSides) {
+    return sumTables.computeIfAbsent(key(numDice, numSides),
+        (key) -> new AliasTable(sumProbabilities(numDice, numSides)));
+  }
+
+  /** Returns the joint-outcome decoding table for the specified configuration. */
+  static Joint jointTable(int numDice, int numSides) {
+    return jointTables.computeIfAbsent(key(numDice, numSides),
+        (key) -> new Joint(numDice, numSides));
+  }
+
+  private static long key(int numDice, int numSides) {
+    return ((long) numDice << 32) | numSides;
+  }
+
+  /**
+   * Decoding table mapping each joint outcome (a single uniform draw from {@code numSides^numDice}
+   * values) to the corresponding dice values and sum.
+   */
+  static final class Joint {
+
+    final int numOutcomes;
+    final int[] faces;
+    final int[] sums;
+
+    private Joint(int numDice, int numSides) {
+      int outcomes = 1;
+      for (int i = 0; i < numDice; i++) {
+        outcomes *= numSides;
+      }
+      numOutcomes = outcomes;
+      faces = new int[outcomes * numDice];
+      sums = new int[outcomes];
+      for (int outcome = 0; outcome < outcomes; outcome++) {
+        int remaining = outcome;
+        int sum = 0;
+        for (int die = 0; die < numDice; die++) {
+          int face = 1 + remaining % numSides;
+          remaining /= numSides;
+          faces[outcome * numDice + die] = face;
+          sum += face;
+        }
+        sums[outcome] = sum;
+      }
+    }
+
+  }
+
+}
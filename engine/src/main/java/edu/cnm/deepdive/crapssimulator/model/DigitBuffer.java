@@ -0,0 +1,136 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import org.apache.commons.rng.UniformRandomProvider;
+
+/**
+ * Draws uniformly distributed digits in a fixed base (e.g. 36, for the joint outcomes of 2d6) from
+ * 64-bit words, many digits at a time, and serves them from a ring buffer. Each word is accepted
+ * only if it's less than the largest multiple of {@code base^k} representable in 64 bits (for the
+ * number of digits {@code k} that yields the most digits per word, on average); the remainder of an
+ * accepted word modulo {@code base^k} is uniformly distributed, so its {@code k} base-{@code base}
+ * digits are exactly uniform and independent. For 2d6, 11 digits are extracted from each word, and
+ * fewer than 0.12% of words are rejected, so a roll costs less than a tenth of a draw from the
+ * source of randomness.
+ * <p>Digits drawn but not yet served are not part of the state of the source of randomness; an
+ * engine that saves and restores that state should {@link #clear()} the buffer at the same
+ * points. The digits cleared are simply thrown away: since the buffer is refilled to nearly its
+ * capacity of 64 digits, up to 6 words of entropy (for 2d6) are wasted at the end of each batch.
+ * This is negligible for batches of thousands of rounds, but a significant overhead for very small
+ * batches.</p>
+ */
+final class DigitBuffer {
+
+  private static final int CAPACITY = 64;
+  private static final int MASK = CAPACITY - 1;
+
+  private final UniformRandomProvider rng;
+  private final int base;
+  private final int digitsPerWord;
+  private final long modulus;
+  private final long limit;
+  private final int[] digits;
+
+  private int head;
+  private int tail;
+
+  /**
+   * Initializes this instance with the specified source of randomness and base.
+   *
+   * @param rng Source of randomness.
+   * @param base Number of distinct digit values.
+   * @throws IllegalArgumentException If {@code base} is less than 1.
+   */
+  DigitBuffer(UniformRandomProvider rng, int base) throws IllegalArgumentException {
+    if (base < 1) {
+      throw new IllegalArgumentException();
+    }
+    this.rng = rng;
+    this.base = base;
+    // Select the number of digits per word that maximizes the expected yield; the modulus is kept
+    // within the range of a signed long, so that digits can be extracted with signed arithmetic.
+    int bestDigits = 1;
+    long bestModulus = base;
+    double bestYield = 0;
+    long power = 1;
+    for (int k = 1; k <= CAPACITY && power <= Long.MAX_VALUE / base; k++) {
+      power *= base;
+      double acceptance = unsigned(acceptanceLimit(power)) / 0x1p64;
+      if (k * acceptance > bestYield) {
+        bestDigits = k;
+        bestModulus = power;
+        bestYield = k * acceptance;
+      }
+    }
+    digitsPerWord = bestDigits;
+    modulus = bestModulus;
+    limit = acceptanceLimit(bestModulus);
+    digits = new int[CAPACITY];
+  }
+
+  /**
+   * Returns the next digit, in the range 0 (inclusive) to {@code base} (exclusive).
+   *
+   * @return {@code int}
+   */
+  int next() {
+    if (head == tail) {
+      fill();
+    }
+    return digits[head++ & MASK];
+  }
+
+  /**
+   * Discards any digits drawn but not yet served, so that the next digit is extracted from a fresh
+   * word.
+   */
+  void clear() {
+    head = tail;
+  }
+
+  /**
+   * Returns the number of digits extracted from each accepted word.
+   *
+   * @return {@code int}
+   */
+  int getDigitsPerWord() {
+    return digitsPerWord;
+  }
+
+  private void fill() {
+    while (tail - head <= CAPACITY - digitsPerWord) {
+      long word = rng.nextLong();
+      if (Long.compareUnsigned(word, limit) < 0) {
+        long remainder = Long.remainderUnsigned(word, modulus);
+        for (int i = 0; i < digitsPerWord; i++) {
+          digits[tail++ & MASK] = (int) (remainder % base);
+          remainder /= base;
+        }
+      }
+    }
+  }
+
+  /** Returns the largest multiple of {@code modulus} less than 2<sup>64</sup>, as unsigned. */
+  private static long acceptanceLimit(long modulus) {
+    return Long.divideUnsigned(-1L, modulus) * modulus;
+  }
+
+  private static double unsigned(long value) {
+    return (value >= 0) ? value : 0x1p64 + value;
+  }
+
+}
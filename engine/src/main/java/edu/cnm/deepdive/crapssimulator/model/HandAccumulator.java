@@ -0,0 +1,175 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Accumulates streaming statistics of shooter hands, in constant memory: a hand is the sequence of
+ * rounds thrown by one shooter, which continues until a seven-out (a loss after a point has been
+ * established; a loss on the come-out roll doesn't end the hand). For each completed hand, the
+ * number of rolls and of points made are counted in fixed-size histograms, and the longest hand is
+ * tracked. Like {@link StatisticsAccumulator}, which embeds an instance of this class and feeds it
+ * every round it accumulates, accumulators may be merged, and their state saved and restored.
+ * <p>As with streaks, the hand in progress when the first round was added may have started in a
+ * preceding sequence of rounds, so it's tracked separately until the first seven-out; on merging,
+ * it's joined to the hand in progress at the end of the preceding accumulator.</p>
+ */
+final class HandAccumulator {
+
+  final long[] rollCounts = new long[StatisticsAccumulator.MAX_HAND_ROLLS + 1];
+  final long[] pointsMadeCounts = new long[StatisticsAccumulator.MAX_POINTS_MADE + 1];
+
+  long hands;
+  long rolls;
+  long rounds;
+  long pointsMade;
+  int longestHand;
+  int mostPointsMade;
+  boolean ended;
+  int leadingRolls;
+  int leadingRounds;
+  int leadingPointsMade;
+  int trailingRolls;
+  int trailingRounds;
+  int trailingPointsMade;
+
+  void add(boolean win, int point, int rollCount) {
+    trailingRolls += rollCount;
+    trailingRounds++;
+    if (point != 0) {
+      if (win) {
+        trailingPointsMade++;
+      } else {
+        endHand(trailingRolls, trailingRounds, trailingPointsMade);
+        trailingRolls = 0;
+        trailingRounds = 0;
+        trailingPointsMade = 0;
+      }
+    }
+  }
+
+  void merge(HandAccumulator other) {
+    if (other.ended) {
+      for (int i = 0; i < rollCounts.length; i++) {
+        rollCounts[i] += other.rollCounts[i];
+      }
+      for (int i = 0; i < pointsMadeCounts.length; i++) {
+        pointsMadeCounts[i] += other.pointsMadeCounts[i];
+      }
+      hands += other.hands;
+      rolls += other.rolls;
+      rounds += other.rounds;
+      pointsMade += other.pointsMade;
+      longestHand = Math.max(longestHand, other.longestHand);
+      mostPointsMade = Math.max(mostPointsMade, other.mostPointsMade);
+      endHand(trailingRolls + other.leadingRolls, trailingRounds + other.leadingRounds,
+          trailingPointsMade + other.leadingPointsMade);
+      trailingRolls = other.trailingRolls;
+      trailingRounds = other.trailingRounds;
+      trailingPointsMade = other.trailingPointsMade;
+    } else {
+      trailingRolls += other.trailingRolls;
+      trailingRounds += other.trailingRounds;
+      trailingPointsMade += other.trailingPointsMade;
+    }
+  }
+
+  void reset() {
+    Arrays.fill(rollCounts, 0);
+    Arrays.fill(pointsMadeCounts, 0);
+    hands = 0;
+    rolls = 0;
+    rounds = 0;
+    pointsMade = 0;
+    longestHand = 0;
+    mostPointsMade = 0;
+    ended = false;
+    leadingRolls = 0;
+    leadingRounds = 0;
+    leadingPointsMade = 0;
+    trailingRolls = 0;
+    trailingRounds = 0;
+    trailingPointsMade = 0;
+  }
+
+  void save(ByteBuffer buffer) {
+    for (long count : rollCounts) {
+      buffer.putLong(count);
+    }
+    for (long count : pointsMadeCounts) {
+      buffer.putLong(count);
+    }
+    buffer
+        .putLong(hands)
+        .putLong(rolls)
+        .putLong(rounds)
+        .putLong(pointsMade)
+        .putInt(longestHand)
+        .putInt(mostPointsMade)
+        .put((byte) (ended ? 1 : 0))
+        .putInt(leadingRolls)
+        .putInt(leadingRounds)
+        .putInt(leadingPointsMade)
+        .putInt(trailingRolls)
+        .putInt(trailingRounds)
+        .putInt(trailingPointsMade);
+  }
+
+  void restore(ByteBuffer buffer) throws BufferUnderflowException {
+    for (int i = 0; i < rollCounts.length; i++) {
+      rollCounts[i] = buffer.getLong();
+    }
+    for (int i = 0; i < pointsMadeCounts.length; i++) {
+      pointsMadeCounts[i] = buffer.getLong();
+    }
+    hands = buffer.getLong();
+    rolls = buffer.getLong();
+    rounds = buffer.getLong();
+    pointsMade = buffer.getLong();
+    longestHand = buffer.getInt();
+    mostPointsMade = buffer.getInt();
+    ended = (buffer.get() != 0);
+    leadingRolls = buffer.getInt();
+    leadingRounds = buffer.getInt();
+    leadingPointsMade = buffer.getInt();
+    trailingRolls = buffer.getInt();
+    trailingRounds = buffer.getInt();
+    trailingPointsMade = buffer.getInt();
+  }
+
+  private void endHand(int handRolls, int handRounds, int handPointsMade) {
+    if (ended) {
+      rollCounts[Math.min(handRolls, StatisticsAccumulator.MAX_HAND_ROLLS)]++;
+      pointsMadeCounts[Math.min(handPointsMade, StatisticsAccumulator.MAX_POINTS_MADE)]++;
+      hands++;
+      rolls += handRolls;
+      rounds += handRounds;
+      pointsMade += handPointsMade;
+    } else {
+      // The hand may have started before the first round added; it's held until merged.
+      ended = true;
+      leadingRolls = handRolls;
+      leadingRounds = handRounds;
+      leadingPointsMade = handPointsMade;
+    }
+    longestHand = Math.max(longestHand, handRolls);
+    mostPointsMade = Math.max(mostPointsMade, handPointsMade);
+  }
+
+}
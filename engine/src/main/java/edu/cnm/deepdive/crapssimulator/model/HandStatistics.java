@@ -0,0 +1,188 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+/**
+ * Immutable view of the statistics of shooter hands accumulated by a {@link StatisticsAccumulator}:
+ * the distributions of the number of rolls and of points made per hand, and the longest hand. A
+ * hand continues across rounds until a seven-out; only completed hands are included in the
+ * distributions and means, but the hand in progress is available separately.
+ * <p>Rounds accumulated without hand tracking (see {@link
+ * StatisticsAccumulator#StatisticsAccumulator(boolean)}) are not included; in particular, the
+ * antithetic pairs of rounds played by {@code AntitheticEngine} are dependent, so they don't form
+ * valid hands, and are excluded.</p>
+ * <p>As might be inferred from the name, instances of this class are immutable.</p>
+ */
+public final class HandStatistics {
+
+  /** Exact expected number of rolls in a hand, under the standard rules (1671/196). */
+  public static final double EXACT_MEAN_ROLLS = Rules.standard().compile().getExpectedHandRolls();
+  /** Exact expected number of points made in a hand, under the standard rules (67/98). */
+  public static final double EXACT_MEAN_POINTS_MADE =
+      Rules.standard().compile().getExpectedHandPointsMade();
+
+  private final long hands;
+  private final long rolls;
+  private final long rounds;
+  private final long pointsMade;
+  private final long[] rollCounts;
+  private final long[] pointsMadeCounts;
+  private final int longestHand;
+  private final int mostPointsMade;
+  private final int currentRolls;
+  private final int currentPointsMade;
+
+  HandStatistics(HandAccumulator accumulator) {
+    rollCounts = accumulator.rollCounts.clone();
+    pointsMadeCounts = accumulator.pointsMadeCounts.clone();
+    if (accumulator.ended) {
+      // The leading hand is complete, but is only tracked separately by the accumulator.
+      rollCounts[Math.min(accumulator.leadingRolls, StatisticsAccumulator.MAX_HAND_ROLLS)]++;
+      pointsMadeCounts[
+          Math.min(accumulator.leadingPointsMade, StatisticsAccumulator.MAX_POINTS_MADE)]++;
+      hands = accumulator.hands + 1;
+      rolls = accumulator.rolls + accumulator.leadingRolls;
+      rounds = accumulator.rounds + accumulator.leadingRounds;
+      pointsMade = accumulator.pointsMade + accumulator.leadingPointsMade;
+    } else {
+      hands = 0;
+      rolls = 0;
+      rounds = 0;
+      pointsMade = 0;
+    }
+    longestHand = accumulator.longestHand;
+    mostPointsMade = accumulator.mostPointsMade;
+    currentRolls = accumulator.trailingRolls;
+    currentPointsMade = accumulator.trailingPointsMade;
+  }
+
+  /**
+   * Returns the number of completed hands.
+   *
+   * @return {@code long}
+   */
+  public long getHands() {
+    return hands;
+  }
+
+  /**
+   * Returns the mean number of rolls per completed hand, or 0 if there are none.
+   *
+   * @return {@code double}
+   */
+  public double getMeanRolls() {
+    return (hands > 0) ? (double) rolls / hands : 0;
+  }
+
+  /**
+   * Returns the mean number of rounds per completed hand, or 0 if there are none.
+   *
+   * @return {@code double}
+   */
+  public double getMeanRounds() {
+    return (hands > 0) ? (double) rounds / hands : 0;
+  }
+
+  /**
+   * Returns the mean number of points made per completed hand, or 0 if there are none.
+   *
+   * @return {@code double}
+   */
+  public double getMeanPointsMade() {
+    return (hands > 0) ? (double) pointsMade / hands : 0;
+  }
+
+  /**
+   * Returns the number of completed hands with the specified number of rolls. Hands of {@link
+   * StatisticsAccumulator#MAX_HAND_ROLLS} or more rolls are counted together.
+   *
+   * @param rollCount Number of rolls.
+   * @return {@code long}
+   */
+  public long getRollCountFrequency(int rollCount) {
+    return rollCounts[Math.min(rollCount, StatisticsAccumulator.MAX_HAND_ROLLS)];
+  }
+
+  /**
+   * Returns the smallest number of rolls such that at least the specified percentage of completed
+   * hands had no more rolls than that, or 0 if there are no completed hands. If the percentile
+   * falls in the last bin, {@link StatisticsAccumulator#MAX_HAND_ROLLS} is returned.
+   *
+   * @param percentile Percentage of hands, from 0 to 100.
+   * @return {@code int}
+   */
+  public int getRollCountPercentile(double percentile) {
+    int rollCount = 0;
+    if (hands > 0) {
+      double threshold = Math.max(1, Math.ceil(hands * percentile / 100));
+      long cumulative = 0;
+      while (rollCount < rollCounts.length - 1
+          && (cumulative += rollCounts[rollCount]) < threshold) {
+        rollCount++;
+      }
+    }
+    return rollCount;
+  }
+
+  /**
+   * Returns the number of completed hands in which the specified number of points were made.
+   * Hands with {@link StatisticsAccumulator#MAX_POINTS_MADE} or more points made are counted
+   * together.
+   *
+   * @param points Number of points made.
+   * @return {@code long}
+   */
+  public long getPointsMadeFrequency(int points) {
+    return pointsMadeCounts[Math.min(points, StatisticsAccumulator.MAX_POINTS_MADE)];
+  }
+
+  /**
+   * Returns the number of rolls in the longest completed hand.
+   *
+   * @return {@code int}
+   */
+  public int getLongestHand() {
+    return longestHand;
+  }
+
+  /**
+   * Returns the largest number of points made in a completed hand.
+   *
+   * @return {@code int}
+   */
+  public int getMostPointsMade() {
+    return mostPointsMade;
+  }
+
+  /**
+   * Returns the number of rolls so far in the hand in progress.
+   *
+   * @return {@code int}
+   */
+  public int getCurrentRolls() {
+    return currentRolls;
+  }
+
+  /**
+   * Returns the number of points made so far in the hand in progress.
+   *
+   * @return {@code int}
+   */
+  public int getCurrentPointsMade() {
+    return currentPointsMade;
+  }
+
+}
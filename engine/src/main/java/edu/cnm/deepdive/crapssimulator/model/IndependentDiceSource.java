@@ -0,0 +1,98 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import org.apache.commons.rng.UniformRandomProvider;
+
+/**
+ * Rolls each die with a separate uniform draw, for configurations with too many joint outcomes for
+ * table decoding. When only the sum is needed, it is drawn from the cached distribution of sums
+ * (with a constant number of draws), rather than by rolling each die. Die values are drawn as the
+ * base-{@code numSides} digits of 64-bit words, by a {@link DigitBuffer}.
+ */
+final class IndependentDiceSource implements DiceSource {
+
+  private static final int MAX_DICE_PER_SUM = 2;
+
+  private final UniformRandomProvider rng;
+  private final DigitBuffer faces;
+  private final int numDice;
+  private final int numSides;
+  private final AliasTable sumTable;
+  private final boolean indexable;
+
+  IndependentDiceSource(UniformRandomProvider rng, int numDice, int numSides) {
+    this.rng = rng;
+    faces = new DigitBuffer(rng, numSides);
+    this.numDice = numDice;
+    this.numSides = numSides;
+    sumTable = (numDice > MAX_DICE_PER_SUM) ? DiceTables.sumTable(numDice, numSides) : null;
+    indexable = (numDice * Math.log(numSides) < Math.log(Integer.MAX_VALUE));
+  }
+
+  @Override
+  public int getNumDice() {
+    return numDice;
+  }
+
+  @Override
+  public int getNumSides() {
+    return numSides;
+  }
+
+  @Override
+  public int roll(int[] dice) {
+    int sum = 0;
+    for (int i = 0; i < numDice; i++) {
+      int face = 1 + faces.next();
+      dice[i] = face;
+      sum += face;
+    }
+    return sum;
+  }
+
+  @Override
+  public int rollSum() {
+    int sum;
+    if (sumTable != null) {
+      sum = sumTable.sample(rng);
+    } else {
+      sum = 0;
+      for (int i = 0; i < numDice; i++) {
+        sum += 1 + faces.next();
+      }
+    }
+    return sum;
+  }
+
+  @Override
+  public int rollOutcome() {
+    if (!indexable) {
+      throw new UnsupportedOperationException();
+    }
+    int outcome = 0;
+    for (int i = 0; i < numDice; i++) {
+      outcome = outcome * numSides + faces.next();
+    }
+    return outcome;
+  }
+
+  @Override
+  public void discardBuffered() {
+    faces.clear();
+  }
+
+}
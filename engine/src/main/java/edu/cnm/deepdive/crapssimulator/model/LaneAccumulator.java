@@ -0,0 +1,405 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates the statistics of several interleaved sequences of rounds (e.g. the lanes of a SIMD
+ * engine), in primitive per-lane arrays, and folds them into a {@link StatisticsAccumulator} in a
+ * single pass, as if the sequence of each lane had been added to it in turn, followed by that of
+ * the next.
+ * <p>Adding a round costs only a few increments and bit operations: the histograms of roll counts
+ * and points, which don't depend on the order of rounds, are shared by all lanes, while the
+ * outcome of each round is recorded as a bit in a 64-bit word per lane. Each filled word is then
+ * processed as a whole, extracting streaks and shooter hands with bit scans and population counts,
+ * and decaying the win rate a byte at a time, rather than with a chain of unpredictable branches
+ * per round, as {@link StatisticsAccumulator#add(boolean, int, int)} must.</p>
+ * <p>Instances of this class are not thread-safe.</p>
+ */
+public final class LaneAccumulator {
+
+  private static final int WORD_BITS = Long.SIZE;
+  private static final int WORD_MASK = WORD_BITS - 1;
+  private static final int WORD_SHIFT = 6;
+  private static final int WINDOW_WORDS = StatisticsAccumulator.WINDOW_SIZE / WORD_BITS;
+  private static final int WINDOW_MASK = StatisticsAccumulator.WINDOW_SIZE - 1;
+  private static final double DECAY_RATE = StatisticsAccumulator.DECAY_RATE;
+  private static final double BYTE_DECAY = Math.pow(1 - DECAY_RATE, Byte.SIZE);
+  private static final int BYTE_MASK = (1 << Byte.SIZE) - 1;
+  private static final double[] BYTE_WINS = new double[1 << Byte.SIZE];
+
+  static {
+    // Decayed wins contributed by a byte of outcomes (in order from the low bit), starting at 0.
+    for (int outcomes = 0; outcomes < BYTE_WINS.length; outcomes++) {
+      double wins = 0;
+      for (int bit = 0; bit < Byte.SIZE; bit++) {
+        wins = (1 - DECAY_RATE) * wins + (((outcomes >>> bit) & 1) != 0 ? DECAY_RATE : 0);
+      }
+      BYTE_WINS[outcomes] = wins;
+    }
+  }
+
+  private final int numLanes;
+  private final StatisticsAccumulator scratch = new StatisticsAccumulator();
+
+  private final long[] rollCounts = new long[StatisticsAccumulator.MAX_ROLL_COUNT + 1];
+  private final long[] pointCounts = new long[StatisticsAccumulator.NUM_POINTS];
+  private final long[] pointWins = new long[StatisticsAccumulator.NUM_POINTS];
+  private final long[] winStreaks = new long[StatisticsAccumulator.MAX_STREAK + 1];
+  private final long[] lossStreaks = new long[StatisticsAccumulator.MAX_STREAK + 1];
+  private final long[] handRollCounts = new long[StatisticsAccumulator.MAX_HAND_ROLLS + 1];
+  private final long[] pointsMadeCounts = new long[StatisticsAccumulator.MAX_POINTS_MADE + 1];
+  private long rolls;
+  private int longestWinStreak;
+  private int longestLossStreak;
+  private long hands;
+  private long handRolls;
+  private long handRounds;
+  private long pointsMade;
+  private int longestHand;
+  private int mostPointsMade;
+
+  private final int[] rounds;
+  private final long[] winWords;
+  private final long[] pointWords;
+  // Running total of rolls in each lane, and its value after each round of the current word;
+  // totals may wrap around, but differences between them (the rolls of a hand) are still exact.
+  private final int[] laneRolls;
+  private final int[] wordRolls;
+  private final boolean[] leadingWins;
+  private final int[] leadingStreaks;
+  private final boolean[] trailingWins;
+  private final int[] trailingStreaks;
+  private final long[] windows;
+  private final double[] decayedWins;
+  private final boolean[] handsEnded;
+  private final int[] leadingHandRolls;
+  private final int[] leadingHandRounds;
+  private final int[] leadingPointsMade;
+  private final int[] handStartRolls;
+  private final int[] handStartRounds;
+  private final int[] trailingPointsMade;
+
+  /**
+   * Initializes this instance with the specified number of lanes.
+   *
+   * @param numLanes Number of interleaved sequences of rounds.
+   */
+  public LaneAccumulator(int numLanes) {
+    if (numLanes < 1) {
+      throw new IllegalArgumentException();
+    }
+    this.numLanes = numLanes;
+    rounds = new int[numLanes];
+    winWords = new long[numLanes];
+    pointWords = new long[numLanes];
+    laneRolls = new int[numLanes];
+    wordRolls = new int[numLanes * WORD_BITS];
+    leadingWins = new boolean[numLanes];
+    leadingStreaks = new int[numLanes];
+    trailingWins = new boolean[numLanes];
+    trailingStreaks = new int[numLanes];
+    windows = new long[numLanes * WINDOW_WORDS];
+    decayedWins = new double[numLanes];
+    handsEnded = new boolean[numLanes];
+    leadingHandRolls = new int[numLanes];
+    leadingHandRounds = new int[numLanes];
+    leadingPointsMade = new int[numLanes];
+    handStartRolls = new int[numLanes];
+    handStartRounds = new int[numLanes];
+    trailingPointsMade = new int[numLanes];
+  }
+
+  /**
+   * Adds the outcome of a single completed round to the sequence of the specified lane.
+   *
+   * @param lane Index of the lane (0 to the number of lanes, exclusive).
+   * @param win Flag indicating whether the round was won.
+   * @param point Point established in the come-out roll, or 0 if the come-out roll decided the
+   *     round.
+   * @param rollCount Number of rolls in the round.
+   */
+  public void add(int lane, boolean win, int point, int rollCount) {
+    int won = win ? 1 : 0;
+    rollCounts[Math.min(rollCount, StatisticsAccumulator.MAX_ROLL_COUNT)]++;
+    rolls += rollCount;
+    pointCounts[point]++;
+    pointWins[point] += won;
+    int count = rounds[lane];
+    int bit = count & WORD_MASK;
+    // Shift distances are implicitly masked to the low 6 bits.
+    winWords[lane] |= (long) won << count;
+    pointWords[lane] |= (long) (-point >>> 31) << count;
+    int total = laneRolls[lane] + rollCount;
+    laneRolls[lane] = total;
+    wordRolls[lane * WORD_BITS + bit] = total;
+    rounds[lane] = count + 1;
+    if (bit == WORD_MASK) {
+      addWord(lane, WORD_BITS);
+    }
+  }
+
+  /**
+   * Merges the sequences of all lanes, in order, into the specified accumulator, as if the rounds
+   * of each had been added to it, after those already added; this instance is then cleared.
+   *
+   * @param statistics Accumulator into which the lanes are merged.
+   */
+  public void drainTo(StatisticsAccumulator statistics) {
+    for (int lane = 0; lane < numLanes; lane++) {
+      int partial = rounds[lane] & WORD_MASK;
+      if (partial > 0) {
+        addWord(lane, partial);
+      }
+      if (rounds[lane] > 0) {
+        statistics.merge(boundaries(lane));
+      }
+    }
+    addAll(statistics.rollCounts, rollCounts);
+    addAll(statistics.pointCounts, pointCounts);
+    addAll(statistics.pointWins, pointWins);
+    addAll(statistics.winStreaks, winStreaks);
+    addAll(statistics.lossStreaks, lossStreaks);
+    for (long wins : pointWins) {
+      statistics.wins += wins;
+    }
+    statistics.rolls += rolls;
+    statistics.naturals += pointWins[0];
+    statistics.craps += pointCounts[0] - pointWins[0];
+    statistics.longestWinStreak = Math.max(statistics.longestWinStreak, longestWinStreak);
+    statistics.longestLossStreak = Math.max(statistics.longestLossStreak, longestLossStreak);
+    if (statistics.trackHands) {
+      HandAccumulator target = statistics.hands;
+      addAll(target.rollCounts, handRollCounts);
+      addAll(target.pointsMadeCounts, pointsMadeCounts);
+      target.hands += hands;
+      target.rolls += handRolls;
+      target.rounds += handRounds;
+      target.pointsMade += pointsMade;
+      target.longestHand = Math.max(target.longestHand, longestHand);
+      target.mostPointsMade = Math.max(target.mostPointsMade, mostPointsMade);
+    }
+    reset();
+  }
+
+  /**
+   * Clears all lanes.
+   */
+  public void reset() {
+    for (long[] counts : new long[][]{rollCounts, pointCounts, pointWins, winStreaks, lossStreaks,
+        handRollCounts, pointsMadeCounts, winWords, pointWords, windows}) {
+      Arrays.fill(counts, 0);
+    }
+    rolls = 0;
+    longestWinStreak = 0;
+    longestLossStreak = 0;
+    hands = 0;
+    handRolls = 0;
+    handRounds = 0;
+    pointsMade = 0;
+    longestHand = 0;
+    mostPointsMade = 0;
+    for (int[] counts : new int[][]{rounds, laneRolls, leadingStreaks, trailingStreaks,
+        handStartRolls, handStartRounds, trailingPointsMade}) {
+      Arrays.fill(counts, 0);
+    }
+    Arrays.fill(decayedWins, 0);
+    Arrays.fill(handsEnded, false);
+  }
+
+  /**
+   * Processes the specified number of rounds (up to a full word) most recently added to a lane.
+   */
+  private void addWord(int lane, int length) {
+    long wins = winWords[lane];
+    long points = pointWords[lane];
+    int start = rounds[lane] - length;
+    winWords[lane] = 0;
+    pointWords[lane] = 0;
+    addStreaks(lane, start, wins, length);
+    addHands(lane, start, wins, points);
+    int slot = lane * WINDOW_WORDS + ((start & WINDOW_MASK) >>> WORD_SHIFT);
+    // In a partial word, the bits of rounds not yet played are those of the oldest in the window.
+    windows[slot] = (length == WORD_BITS) ? wins : (windows[slot] & (-1L << length)) | wins;
+    double decayed = decayedWins[lane];
+    int bit = 0;
+    for (; bit + Byte.SIZE <= length; bit += Byte.SIZE) {
+      decayed = BYTE_DECAY * decayed + BYTE_WINS[(int) (wins >>> bit) & BYTE_MASK];
+    }
+    for (; bit < length; bit++) {
+      decayed = (1 - DECAY_RATE) * decayed + (((wins >>> bit) & 1) != 0 ? DECAY_RATE : 0);
+    }
+    decayedWins[lane] = decayed;
+  }
+
+  private void addStreaks(int lane, int start, long wins, int length) {
+    boolean win = (wins & 1) != 0;
+    // Bit i of changes is set if the outcome of round i + 1 of the word differs from that of i.
+    long changes = (wins ^ (wins >>> 1)) & ((1L << (length - 1)) - 1);
+    int first = (changes == 0) ? length : Long.numberOfTrailingZeros(changes) + 1;
+    addRun(lane, start, win, first);
+    if (first < length) {
+      // The first run continued the trailing streak, which is now complete; every later run but
+      // the last is complete too, and none of them can be the leading streak.
+      if (leadingStreaks[lane] != start + first) {
+        countStreak(win, trailingStreaks[lane]);
+      }
+      int last = WORD_BITS - Long.numberOfLeadingZeros(changes);
+      long internal = (-1L << first) & ((1L << last) - 1);
+      countRuns(wins & internal, winStreaks, true);
+      countRuns(~wins & internal, lossStreaks, false);
+      win = ((wins >>> last) & 1) != 0;
+      trailingWins[lane] = win;
+      trailingStreaks[lane] = length - last;
+      updateLongest(win, length - last);
+    }
+  }
+
+  /**
+   * Counts complete runs of set bits by length, a length at a time: a run is at least {@code
+   * length} long if {@code length} consecutive bits are set from its start.
+   */
+  private void countRuns(long runs, long[] streaks, boolean win) {
+    long starts = runs & ~(runs << 1);
+    long atLeast = runs;
+    int length = 1;
+    for (long remaining = starts; remaining != 0; length++) {
+      atLeast &= runs >>> length;
+      long longer = starts & atLeast;
+      streaks[Math.min(length, StatisticsAccumulator.MAX_STREAK)] +=
+          Long.bitCount(remaining & ~longer);
+      remaining = longer;
+    }
+    updateLongest(win, length - 1);
+  }
+
+  private void addRun(int lane, int start, boolean win, int length) {
+    boolean allLeading = (leadingStreaks[lane] == start);
+    int streak = trailingStreaks[lane];
+    if (start == 0) {
+      leadingWins[lane] = win;
+      streak = length;
+    } else if (win == trailingWins[lane]) {
+      streak += length;
+    } else {
+      // As in StatisticsAccumulator, the leading streak is counted only when merged.
+      if (!allLeading) {
+        countStreak(trailingWins[lane], streak);
+      }
+      streak = length;
+    }
+    if (allLeading && win == leadingWins[lane]) {
+      leadingStreaks[lane] += length;
+    }
+    trailingWins[lane] = win;
+    trailingStreaks[lane] = streak;
+    updateLongest(win, streak);
+  }
+
+  private void countStreak(boolean win, int length) {
+    (win ? winStreaks : lossStreaks)[Math.min(length, StatisticsAccumulator.MAX_STREAK)]++;
+    updateLongest(win, length);
+  }
+
+  private void updateLongest(boolean win, int length) {
+    if (win) {
+      longestWinStreak = Math.max(longestWinStreak, length);
+    } else {
+      longestLossStreak = Math.max(longestLossStreak, length);
+    }
+  }
+
+  private void addHands(int lane, int start, long wins, long points) {
+    // A hand ends with a seven-out: a loss after a point has been established.
+    long sevenOuts = points & ~wins;
+    long made = points & wins;
+    while (sevenOuts != 0) {
+      int bit = Long.numberOfTrailingZeros(sevenOuts);
+      long through = -1L >>> (WORD_MASK - bit);
+      int total = wordRolls[lane * WORD_BITS + bit];
+      int end = start + bit + 1;
+      endHand(lane, total - handStartRolls[lane], end - handStartRounds[lane],
+          trailingPointsMade[lane] + Long.bitCount(made & through));
+      handStartRolls[lane] = total;
+      handStartRounds[lane] = end;
+      trailingPointsMade[lane] = 0;
+      made &= ~through;
+      sevenOuts &= sevenOuts - 1;
+    }
+    trailingPointsMade[lane] += Long.bitCount(made);
+  }
+
+  private void endHand(int lane, int length, int handRoundCount, int made) {
+    if (handsEnded[lane]) {
+      handRollCounts[Math.min(length, StatisticsAccumulator.MAX_HAND_ROLLS)]++;
+      pointsMadeCounts[Math.min(made, StatisticsAccumulator.MAX_POINTS_MADE)]++;
+      hands++;
+      handRolls += length;
+      handRounds += handRoundCount;
+      pointsMade += made;
+    } else {
+      // As in HandAccumulator, the first hand may have started earlier; it's joined when merged.
+      handsEnded[lane] = true;
+      leadingHandRolls[lane] = length;
+      leadingHandRounds[lane] = handRoundCount;
+      leadingPointsMade[lane] = made;
+    }
+    longestHand = Math.max(longestHand, length);
+    mostPointsMade = Math.max(mostPointsMade, made);
+  }
+
+  /**
+   * Returns an accumulator holding only the order-dependent state of the specified lane, for
+   * merging; the shared counts are added separately.
+   */
+  private StatisticsAccumulator boundaries(int lane) {
+    StatisticsAccumulator lanes = scratch;
+    lanes.reset();
+    int count = rounds[lane];
+    lanes.rounds = count;
+    lanes.leadingWin = leadingWins[lane];
+    lanes.leadingStreak = leadingStreaks[lane];
+    lanes.trailingWin = trailingWins[lane];
+    lanes.trailingStreak = trailingStreaks[lane];
+    int windowWins = 0;
+    for (int i = 0, word = lane * WINDOW_WORDS; i < WINDOW_WORDS; i++, word++) {
+      lanes.window[i] = windows[word];
+      windowWins += Long.bitCount(windows[word]);
+    }
+    lanes.windowPosition = count & WINDOW_MASK;
+    lanes.windowSize = Math.min(count, StatisticsAccumulator.WINDOW_SIZE);
+    lanes.windowWins = windowWins;
+    lanes.decayedWins = decayedWins[lane];
+    lanes.decayedWeight = 1 - Math.pow(1 - DECAY_RATE, count);
+    HandAccumulator hand = lanes.hands;
+    hand.ended = handsEnded[lane];
+    hand.leadingRolls = leadingHandRolls[lane];
+    hand.leadingRounds = leadingHandRounds[lane];
+    hand.leadingPointsMade = leadingPointsMade[lane];
+    hand.trailingRolls = laneRolls[lane] - handStartRolls[lane];
+    hand.trailingRounds = count - handStartRounds[lane];
+    hand.trailingPointsMade = trailingPointsMade[lane];
+    return lanes;
+  }
+
+  private static void addAll(long[] target, long[] source) {
+    for (int i = 0; i < target.length; i++) {
+      target[i] += source[i];
+    }
+  }
+
+}
@@ -0,0 +1,117 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import edu.cnm.deepdive.crapssimulator.model.DiceTables.Joint;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Encodes and decodes the rolls of a {@link Round} in a compact form: one byte per roll, holding the
+ * index of the joint outcome of the dice (e.g. {@code 6 * (die2 - 1) + (die1 - 1)} for 2d6). Decoding
+ * is by table lookup, and is done lazily, so that rolls can be recorded and published without
+ * allocating a {@link Roll} per roll. The same encoding is used for persistent roll logs.
+ */
+public final class PackedRolls {
+
+  private static final Joint joint = DiceTables.jointTable(Round.NUM_DICE, Round.NUM_SIDES);
+
+  static {
+    if (joint.numOutcomes > 256) {
+      throw new ExceptionInInitializerError("Joint outcomes of the dice don't fit in a byte.");
+    }
+  }
+
+  private PackedRolls() {
+  }
+
+  /**
+   * Encodes the specified dice values as a single byte.
+   *
+   * @param dice Values of the {@link Round#NUM_DICE} dice.
+   * @return {@code byte}
+   */
+  public static byte encode(int[] dice) {
+    int code = 0;
+    for (int i = Round.NUM_DICE - 1; i >= 0; i--) {
+      code = code * Round.NUM_SIDES + (dice[i] - 1);
+    }
+    return (byte) code;
+  }
+
+  /**
+   * Returns the value of the specified die in the encoded roll.
+   *
+   * @param code Encoded roll.
+   * @param index Position (0-based) of the die.
+   * @return {@code int}
+   */
+  public static int die(byte code, int index) {
+    return joint.faces[(code & 0xff) * Round.NUM_DICE + index];
+  }
+
+  /**
+   * Returns the sum of the dice in the encoded roll.
+   *
+   * @param code Encoded roll.
+   * @return {@code int}
+   */
+  public static int value(byte code) {
+    return joint.sums[code & 0xff];
+  }
+
+  /** Decodes the encoded roll as a {@link Roll}. */
+  static Roll decode(byte code) {
+    int[] dice = new int[Round.NUM_DICE];
+    System.arraycopy(joint.faces, (code & 0xff) * Round.NUM_DICE, dice, 0, Round.NUM_DICE);
+    return new Roll(dice, joint.sums[code & 0xff]);
+  }
+
+  /**
+   * Returns an unmodifiable {@link List List&lt;Roll&gt;} view of the first {@code size} encoded
+   * rolls in {@code codes}; each {@link Roll} is decoded when it's retrieved.
+   */
+  static List<Roll> asList(byte[] codes, int size) {
+    return new View(codes, size);
+  }
+
+  private static class View extends AbstractList<Roll> implements RandomAccess {
+
+    private final byte[] codes;
+    private final int size;
+
+    private View(byte[] codes, int size) {
+      this.codes = codes;
+      this.size = size;
+    }
+
+    @Override
+    public Roll get(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException();
+      }
+      return decode(codes[index]);
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+  }
+
+}
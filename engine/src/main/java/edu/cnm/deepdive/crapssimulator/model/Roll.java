@@ -16,13 +16,11 @@
 package edu.cnm.deepdive.crapssimulator.model;
 
 import java.util.Arrays;
-import java.util.Random;
-import java.util.stream.IntStream;
 
 /**
  * Encapsulates a singe roll of one or more dice. Instances of this class are immutable: The number
- * of dice, and the value of each die, is fixed during initialization (using a provided source of
- * randomness), and may not be changed after that.
+ * of dice, and the value of each die, is fixed during initialization (using a provided {@link
+ * DiceSource}), and may not be changed after that.
  */
 public final class Roll {
 
@@ -30,25 +28,28 @@ public final class Roll {
   private final int value;
 
   /**
-   * Initializes this instance by generating the dice values using the provided source of
-   * randomness.
+   * Initializes this instance by rolling the dice of the provided {@link DiceSource}.
    *
-   * @param rng Source of randomness.
-   * @param numDice Number of dice to roll.
-   * @param numSides Number of sides on each die.
+   * @param source Source of dice values; the number of dice, and the number of sides on each, are
+   *     those of this source.
    */
-  public Roll(Random rng, int numDice, int numSides) {
-    dice = IntStream
-        .generate(() -> 1 + rng.nextInt(numSides))
-        .limit(numDice)
-        .toArray();
-    value = IntStream
-        .of(dice)
-        .sum();
+  public Roll(DiceSource source) {
+    dice = new int[source.getNumDice()];
+    value = source.roll(dice);
   }
 
   /**
-   * Returns a safe copy of the dice values in this {@code Roll}.
+   * Initializes this instance with the specified (previously rolled) dice values. The array is not
+   * copied, so it must not be modified after this invocation.
+   */
+  Roll(int[] dice, int value) {
+    this.dice = dice;
+    this.value = value;
+  }
+
+  /**
+   * Returns a safe copy of the dice values in this {@code Roll}. Callers that read individual dice
+   * (e.g. when binding a view) should prefer {@link #getDie(int)}, which doesn't allocate.
    *
    * @return {@code int[]}
    */
@@ -56,6 +57,25 @@ public final class Roll {
     return Arrays.copyOf(dice, dice.length);
   }
 
+  /**
+   * Returns the number of dice in this {@code Roll}.
+   *
+   * @return {@code int}
+   */
+  public int getNumDice() {
+    return dice.length;
+  }
+
+  /**
+   * Returns the value of the specified die in this {@code Roll}.
+   *
+   * @param index Position (0-based) of the die, from 0 to {@link #getNumDice()} - 1.
+   * @return {@code int}
+   */
+  public int getDie(int index) {
+    return dice[index];
+  }
+
   /**
    * Returns the sum of dice values in this {@code Roll}.
    *
@@ -0,0 +1,90 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import edu.cnm.deepdive.crapssimulator.model.Round.State;
+import java.util.Arrays;
+
+/**
+ * Records the rolls of a sequence of {@link Round} instances, as a {@link Round.Listener}, so that
+ * the same rolls can be replayed to any number of {@link Wagering} instances (see {@link
+ * Wagering#play(RollBlock)}). Each roll is held in a single byte, combining the point in effect
+ * (0 on the come-out roll) with the value rolled; the end of each round is held as an offset into
+ * the rolls. The storage of an instance is reused after {@link #clear()}.
+ */
+public final class RollBlock implements Round.Listener {
+
+  static final int NUM_VALUES = StatisticsAccumulator.NUM_VALUES;
+
+  private static final int INITIAL_ROUNDS = 1 << 10;
+  private static final int INITIAL_ROLLS = 4 * INITIAL_ROUNDS;
+
+  byte[] rolls;
+  int[] ends;
+  int numRolls;
+  int numRounds;
+
+  /**
+   * Initializes this instance, with no rolls recorded.
+   */
+  public RollBlock() {
+    rolls = new byte[INITIAL_ROLLS];
+    ends = new int[INITIAL_ROUNDS];
+  }
+
+  @Override
+  public void onRoll(State state, int point, int value, int[] dice) {
+    if (numRolls == rolls.length) {
+      rolls = Arrays.copyOf(rolls, 2 * rolls.length);
+    }
+    rolls[numRolls++] = (byte) (point * NUM_VALUES + value);
+  }
+
+  @Override
+  public void onComplete(boolean win, int point, int rollCount) {
+    if (numRounds == ends.length) {
+      ends = Arrays.copyOf(ends, 2 * ends.length);
+    }
+    ends[numRounds++] = numRolls;
+  }
+
+  /**
+   * Discards all rolls recorded in this instance, retaining the storage for reuse.
+   */
+  public void clear() {
+    numRolls = 0;
+    numRounds = 0;
+  }
+
+  /**
+   * Returns the number of complete rounds recorded in this instance.
+   *
+   * @return {@code int}
+   */
+  public int getRoundCount() {
+    return numRounds;
+  }
+
+  /**
+   * Returns the number of rolls recorded in this instance.
+   *
+   * @return {@code int}
+   */
+  public int getRollCount() {
+    return numRolls;
+  }
+
+}
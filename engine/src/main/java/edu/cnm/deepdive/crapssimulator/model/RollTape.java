@@ -0,0 +1,150 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Collects every roll of the rounds played by a {@link Round} (see {@link
+ * Round#setTape(RollTape)}), in the packed form of {@link PackedRolls}, for transfer to persistent
+ * storage. Round boundaries are not recorded, since they're implied by the rules of play; instead,
+ * the offset of the first roll of every {@link #getMarkInterval()}th round is noted, so that the
+ * rounds can be indexed without replaying them. The storage of an instance is reused after {@link
+ * #clear()}.
+ */
+public final class RollTape {
+
+  private static final int INITIAL_ROLLS = 1 << 12;
+  private static final int INITIAL_MARKS = 16;
+
+  private final int markInterval;
+
+  private byte[] rolls;
+  private int numRolls;
+  private int numRounds;
+  private int untilMark;
+  private int[] marks;
+  private int numMarks;
+
+  /**
+   * Initializes this instance, with no rolls recorded.
+   *
+   * @param markInterval Number of rounds between marked rounds.
+   * @throws IllegalArgumentException If {@code markInterval} is less than 1.
+   */
+  public RollTape(int markInterval) throws IllegalArgumentException {
+    if (markInterval < 1) {
+      throw new IllegalArgumentException();
+    }
+    this.markInterval = markInterval;
+    untilMark = markInterval;
+    rolls = new byte[INITIAL_ROLLS];
+    marks = new int[INITIAL_MARKS];
+  }
+
+  void add(byte code) {
+    if (numRolls == rolls.length) {
+      rolls = Arrays.copyOf(rolls, 2 * rolls.length);
+    }
+    rolls[numRolls++] = code;
+  }
+
+  void endRound() {
+    numRounds++;
+    if (--untilMark == 0) {
+      untilMark = markInterval;
+      if (numMarks == marks.length) {
+        marks = Arrays.copyOf(marks, 2 * marks.length);
+      }
+      marks[numMarks++] = numRolls;
+    }
+  }
+
+  /**
+   * Discards all rolls recorded in this instance, retaining the storage for reuse.
+   */
+  public void clear() {
+    numRolls = 0;
+    numRounds = 0;
+    untilMark = markInterval;
+    numMarks = 0;
+  }
+
+  /**
+   * Copies as many recorded rolls as will fit, starting with the roll at the specified offset, into
+   * the specified buffer.
+   *
+   * @param from Offset of the first roll to copy.
+   * @param destination Buffer into which the rolls are copied, starting at its current position.
+   * @return Number of rolls copied.
+   */
+  public int copyRolls(int from, ByteBuffer destination) {
+    int count = Math.min(numRolls - from, destination.remaining());
+    destination.put(rolls, from, count);
+    return count;
+  }
+
+  /**
+   * Returns the number of rolls recorded in this instance.
+   *
+   * @return {@code int}
+   */
+  public int getRollCount() {
+    return numRolls;
+  }
+
+  /**
+   * Returns the number of complete rounds recorded in this instance.
+   *
+   * @return {@code int}
+   */
+  public int getRoundCount() {
+    return numRounds;
+  }
+
+  /**
+   * Returns the number of rounds between marked rounds.
+   *
+   * @return {@code int}
+   */
+  public int getMarkInterval() {
+    return markInterval;
+  }
+
+  /**
+   * Returns the number of marked rounds recorded in this instance, not counting the first round.
+   * The last mark may be the offset just past the last round, if the number of rounds is a multiple
+   * of {@link #getMarkInterval()}.
+   *
+   * @return {@code int}
+   */
+  public int getMarkCount() {
+    return numMarks;
+  }
+
+  /**
+   * Returns the offset of the first roll of the round numbered {@code (mark + 1) *
+   * getMarkInterval()} in this instance.
+   *
+   * @param mark Index of the mark.
+   * @return {@code int}
+   */
+  public int getMark(int mark) {
+    return marks[mark];
+  }
+
+}
@@ -0,0 +1,424 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encapsulates a single round of the Craps shooter's play. No wagering actions or outcomes are
+ * included in this representation, but only one or more rolls&mdash;from the come-out roll to the
+ * final win or loss outcome. Recorded rolls are held in a compact packed form (one byte per roll),
+ * and decoded into {@link Roll} instances only on retrieval. Wagering (see {@link Wagering}) and
+ * other per-roll processing may be layered on top of this class, via a {@link Listener}.
+ * <p>Each roll advances the round with a single load from the transition table of the {@link
+ * Rules} variant in effect (see {@link CompiledRules}), rather than by dispatching on the {@link
+ * State}; the state is derived from the point when it's observed. The {@link State} enumeration
+ * describes the {@link Rules#standard() standard rules}. Rolls are held in the packed form of
+ * {@link PackedRolls}, which encodes {@link #NUM_DICE} dice of {@link #NUM_SIDES} sides; the rolls
+ * of other dice are counted, but can't be recorded or taped.</p>
+ */
+public class Round {
+
+  /** Number of dice rolled in each roll of a round. */
+  public static final int NUM_DICE = 2;
+  /** Number of sides on each die. */
+  public static final int NUM_SIDES = 6;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final DiceSource dice;
+  private final int[] faces;
+  private final boolean packed;
+
+  private CompiledRules rules;
+  // Each roll is a single load from the compiled table: the next point, or WIN or LOSS.
+  private byte[] transitions;
+  private int numValues;
+  private byte[] rolls;
+  private int numRecorded;
+  private StatisticsAccumulator statistics;
+  private Listener listener;
+  private RollTape tape;
+  private State state;
+  private boolean win;
+  private int point;
+  private int rollCount;
+
+  /**
+   * Initializes this instance with the specified source of dice rolls, and the {@link
+   * Rules#standard() standard rules}.
+   *
+   * @param dice {@link DiceSource} rolling {@link #NUM_DICE} dice of {@link #NUM_SIDES} sides each.
+   * @throws IllegalArgumentException If {@code dice} has a different configuration.
+   */
+  public Round(DiceSource dice) throws IllegalArgumentException {
+    this(dice, Rules.standard());
+  }
+
+  /**
+   * Initializes this instance with the specified source of dice rolls, and the specified rules.
+   *
+   * @param dice {@link DiceSource} rolling the dice of {@code rules}.
+   * @param rules {@link Rules} variant governing the rounds played by this instance.
+   * @throws IllegalArgumentException If {@code dice} has a different configuration than {@code
+   *     rules}.
+   */
+  public Round(DiceSource dice, Rules rules) throws IllegalArgumentException {
+    this.dice = dice;
+    faces = new int[dice.getNumDice()];
+    packed = (dice.getNumDice() == NUM_DICE && dice.getNumSides() == NUM_SIDES);
+    rolls = new byte[INITIAL_CAPACITY];
+    setRules(rules);
+  }
+
+  /**
+   * Plays a complete round of Craps, starting with the come-out roll and including as many rolls as
+   * necessary to arrive at a win or loss. Since the rules of Craps don't allow for any decisions by
+   * the shooter after the round begins, all rolls are executed by this method without interruption.
+   *
+   * @return Flag indicating whether this instance has completed with a win.
+   */
+  public boolean play() {
+    return play(true);
+  }
+
+  /**
+   * Plays a complete round of Craps, optionally recording each roll. When {@code record} is {@code
+   * false}, only the sum of each roll is drawn, and {@link #getRolls()} returns an empty list on
+   * completion. This counting-only mode is intended for all but the last round of a batch, where
+   * only the outcome is of interest. In either mode, no objects are allocated per roll. Rolls of
+   * dice that can't be held in packed form are never recorded.
+   *
+   * @param record Flag indicating whether the rolls of this round should be retained.
+   * @return Flag indicating whether this instance has completed with a win.
+   */
+  public boolean play(boolean record) {
+    numRecorded = 0;
+    byte[] transitions = this.transitions;
+    int numValues = this.numValues;
+    int point = 0;
+    record &= packed;
+    int next;
+    int rollCount = 0;
+    if (record || listener != null) {
+      do {
+        int value = dice.roll(faces);
+        if (listener != null) {
+          listener.onRoll((point == 0) ? State.COME_OUT : State.POINT, point, value, faces);
+        }
+        next = transitions[point * numValues + value];
+        point = (next >= 0) ? next : point;
+        if (record || tape != null) {
+          byte code = PackedRolls.encode(faces);
+          if (record) {
+            if (numRecorded == rolls.length) {
+              rolls = Arrays.copyOf(rolls, 2 * rolls.length);
+            }
+            rolls[numRecorded++] = code;
+          }
+          if (tape != null) {
+            tape.add(code);
+          }
+        }
+        rollCount++;
+      } while (next >= 0);
+    } else if (tape != null) {
+      do {
+        byte code = (byte) dice.rollOutcome();
+        tape.add(code);
+        next = transitions[point * numValues + PackedRolls.value(code)];
+        point = (next >= 0) ? next : point;
+        rollCount++;
+      } while (next >= 0);
+    } else {
+      do {
+        next = transitions[point * numValues + dice.rollSum()];
+        point = (next >= 0) ? next : point;
+        rollCount++;
+      } while (next >= 0);
+    }
+    this.point = point;
+    this.rollCount = rollCount;
+    win = (next == CompiledRules.WIN);
+    state = win ? State.WIN : State.LOSS;
+    if (tape != null) {
+      tape.endRound();
+    }
+    if (statistics != null) {
+      statistics.add(win, point, rollCount);
+    }
+    if (listener != null) {
+      listener.onComplete(win, point, rollCount);
+    }
+    return win;
+  }
+
+  /**
+   * Sets the {@link Rules} variant governing subsequent rounds played by this instance.
+   *
+   * @param rules {@link Rules} variant, with the dice of the {@link DiceSource} of this instance.
+   * @throws IllegalArgumentException If the dice of {@code rules} differ from those rolled by this
+   *     instance.
+   */
+  public void setRules(Rules rules) throws IllegalArgumentException {
+    if (rules.getNumDice() != dice.getNumDice() || rules.getNumSides() != dice.getNumSides()) {
+      throw new IllegalArgumentException();
+    }
+    this.rules = rules.compile();
+    transitions = this.rules.transitions;
+    numValues = this.rules.numValues;
+  }
+
+  /**
+   * Returns the {@link Rules} variant governing the rounds played by this instance.
+   *
+   * @return {@link Rules}
+   */
+  public Rules getRules() {
+    return rules.getRules();
+  }
+
+  /**
+   * Sets the {@link Listener} notified of each roll, and of the completion of each round, in
+   * subsequent rounds played by this instance.
+   *
+   * @param listener Per-roll {@link Listener}; {@code null} removes any listener.
+   */
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Sets the {@link RollTape} to which every roll of subsequent rounds played by this instance is
+   * appended, whether or not the rolls are recorded in this instance.
+   *
+   * @param tape Destination of all rolls; {@code null} disables taping.
+   * @throws IllegalStateException If the dice of this instance can't be held in packed form.
+   */
+  public void setTape(RollTape tape) throws IllegalStateException {
+    if (tape != null && !packed) {
+      throw new IllegalStateException();
+    }
+    this.tape = tape;
+  }
+
+  /**
+   * Sets the {@link StatisticsAccumulator} to which the outcome of each subsequent round played by
+   * this instance is added.
+   *
+   * @param statistics Destination of round outcomes; {@code null} disables accumulation.
+   */
+  public void setStatistics(StatisticsAccumulator statistics) {
+    this.statistics = statistics;
+  }
+
+  /**
+   * Returns an unmodifiable {@link List List&lt;Roll&gt;} view of the rolls recorded so far in this
+   * instance. Each {@link Roll} is decoded from the packed form when it's retrieved.
+   *
+   * @return {@link List List&lt;Roll&gt;}
+   */
+  public List<Roll> getRolls() {
+    return PackedRolls.asList(rolls, numRecorded);
+  }
+
+  /**
+   * Returns a copy of the recorded rolls of this instance, in packed form.
+   */
+  byte[] copyPackedRolls() {
+    return Arrays.copyOf(rolls, numRecorded);
+  }
+
+  /**
+   * Returns the current {@link State} of this instance.
+   *
+   * @return {@link State}
+   */
+  public State getState() {
+    return state;
+  }
+
+  /**
+   * Returns the point established in the come-out roll of this instance, or 0 if the round was
+   * decided by the come-out roll.
+   *
+   * @return {@code int}
+   */
+  public int getPoint() {
+    return point;
+  }
+
+  /**
+   * Returns the number of rolls in this instance. Unlike {@link #getRolls()}, this is available
+   * whether or not the rolls were recorded.
+   *
+   * @return {@code int}
+   */
+  public int getRollCount() {
+    return rollCount;
+  }
+
+  /**
+   * Returns a flag indicating whether the current {@code Round} instance has terminated in a win.
+   *
+   * @return {@code boolean}
+   */
+  public boolean isWin() {
+    return win;
+  }
+
+  /**
+   * Receives notification of each roll in a {@link Round}, and of the round's completion. Since
+   * these notifications are issued from the innermost simulation loop, implementations should do as
+   * little work as possible, and must not allocate objects per roll.
+   */
+  public interface Listener {
+
+    /**
+     * Invoked for each roll, before the state of the round is updated.
+     *
+     * @param state {@link State} of the round before this roll: {@link State#COME_OUT} or {@link
+     *     State#POINT}.
+     * @param point Point established in the come-out roll, or 0 if this is the come-out roll.
+     * @param value Sum of the dice.
+     * @param dice Values of the individual dice. This array is reused for subsequent rolls, so it
+     *     must not be retained or modified.
+     */
+    void onRoll(State state, int point, int value, int[] dice);
+
+    /**
+     * Invoked when the round completes.
+     *
+     * @param win Flag indicating whether the round was won.
+     * @param point Point established in the come-out roll, or 0 if the come-out roll decided the
+     *     round.
+     * @param rollCount Number of rolls in the round.
+     */
+    default void onComplete(boolean win, int point, int rollCount) {
+    }
+
+  }
+
+  /**
+   * Enumerates the high-level states of a round of play in Craps.
+   */
+  public enum State {
+    /** Awaiting initial roll. */
+    COME_OUT {
+
+      @Override
+      protected boolean isTerminal() {
+        return false;
+      }
+
+      @Override
+      protected State next(int value, int ignoredPoint) {
+        State state;
+        switch (value) {
+          case 2:
+          case 3:
+          case 12:
+            state = LOSS;
+            break;
+          case 7:
+          case 11:
+            state = WIN;
+            break;
+          default:
+            state = POINT;
+            break;
+        }
+        return state;
+      }
+
+    },
+    /** Point established in initial roll; awaiting win (roll of the same point) or loss (roll of 7). */
+    POINT {
+
+      @Override
+      protected boolean isTerminal() {
+        return false;
+      }
+
+      @Override
+      protected State next(int value, int point) {
+        State state;
+        if (value == point) {
+          state = WIN;
+        } else if (value == 7) {
+          state = LOSS;
+        } else {
+          state = this;
+        }
+        return state;
+      }
+
+    },
+    /** Round won by rolling a natural (7 or 11) in the come-out roll, or by making the point established in that roll. */
+    WIN,
+    /** Round lost by rolling a 2, 3, or 12 in the come-out roll, or by rolling 7 before rolling the point established in that roll. */
+    LOSS;
+
+    /**
+     * Returns the initial state ({@link #COME_OUT}) of a round of play in Craps.
+     *
+     * @return {@link State}
+     */
+    public static State initial() {
+      return COME_OUT;
+    }
+
+    /**
+     * Returns a flag indicating whether the current {@code State} instance is a terminal state,
+     * with no further rolls allowed.
+     *
+     * @return {@code boolean}
+     */
+    @SuppressWarnings("BooleanMethodIsAlwaysInverted")
+    protected boolean isTerminal() {
+      return true;
+    }
+
+    /**
+     * Computes the next {@code State} instance, based on the current instance, the point previously
+     * established (if any), and the current {@link Roll}.
+     *
+     * @param roll Current {@link Roll}.
+     * @param point Previously established point; ignored unless the current instance is {@link #POINT}.
+     * @return Next {@code State} instance.
+     * @throws IllegalStateException If invoked after this instance is already in a terminal state.
+     */
+    protected State next(Roll roll, int point) throws IllegalStateException {
+      return next(roll.getValue(), point);
+    }
+
+    /**
+     * Computes the next {@code State} instance, based on the current instance, the point previously
+     * established (if any), and the sum of the dice in the current roll.
+     *
+     * @param value Sum of the dice in the current roll.
+     * @param point Previously established point; ignored unless the current instance is {@link #POINT}.
+     * @return Next {@code State} instance.
+     * @throws IllegalStateException If invoked after this instance is already in a terminal state.
+     */
+    protected State next(int value, int point) throws IllegalStateException {
+      throw new IllegalStateException();
+    }
+
+  }
+
+}
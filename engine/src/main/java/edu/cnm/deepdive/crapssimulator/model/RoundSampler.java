@@ -0,0 +1,130 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import edu.cnm.deepdive.crapssimulator.model.Round.State;
+import org.apache.commons.rng.UniformRandomProvider;
+
+/**
+ * Samples the outcome, point, and number of rolls of a round of Craps directly, without rolling the
+ * dice. The distribution of the come-out roll's consequence (win, loss, or one of the points) is
+ * computed once, from the dice and the transition table of a {@link CompiledRules} variant (by
+ * default, the {@link Rules#standard() standard rules} used by {@link Round}), and sampled with an
+ * {@link AliasTable}. Once a point is established, each subsequent roll ends the round with a fixed
+ * probability, so the length of the point phase is geometrically distributed, and the outcome is
+ * independent of that length. Thus, each round costs a constant number of random draws, regardless
+ * of its length; the outcomes are statistically equivalent to those of {@link Round#play()}.
+ */
+public class RoundSampler {
+
+  private final UniformRandomProvider rng;
+  private final CompiledRules rules;
+
+  private StatisticsAccumulator statistics;
+  private State state;
+  private int point;
+  private int rollCount;
+
+  /**
+   * Initializes this instance with the specified source of randomness, and the standard rules.
+   *
+   * @param rng Source from which random numbers are sampled.
+   */
+  public RoundSampler(UniformRandomProvider rng) {
+    this(rng, Rules.standard());
+  }
+
+  /**
+   * Initializes this instance with the specified source of randomness and rules.
+   *
+   * @param rng Source from which random numbers are sampled.
+   * @param rules Variant of the rules of a round.
+   */
+  public RoundSampler(UniformRandomProvider rng, Rules rules) {
+    this.rng = rng;
+    this.rules = rules.compile();
+    state = State.initial();
+  }
+
+  /**
+   * Samples the outcome of a complete round of Craps.
+   *
+   * @return Flag indicating whether the sampled round is a win.
+   */
+  public boolean sample() {
+    int outcome = rules.comeOutOutcomes[rules.comeOutTable.sample(rng)];
+    if (outcome == CompiledRules.WIN) {
+      state = State.WIN;
+      point = 0;
+      rollCount = 1;
+    } else if (outcome == CompiledRules.LOSS) {
+      state = State.LOSS;
+      point = 0;
+      rollCount = 1;
+    } else {
+      point = outcome;
+      // Inversion of the geometric distribution: the number of rolls after the come-out roll,
+      // up to and including the one that ends the round.
+      double uniform = 1 - rng.nextDouble();
+      rollCount = 2 + (int) (Math.log(uniform) / rules.logContinueProbabilities[point]);
+      state = (rng.nextDouble() < rules.pointWinProbabilities[point]) ? State.WIN : State.LOSS;
+    }
+    boolean win = (state == State.WIN);
+    if (statistics != null) {
+      statistics.add(win, point, rollCount);
+    }
+    return win;
+  }
+
+  /**
+   * Sets the {@link StatisticsAccumulator} to which the outcome of each subsequently sampled round
+   * is added.
+   *
+   * @param statistics Destination of round outcomes; {@code null} disables accumulation.
+   */
+  public void setStatistics(StatisticsAccumulator statistics) {
+    this.statistics = statistics;
+  }
+
+  /**
+   * Returns the terminal {@link State} of the most recently sampled round.
+   *
+   * @return {@link State}
+   */
+  public State getState() {
+    return state;
+  }
+
+  /**
+   * Returns the point established in the most recently sampled round, or 0 if that round was
+   * decided by the come-out roll.
+   *
+   * @return {@code int}
+   */
+  public int getPoint() {
+    return point;
+  }
+
+  /**
+   * Returns the number of rolls in the most recently sampled round.
+   *
+   * @return {@code int}
+   */
+  public int getRollCount() {
+    return rollCount;
+  }
+
+}
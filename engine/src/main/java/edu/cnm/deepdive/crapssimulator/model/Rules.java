@@ -0,0 +1,258 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import java.util.Objects;
+
+/**
+ * Specifies a variant of the rules of a round of Craps: the number of dice and of sides on each
+ * die; the sums that win (naturals) and lose (craps) on the come-out roll, with every other sum
+ * establishing a point; and the sum that loses once a point is established (the seven-out). A
+ * point is made by rolling it again before the seven-out; if the seven-out is also a point, rolling
+ * that point makes it. Instances of this class are immutable; each {@code with} method returns a
+ * modified copy. The rules are {@link #compile() compiled} into a {@link CompiledRules} transition
+ * table, with the exact probabilities of the outcomes.
+ */
+public final class Rules {
+
+  /** Largest sum of the dice supported by any variant. */
+  public static final int MAX_SUM = Long.SIZE - 1;
+
+  private static final Rules STANDARD = new Rules(Round.NUM_DICE, Round.NUM_SIDES,
+      mask(7, 11), mask(2, 3, 12), 7);
+  private static final Rules CRAPLESS = new Rules(Round.NUM_DICE, Round.NUM_SIDES,
+      mask(7), 0, 7);
+
+  private final int numDice;
+  private final int numSides;
+  private final long naturals;
+  private final long craps;
+  private final int sevenOut;
+
+  private Rules(int numDice, int numSides, long naturals, long craps, int sevenOut) {
+    this.numDice = numDice;
+    this.numSides = numSides;
+    this.naturals = naturals;
+    this.craps = craps;
+    this.sevenOut = sevenOut;
+  }
+
+  /**
+   * Returns the standard rules: two six-sided dice; 7 and 11 win on the come-out roll, 2, 3, and 12
+   * lose, and 7 loses once a point is established.
+   *
+   * @return {@code Rules}
+   */
+  public static Rules standard() {
+    return STANDARD;
+  }
+
+  /**
+   * Returns the rules of crapless craps: as {@link #standard()}, except that only 7 wins on the
+   * come-out roll, and no sum loses, so that 2, 3, 11, and 12 are points.
+   *
+   * @return {@code Rules}
+   */
+  public static Rules crapless() {
+    return CRAPLESS;
+  }
+
+  /**
+   * Returns a copy of these rules, with the specified dice. The naturals, craps, and seven-out are
+   * not changed; sums that can't be rolled with the new dice are ignored.
+   *
+   * @param numDice Number of dice rolled in each roll.
+   * @param numSides Number of sides on each die.
+   * @return {@code Rules}
+   * @throws IllegalArgumentException If either value is less than 1, or their product exceeds
+   *     {@link #MAX_SUM}.
+   */
+  public Rules withDice(int numDice, int numSides) throws IllegalArgumentException {
+    if (numDice < 1 || numSides < 1 || (long) numDice * numSides > MAX_SUM) {
+      throw new IllegalArgumentException();
+    }
+    return new Rules(numDice, numSides, naturals, craps, sevenOut);
+  }
+
+  /**
+   * Returns a copy of these rules, with the specified sums winning on the come-out roll. Any of
+   * these sums previously losing on the come-out roll no longer do.
+   *
+   * @param sums Sums of the dice that win on the come-out roll.
+   * @return {@code Rules}
+   * @throws IllegalArgumentException If any of {@code sums} is negative or exceeds {@link
+   *     #MAX_SUM}.
+   */
+  public Rules withNaturals(int... sums) throws IllegalArgumentException {
+    long naturals = mask(sums);
+    return new Rules(numDice, numSides, naturals, craps & ~naturals, sevenOut);
+  }
+
+  /**
+   * Returns a copy of these rules, with the specified sums losing on the come-out roll. Any of
+   * these sums previously winning on the come-out roll no longer do.
+   *
+   * @param sums Sums of the dice that lose on the come-out roll.
+   * @return {@code Rules}
+   * @throws IllegalArgumentException If any of {@code sums} is negative or exceeds {@link
+   *     #MAX_SUM}.
+   */
+  public Rules withCraps(int... sums) throws IllegalArgumentException {
+    long craps = mask(sums);
+    return new Rules(numDice, numSides, naturals & ~craps, craps, sevenOut);
+  }
+
+  /**
+   * Returns a copy of these rules, with the specified sum losing once a point is established.
+   *
+   * @param sum Sum of the dice that loses once a point is established.
+   * @return {@code Rules}
+   * @throws IllegalArgumentException If {@code sum} is negative or exceeds {@link #MAX_SUM}.
+   */
+  public Rules withSevenOut(int sum) throws IllegalArgumentException {
+    if (sum < 0 || sum > MAX_SUM) {
+      throw new IllegalArgumentException();
+    }
+    return new Rules(numDice, numSides, naturals, craps, sum);
+  }
+
+  /**
+   * Returns the compiled form of these rules. Compiled rules are cached (in a bounded
+   * least-recently-used cache shared by all threads), so switching between variants costs only a
+   * lookup after each has been compiled once.
+   *
+   * @return {@link CompiledRules}
+   */
+  public CompiledRules compile() {
+    return CompiledRules.of(this);
+  }
+
+  /**
+   * Returns the number of dice rolled in each roll.
+   *
+   * @return {@code int}
+   */
+  public int getNumDice() {
+    return numDice;
+  }
+
+  /**
+   * Returns the number of sides on each die.
+   *
+   * @return {@code int}
+   */
+  public int getNumSides() {
+    return numSides;
+  }
+
+  /**
+   * Returns the largest sum of the dice.
+   *
+   * @return {@code int}
+   */
+  public int getMaxSum() {
+    return numDice * numSides;
+  }
+
+  /**
+   * Returns a flag indicating whether the specified sum wins on the come-out roll.
+   *
+   * @param sum Sum of the dice.
+   * @return {@code boolean}
+   */
+  public boolean isNatural(int sum) {
+    return contains(naturals, sum);
+  }
+
+  /**
+   * Returns a flag indicating whether the specified sum loses on the come-out roll.
+   *
+   * @param sum Sum of the dice.
+   * @return {@code boolean}
+   */
+  public boolean isCraps(int sum) {
+    return contains(craps, sum);
+  }
+
+  /**
+   * Returns a flag indicating whether the specified sum, rolled on the come-out roll, establishes
+   * a point.
+   *
+   * @param sum Sum of the dice.
+   * @return {@code boolean}
+   */
+  public boolean isPoint(int sum) {
+    return sum >= numDice && sum <= getMaxSum() && !isNatural(sum) && !isCraps(sum);
+  }
+
+  /**
+   * Returns the sum that loses once a point is established.
+   *
+   * @return {@code int}
+   */
+  public int getSevenOut() {
+    return sevenOut;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    boolean equal = (obj == this);
+    if (!equal && obj instanceof Rules) {
+      Rules other = (Rules) obj;
+      equal = numDice == other.numDice && numSides == other.numSides
+          && naturals == other.naturals && craps == other.craps && sevenOut == other.sevenOut;
+    }
+    return equal;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(numDice, numSides, naturals, craps, sevenOut);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%dd%d, naturals %s, craps %s, seven-out %d",
+        numDice, numSides, sums(naturals), sums(craps), sevenOut);
+  }
+
+  private static long mask(int... sums) throws IllegalArgumentException {
+    long mask = 0;
+    for (int sum : sums) {
+      if (sum < 0 || sum > MAX_SUM) {
+        throw new IllegalArgumentException();
+      }
+      mask |= 1L << sum;
+    }
+    return mask;
+  }
+
+  private static boolean contains(long mask, int sum) {
+    return sum >= 0 && sum <= MAX_SUM && (mask & (1L << sum)) != 0;
+  }
+
+  private static String sums(long mask) {
+    StringBuilder builder = new StringBuilder("{");
+    for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+      if (builder.length() > 1) {
+        builder.append(", ");
+      }
+      builder.append(Long.numberOfTrailingZeros(remaining));
+    }
+    return builder.append('}').toString();
+  }
+
+}
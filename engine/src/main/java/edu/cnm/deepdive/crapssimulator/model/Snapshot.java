@@ -0,0 +1,245 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import edu.cnm.deepdive.crapssimulator.model.Round.State;
+import java.util.List;
+
+/**
+ * Encapsulates a snapshot in some moment of a sequence of Craps rounds: the tally of wins and
+ * losses, the {@link Statistics} of all rounds so far (including the total action and net result
+ * of any wagering), and the sequence of {@link Roll} instances recorded in the most recent {@link
+ * Round}. Individual bets and their outcomes are not included.
+ * <p>The rolls are held in a packed form, one byte per roll, which is copied from the {@link Round}
+ * in a single small allocation; they may be read without further allocation through {@link
+ * #getRollCount()}, {@link #getDie(int, int)}, and {@link #getRollValue(int)}, or decoded lazily as
+ * {@link Roll} instances through {@link #getRolls()}.</p>
+ * <p>A {@link ConfidenceInterval} for the probability of a win is included, along with (in a
+ * precision-targeted run) an estimate of the number of rounds remaining until the target precision
+ * is reached.</p>
+ * <p>As might be inferred from the name, instances of this class are immutable.</p>
+ */
+public final class Snapshot {
+
+  private static final byte[] NO_ROLLS = new byte[0];
+
+  private final byte[] rolls;
+  private final long wins;
+  private final long losses;
+  private final State state;
+  private final boolean win;
+  private final Statistics statistics;
+  private final long timestamp;
+  private final ConfidenceInterval interval;
+  private final long remainingRounds;
+
+  /**
+   * Initializes this instance to represent the start of a sequence of rounds, before any rolls take
+   * place.
+   */
+  public Snapshot() {
+    rolls = NO_ROLLS;
+    wins = 0;
+    losses = 0;
+    state = Round.State.initial();
+    win = false;
+    statistics = Statistics.empty();
+    timestamp = System.nanoTime();
+    interval = ConfidenceInterval.wilson(0, 0, ConfidenceInterval.DEFAULT_CONFIDENCE);
+    remainingRounds = -1;
+  }
+
+  /**
+   * Initializes this instance to encapsulate the {@link List List&lt;Roll&gt;} from the specified
+   * {@link Round}, along with the specified tally of wins and losses, and {@link Statistics}.
+   *
+   * @param round A single {@link Round}&mdash;presumably the most recently completed.
+   * @param wins Tally of wins.
+   * @param losses Tally of losses.
+   * @param statistics Streaming statistics of the rounds included in the tally.
+   */
+  public Snapshot(Round round, long wins, long losses, Statistics statistics) {
+    this(round, wins, losses, statistics,
+        ConfidenceInterval.wilson(wins, wins + losses, ConfidenceInterval.DEFAULT_CONFIDENCE), -1);
+  }
+
+  /**
+   * Initializes this instance to encapsulate the {@link List List&lt;Roll&gt;} from the specified
+   * {@link Round}, along with the specified tally of wins and losses, {@link Statistics}, {@link
+   * ConfidenceInterval} for the probability of a win, and estimate of the rounds remaining until a
+   * target precision is reached.
+   *
+   * @param round A single {@link Round}&mdash;presumably the most recently completed.
+   * @param wins Tally of wins.
+   * @param losses Tally of losses.
+   * @param statistics Streaming statistics of the rounds included in the tally.
+   * @param interval Confidence interval for the probability of a win, computed from the tally.
+   * @param remainingRounds Estimated number of rounds remaining until a target precision is
+   *     reached (0 if reached), or -1 if there is no target.
+   */
+  public Snapshot(Round round, long wins, long losses, Statistics statistics,
+      ConfidenceInterval interval, long remainingRounds) {
+    rolls = round.copyPackedRolls();
+    this.wins = wins;
+    this.losses = losses;
+    state = round.getState();
+    win = round.isWin();
+    this.statistics = statistics;
+    timestamp = System.nanoTime();
+    this.interval = interval;
+    this.remainingRounds = remainingRounds;
+  }
+
+  /**
+   * Returns the {@link List List&lt;Roll&gt;} from the most recently completed (when this {@code
+   * Snapshot} instance was created) {@link Round}. The returned list is an unmodifiable view; each
+   * {@link Roll} is decoded when it's retrieved.
+   *
+   * @return {@link List List&lt;Roll&gt;}
+   */
+  public List<Roll> getRolls() {
+    return PackedRolls.asList(rolls, rolls.length);
+  }
+
+  /**
+   * Returns the number of rolls in the most recently completed {@link Round}.
+   *
+   * @return {@code int}
+   */
+  public int getRollCount() {
+    return rolls.length;
+  }
+
+  /**
+   * Returns the value of the specified die in the specified roll.
+   *
+   * @param roll Index of the roll, from 0 to {@link #getRollCount()} - 1.
+   * @param die Index of the die, from 0 to {@link Round#NUM_DICE} - 1.
+   * @return {@code int}
+   */
+  public int getDie(int roll, int die) {
+    return PackedRolls.die(rolls[roll], die);
+  }
+
+  /**
+   * Returns the specified roll, encoded as by {@link PackedRolls#encode(int[])}. Two rolls are
+   * identical exactly when their encoded forms are equal.
+   *
+   * @param roll Index of the roll, from 0 to {@link #getRollCount()} - 1.
+   * @return {@code byte}
+   */
+  public byte getPackedRoll(int roll) {
+    return rolls[roll];
+  }
+
+  /**
+   * Returns the sum of the dice in the specified roll.
+   *
+   * @param roll Index of the roll, from 0 to {@link #getRollCount()} - 1.
+   * @return {@code int}
+   */
+  public int getRollValue(int roll) {
+    return PackedRolls.value(rolls[roll]);
+  }
+
+  /**
+   * Returns the tally of wins in this snapshot.
+   *
+   * @return {@code long}
+   */
+  public long getWins() {
+    return wins;
+  }
+
+  /**
+   * Returns the tally of losses in this snapshot.
+   *
+   * @return {@code long}
+   */
+  public long getLosses() {
+    return losses;
+  }
+
+  /**
+   * Returns the total number of plays (wins + losses) in this snapshot.
+   *
+   * @return {@code long}
+   */
+  public long getRounds() {
+    return wins + losses;
+  }
+
+  /**
+   * Returns the {@link State} of the most recent {@link Round} included in this snapshot.
+   *
+   * @return {@link State}
+   */
+  public State getState() {
+    return state;
+  }
+
+  /**
+   * Returns a flag indicating whether the most recent {@link Round} terminated in the {@link
+   * State#WIN} state.
+   *
+   * @return {@code boolean}
+   */
+  public boolean isWin() {
+    return win;
+  }
+
+  /**
+   * Returns the {@link Statistics} of all rounds included in this snapshot.
+   *
+   * @return {@link Statistics}
+   */
+  public Statistics getStatistics() {
+    return statistics;
+  }
+
+  /**
+   * Returns the {@link ConfidenceInterval} for the probability of a win, computed from the tally of
+   * wins and losses in this snapshot.
+   *
+   * @return {@link ConfidenceInterval}
+   */
+  public ConfidenceInterval getInterval() {
+    return interval;
+  }
+
+  /**
+   * Returns the estimated number of rounds remaining until the target precision (half-width of
+   * {@link #getInterval()}) of a precision-targeted run is reached; 0 if it has been reached, or -1
+   * if this snapshot wasn't published by a precision-targeted run.
+   *
+   * @return {@code long}
+   */
+  public long getRemainingRounds() {
+    return remainingRounds;
+  }
+
+  /**
+   * Returns the time at which this snapshot was created (and, in the case of a snapshot published
+   * by the simulation, published), as a {@link System#nanoTime()} value. This is useful only for
+   * measuring elapsed time, e.g. the latency between publication and consumption.
+   *
+   * @return {@code long}
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+}
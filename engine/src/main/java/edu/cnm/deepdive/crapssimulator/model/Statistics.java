@@ -0,0 +1,331 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+/**
+ * Immutable view of the statistics accumulated by a {@link StatisticsAccumulator}: distribution of
+ * round lengths, outcomes by point, naturals and craps on the come-out roll, streaks, and recent
+ * (sliding-window and exponentially decayed) win rates; and, when a {@link BettingStrategy} is in
+ * effect, the amount wagered and net result, house edge, and variance of the per-round result.
+ * Rounds played in antithetic pairs also contribute to a {@link VarianceReducedEstimate}. The
+ * rounds are also grouped into shooter hands, which are summarized by {@link HandStatistics}.
+ */
+public final class Statistics {
+
+  private static final Statistics EMPTY = new Statistics(new StatisticsAccumulator());
+
+  private final long rounds;
+  private final long wins;
+  private final long rolls;
+  private final long naturals;
+  private final long craps;
+  private final long[] rollCounts;
+  private final long[] pointCounts;
+  private final long[] pointWins;
+  private final long[] winStreaks;
+  private final long[] lossStreaks;
+  private final int longestWinStreak;
+  private final int longestLossStreak;
+  private final boolean currentStreakWin;
+  private final int currentStreak;
+  private final double windowWinRate;
+  private final double decayedWinRate;
+  private final long wageredRounds;
+  private final double action;
+  private final double net;
+  private final double netSquares;
+  private final VarianceReducedEstimate estimate;
+  private final HandStatistics hands;
+
+  Statistics(StatisticsAccumulator accumulator) {
+    rounds = accumulator.rounds;
+    wins = accumulator.wins;
+    rolls = accumulator.rolls;
+    naturals = accumulator.naturals;
+    craps = accumulator.craps;
+    rollCounts = accumulator.rollCounts.clone();
+    pointCounts = accumulator.pointCounts.clone();
+    pointWins = accumulator.pointWins.clone();
+    winStreaks = accumulator.winStreaks.clone();
+    lossStreaks = accumulator.lossStreaks.clone();
+    if (accumulator.leadingStreak < accumulator.rounds) {
+      // The leading streak is complete, but is only tracked separately by the accumulator.
+      (accumulator.leadingWin ? winStreaks : lossStreaks)
+          [Math.min(accumulator.leadingStreak, StatisticsAccumulator.MAX_STREAK)]++;
+    }
+    longestWinStreak = accumulator.longestWinStreak;
+    longestLossStreak = accumulator.longestLossStreak;
+    currentStreakWin = accumulator.trailingWin;
+    currentStreak = accumulator.trailingStreak;
+    windowWinRate = (accumulator.windowSize > 0)
+        ? (double) accumulator.windowWins / accumulator.windowSize
+        : 0;
+    decayedWinRate = (accumulator.decayedWeight > 0)
+        ? accumulator.decayedWins / accumulator.decayedWeight
+        : 0;
+    wageredRounds = accumulator.wageredRounds;
+    action = accumulator.action;
+    net = accumulator.net;
+    netSquares = accumulator.netSquares;
+    estimate = new VarianceReducedEstimate(accumulator.pairs, accumulator.rules);
+    hands = new HandStatistics(accumulator.hands);
+  }
+
+  /**
+   * Returns an instance with no rounds.
+   *
+   * @return {@code Statistics}
+   */
+  public static Statistics empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Returns the number of rounds included.
+   *
+   * @return {@code long}
+   */
+  public long getRounds() {
+    return rounds;
+  }
+
+  /**
+   * Returns the number of rounds won.
+   *
+   * @return {@code long}
+   */
+  public long getWins() {
+    return wins;
+  }
+
+  /**
+   * Returns the total number of rolls in all rounds.
+   *
+   * @return {@code long}
+   */
+  public long getRolls() {
+    return rolls;
+  }
+
+  /**
+   * Returns the mean number of rolls per round, or 0 if there are no rounds.
+   *
+   * @return {@code double}
+   */
+  public double getMeanRollCount() {
+    return (rounds > 0) ? (double) rolls / rounds : 0;
+  }
+
+  /**
+   * Returns the number of rounds won on the come-out roll (with a natural).
+   *
+   * @return {@code long}
+   */
+  public long getNaturals() {
+    return naturals;
+  }
+
+  /**
+   * Returns the number of rounds lost on the come-out roll (with craps).
+   *
+   * @return {@code long}
+   */
+  public long getCraps() {
+    return craps;
+  }
+
+  /**
+   * Returns the number of rounds with the specified number of rolls. Rounds of {@link
+   * StatisticsAccumulator#MAX_ROLL_COUNT} or more rolls are counted together.
+   *
+   * @param rollCount Number of rolls, from 1 to {@link StatisticsAccumulator#MAX_ROLL_COUNT}.
+   * @return {@code long}
+   */
+  public long getRollCountFrequency(int rollCount) {
+    return rollCounts[Math.min(rollCount, StatisticsAccumulator.MAX_ROLL_COUNT)];
+  }
+
+  /**
+   * Returns a copy of the round-length histogram, indexed by number of rolls.
+   *
+   * @return {@code long[]}
+   */
+  public long[] getRollCountHistogram() {
+    return rollCounts.clone();
+  }
+
+  /**
+   * Returns the number of rounds in which the specified point was established.
+   *
+   * @param point Point value (up to {@link Rules#MAX_SUM}); 0 counts the rounds decided by the
+   *     come-out roll.
+   * @return {@code long}
+   */
+  public long getPointFrequency(int point) {
+    return pointCounts[point];
+  }
+
+  /**
+   * Returns the number of rounds won after establishing the specified point.
+   *
+   * @param point Point value (up to {@link Rules#MAX_SUM}); 0 counts the rounds won by a natural.
+   * @return {@code long}
+   */
+  public long getPointWins(int point) {
+    return pointWins[point];
+  }
+
+  /**
+   * Returns the number of completed streaks (runs of consecutive outcomes, ended by the opposite
+   * outcome) of the specified outcome and length. Streaks of {@link StatisticsAccumulator#MAX_STREAK}
+   * or more rounds are counted together; the current (incomplete) streak is not included.
+   *
+   * @param win Outcome of the streaks.
+   * @param length Length of the streaks.
+   * @return {@code long}
+   */
+  public long getStreakFrequency(boolean win, int length) {
+    return (win ? winStreaks : lossStreaks)[Math.min(length, StatisticsAccumulator.MAX_STREAK)];
+  }
+
+  /**
+   * Returns the length of the longest run of consecutive wins.
+   *
+   * @return {@code int}
+   */
+  public int getLongestWinStreak() {
+    return longestWinStreak;
+  }
+
+  /**
+   * Returns the length of the longest run of consecutive losses.
+   *
+   * @return {@code int}
+   */
+  public int getLongestLossStreak() {
+    return longestLossStreak;
+  }
+
+  /**
+   * Returns a flag indicating whether the current streak is a run of wins.
+   *
+   * @return {@code boolean}
+   */
+  public boolean isCurrentStreakWin() {
+    return currentStreakWin;
+  }
+
+  /**
+   * Returns the length of the current streak.
+   *
+   * @return {@code int}
+   */
+  public int getCurrentStreak() {
+    return currentStreak;
+  }
+
+  /**
+   * Returns the win rate over the most recent {@link StatisticsAccumulator#WINDOW_SIZE} rounds.
+   *
+   * @return {@code double}
+   */
+  public double getWindowWinRate() {
+    return windowWinRate;
+  }
+
+  /**
+   * Returns the exponentially decayed win rate, in which each round's weight decreases by a factor
+   * of {@code 1 - }{@link StatisticsAccumulator#DECAY_RATE} with each subsequent round.
+   *
+   * @return {@code double}
+   */
+  public double getDecayedWinRate() {
+    return decayedWinRate;
+  }
+
+  /**
+   * Returns the total amount wagered on resolved bets (the "action").
+   *
+   * @return {@code double}
+   */
+  public double getAction() {
+    return action;
+  }
+
+  /**
+   * Returns the net result of all resolved bets: the change in the bettor's bankroll.
+   *
+   * @return {@code double}
+   */
+  public double getNet() {
+    return net;
+  }
+
+  /**
+   * Returns the house edge: the expected loss per unit wagered, estimated as the negated ratio of net
+   * result to action; 0 if nothing has been wagered.
+   *
+   * @return {@code double}
+   */
+  public double getHouseEdge() {
+    return (action > 0) ? -net / action : 0;
+  }
+
+  /**
+   * Returns the mean net result per round.
+   *
+   * @return {@code double}
+   */
+  public double getMeanNet() {
+    return (wageredRounds > 0) ? net / wageredRounds : 0;
+  }
+
+  /**
+   * Returns the (sample) variance of the net result per round.
+   *
+   * @return {@code double}
+   */
+  public double getNetVariance() {
+    double variance = 0;
+    if (wageredRounds > 1) {
+      double mean = net / wageredRounds;
+      variance = Math.max(0, (netSquares - wageredRounds * mean * mean) / (wageredRounds - 1));
+    }
+    return variance;
+  }
+
+  /**
+   * Returns the {@link VarianceReducedEstimate} computed from the antithetic pairs of rounds
+   * included; if there are none, its estimates are 0, and its errors and gains are {@link
+   * Double#NaN}.
+   *
+   * @return {@link VarianceReducedEstimate}
+   */
+  public VarianceReducedEstimate getVarianceReducedEstimate() {
+    return estimate;
+  }
+
+  /**
+   * Returns the {@link HandStatistics} of the shooter hands formed by the rounds included, in
+   * order.
+   *
+   * @return {@link HandStatistics}
+   */
+  public HandStatistics getHandStatistics() {
+    return hands;
+  }
+
+}
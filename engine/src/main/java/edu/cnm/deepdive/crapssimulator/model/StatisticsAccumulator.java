@@ -0,0 +1,445 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Accumulates streaming statistics of a sequence of rounds, in constant memory, with constant-time
+ * updates. All counters are fixed-size primitive arrays, so no objects are allocated per round.
+ * Accumulators filled on separate threads (e.g. one per worker) may be merged, as if the rounds of
+ * the merged accumulator followed those of this one; {@link #snapshot()} returns an immutable
+ * {@link Statistics} view for publication. The complete state of an accumulator may be saved to,
+ * and restored from, a {@link ByteBuffer}, for checkpointing long simulations.
+ * <p>Statistics of shooter hands (see {@link HandStatistics}) are only valid if consecutive rounds
+ * are independent; they may be disabled on construction, e.g. for the antithetic pairs of {@link
+ * AntitheticRounds}, or when only the outcomes of rounds are of interest, avoiding their cost. When
+ * an accumulator that doesn't track hands is merged into one that does, its rounds are not
+ * included in the hand statistics.</p>
+ * <p>The {@link Rules} variant of the rounds accumulated (by default, the standard rules)
+ * determines the exact come-out probabilities used by the {@link VarianceReducedEstimate}; it's a
+ * property of the accumulator, and isn't affected by {@link #merge(StatisticsAccumulator)}, {@link
+ * #reset()}, or {@link #restore(ByteBuffer)}.</p>
+ * <p>Instances of this class are not thread-safe.</p>
+ */
+public final class StatisticsAccumulator {
+
+  /** Largest number of rolls per round counted separately; longer rounds share the last bin. */
+  public static final int MAX_ROLL_COUNT = 64;
+  /** Longest streak counted separately; longer streaks share the last bin. */
+  public static final int MAX_STREAK = 64;
+  /** Largest number of rolls per hand counted separately; longer hands share the last bin. */
+  public static final int MAX_HAND_ROLLS = 256;
+  /** Largest number of points made per hand counted separately; more share the last bin. */
+  public static final int MAX_POINTS_MADE = 32;
+  /** Number of most recent rounds included in the sliding-window win rate (a power of 2). */
+  public static final int WINDOW_SIZE = 1024;
+  /** Weight of each new round in the exponentially decayed win rate. */
+  public static final double DECAY_RATE = 1.0 / 1024;
+
+  static final int NUM_VALUES = Round.NUM_DICE * Round.NUM_SIDES + 1;
+  // Points are counted for any Rules variant, not only the standard dice.
+  static final int NUM_POINTS = Rules.MAX_SUM + 1;
+
+  private static final int WORD_SHIFT = 6;
+  private static final int WINDOW_MASK = WINDOW_SIZE - 1;
+
+  final long[] rollCounts = new long[MAX_ROLL_COUNT + 1];
+  final long[] pointCounts = new long[NUM_POINTS];
+  final long[] pointWins = new long[NUM_POINTS];
+  final long[] winStreaks = new long[MAX_STREAK + 1];
+  final long[] lossStreaks = new long[MAX_STREAK + 1];
+  final long[] window = new long[WINDOW_SIZE >> WORD_SHIFT];
+  final ControlVariateAccumulator pairs = new ControlVariateAccumulator();
+  final HandAccumulator hands = new HandAccumulator();
+  final boolean trackHands;
+
+  CompiledRules rules = Rules.standard().compile();
+  long rounds;
+  long wins;
+  long rolls;
+  long naturals;
+  long craps;
+  int longestWinStreak;
+  int longestLossStreak;
+  boolean leadingWin;
+  int leadingStreak;
+  boolean trailingWin;
+  int trailingStreak;
+  int windowPosition;
+  int windowSize;
+  int windowWins;
+  double decayedWins;
+  double decayedWeight;
+  long wageredRounds;
+  double action;
+  double net;
+  double netSquares;
+
+  /**
+   * Initializes this instance to accumulate all statistics, including those of shooter hands.
+   */
+  public StatisticsAccumulator() {
+    this(true);
+  }
+
+  /**
+   * Initializes this instance to accumulate all statistics, optionally excluding those of shooter
+   * hands.
+   *
+   * @param trackHands Flag indicating whether rounds are added to the {@link HandStatistics}.
+   */
+  public StatisticsAccumulator(boolean trackHands) {
+    this.trackHands = trackHands;
+  }
+
+  /**
+   * Sets the {@link Rules} variant of the rounds accumulated by this instance.
+   *
+   * @param rules {@link Rules} variant.
+   */
+  public void setRules(Rules rules) {
+    this.rules = rules.compile();
+  }
+
+  /**
+   * Adds the outcome of a single completed round.
+   *
+   * @param win Flag indicating whether the round was won.
+   * @param point Point established in the come-out roll, or 0 if the come-out roll decided the
+   *     round.
+   * @param rollCount Number of rolls in the round.
+   */
+  public void add(boolean win, int point, int rollCount) {
+    rollCounts[Math.min(rollCount, MAX_ROLL_COUNT)]++;
+    rolls += rollCount;
+    pointCounts[point]++;
+    if (win) {
+      wins++;
+      pointWins[point]++;
+      if (point == 0) {
+        naturals++;
+      }
+    } else if (point == 0) {
+      craps++;
+    }
+    addStreak(win);
+    rounds++;
+    pushWindow(win);
+    decayedWins = (1 - DECAY_RATE) * decayedWins + (win ? DECAY_RATE : 0);
+    decayedWeight = (1 - DECAY_RATE) * decayedWeight + DECAY_RATE;
+    if (trackHands) {
+      hands.add(win, point, rollCount);
+    }
+  }
+
+  /**
+   * Adds the wagering results of a single completed round.
+   *
+   * @param action Total amount wagered on bets resolved in the round.
+   * @param net Net result (amount won, less amount lost) of bets resolved in the round.
+   */
+  public void addWagering(double action, double net) {
+    wageredRounds++;
+    this.action += action;
+    this.net += net;
+    netSquares += net * net;
+  }
+
+  /**
+   * Adds an antithetic pair of rounds (each of which must also be added individually) to the
+   * variance-reduced estimate.
+   *
+   * @param wins Number of rounds in the pair won.
+   * @param point Point established in the shared come-out roll, or 0 if it decided both rounds.
+   * @param natural Flag indicating whether the shared come-out roll was a natural.
+   * @param wagered Flag indicating whether bets were placed in the pair.
+   * @param primaryNet Net wagering result of the primary round.
+   * @param antitheticNet Net wagering result of the antithetic round.
+   */
+  void addPair(int wins, int point, boolean natural, boolean wagered, double primaryNet,
+      double antitheticNet) {
+    pairs.add(wins, point, natural, wagered, primaryNet, antitheticNet);
+  }
+
+  /**
+   * Merges the contents of the specified accumulator into this one, as if the rounds added to
+   * {@code other} had been added to this instance, in order, after those already added. The
+   * specified accumulator is not modified.
+   *
+   * @param other Accumulator to merge into this instance.
+   */
+  public void merge(StatisticsAccumulator other) {
+    if (other.rounds == 0) {
+      return;
+    }
+    addAll(rollCounts, other.rollCounts);
+    addAll(pointCounts, other.pointCounts);
+    addAll(pointWins, other.pointWins);
+    addAll(winStreaks, other.winStreaks);
+    addAll(lossStreaks, other.lossStreaks);
+    wins += other.wins;
+    rolls += other.rolls;
+    naturals += other.naturals;
+    craps += other.craps;
+    longestWinStreak = Math.max(longestWinStreak, other.longestWinStreak);
+    longestLossStreak = Math.max(longestLossStreak, other.longestLossStreak);
+    mergeStreaks(other);
+    rounds += other.rounds;
+    for (int i = 0, index = other.windowStart(); i < other.windowSize; i++, index++) {
+      pushWindow(other.windowBit(index & WINDOW_MASK));
+    }
+    wageredRounds += other.wageredRounds;
+    action += other.action;
+    net += other.net;
+    netSquares += other.netSquares;
+    pairs.merge(other.pairs);
+    if (trackHands && other.trackHands) {
+      hands.merge(other.hands);
+    }
+    double decay = 1 - other.decayedWeight;
+    decayedWins = decayedWins * decay + other.decayedWins;
+    decayedWeight = decayedWeight * decay + other.decayedWeight;
+  }
+
+  /**
+   * Clears all statistics accumulated so far.
+   */
+  public void reset() {
+    Arrays.fill(rollCounts, 0);
+    Arrays.fill(pointCounts, 0);
+    Arrays.fill(pointWins, 0);
+    Arrays.fill(winStreaks, 0);
+    Arrays.fill(lossStreaks, 0);
+    Arrays.fill(window, 0);
+    rounds = 0;
+    wins = 0;
+    rolls = 0;
+    naturals = 0;
+    craps = 0;
+    longestWinStreak = 0;
+    longestLossStreak = 0;
+    leadingStreak = 0;
+    trailingStreak = 0;
+    windowPosition = 0;
+    windowSize = 0;
+    windowWins = 0;
+    decayedWins = 0;
+    decayedWeight = 0;
+    wageredRounds = 0;
+    action = 0;
+    net = 0;
+    netSquares = 0;
+    pairs.reset();
+    hands.reset();
+  }
+
+  /**
+   * Returns the total number of rolls in the rounds accumulated so far. Unlike {@link #snapshot()},
+   * this allocates nothing, so it may be read after every batch.
+   *
+   * @return {@code long}
+   */
+  public long getRolls() {
+    return rolls;
+  }
+
+  /**
+   * Returns an immutable {@link Statistics} view of the current contents of this accumulator.
+   *
+   * @return {@link Statistics}
+   */
+  public Statistics snapshot() {
+    return new Statistics(this);
+  }
+
+  /**
+   * Writes the complete state of this accumulator to the specified buffer, in a form that can be
+   * read by {@link #restore(ByteBuffer)}.
+   *
+   * @param buffer Destination of the state.
+   */
+  public void save(ByteBuffer buffer) {
+    for (long[] counts : counters()) {
+      for (long count : counts) {
+        buffer.putLong(count);
+      }
+    }
+    buffer
+        .putLong(rounds)
+        .putLong(wins)
+        .putLong(rolls)
+        .putLong(naturals)
+        .putLong(craps)
+        .putInt(longestWinStreak)
+        .putInt(longestLossStreak)
+        .put((byte) (leadingWin ? 1 : 0))
+        .putInt(leadingStreak)
+        .put((byte) (trailingWin ? 1 : 0))
+        .putInt(trailingStreak)
+        .putInt(windowPosition)
+        .putInt(windowSize)
+        .putInt(windowWins)
+        .putDouble(decayedWins)
+        .putDouble(decayedWeight)
+        .putLong(wageredRounds)
+        .putDouble(action)
+        .putDouble(net)
+        .putDouble(netSquares);
+    pairs.save(buffer);
+    hands.save(buffer);
+  }
+
+  /**
+   * Replaces the contents of this accumulator with the state read from the specified buffer, as
+   * written by {@link #save(ByteBuffer)}.
+   *
+   * @param buffer Source of the state.
+   * @throws BufferUnderflowException If {@code buffer} doesn't contain a complete state.
+   */
+  public void restore(ByteBuffer buffer) throws BufferUnderflowException {
+    for (long[] counts : counters()) {
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = buffer.getLong();
+      }
+    }
+    rounds = buffer.getLong();
+    wins = buffer.getLong();
+    rolls = buffer.getLong();
+    naturals = buffer.getLong();
+    craps = buffer.getLong();
+    longestWinStreak = buffer.getInt();
+    longestLossStreak = buffer.getInt();
+    leadingWin = (buffer.get() != 0);
+    leadingStreak = buffer.getInt();
+    trailingWin = (buffer.get() != 0);
+    trailingStreak = buffer.getInt();
+    windowPosition = buffer.getInt();
+    windowSize = buffer.getInt();
+    windowWins = buffer.getInt();
+    decayedWins = buffer.getDouble();
+    decayedWeight = buffer.getDouble();
+    wageredRounds = buffer.getLong();
+    action = buffer.getDouble();
+    net = buffer.getDouble();
+    netSquares = buffer.getDouble();
+    pairs.restore(buffer);
+    hands.restore(buffer);
+  }
+
+  private long[][] counters() {
+    return new long[][]{rollCounts, pointCounts, pointWins, winStreaks, lossStreaks, window};
+  }
+
+  private void addStreak(boolean win) {
+    if (rounds == 0) {
+      leadingWin = win;
+      leadingStreak = 0;
+      trailingWin = win;
+      trailingStreak = 0;
+    } else if (win != trailingWin) {
+      // The trailing streak is complete; it's counted now, unless it's also the leading streak.
+      if (leadingStreak != rounds) {
+        countStreak(trailingWin, trailingStreak);
+      }
+      trailingWin = win;
+      trailingStreak = 0;
+    }
+    if (leadingStreak == rounds && win == leadingWin) {
+      leadingStreak++;
+    }
+    trailingStreak++;
+    updateLongest(trailingWin, trailingStreak);
+  }
+
+  private void mergeStreaks(StatisticsAccumulator other) {
+    boolean allLeading = (leadingStreak == rounds);
+    boolean otherAllLeading = (other.leadingStreak == other.rounds);
+    if (rounds == 0) {
+      leadingWin = other.leadingWin;
+      leadingStreak = other.leadingStreak;
+      trailingWin = other.trailingWin;
+      trailingStreak = other.trailingStreak;
+    } else if (trailingWin == other.leadingWin) {
+      int joined = trailingStreak + other.leadingStreak;
+      updateLongest(trailingWin, joined);
+      if (allLeading) {
+        leadingStreak = joined;
+      } else if (!otherAllLeading) {
+        countStreak(trailingWin, joined);
+      }
+      trailingStreak = otherAllLeading ? joined : other.trailingStreak;
+      trailingWin = other.trailingWin;
+    } else {
+      if (!allLeading) {
+        countStreak(trailingWin, trailingStreak);
+      }
+      if (!otherAllLeading) {
+        countStreak(other.leadingWin, other.leadingStreak);
+      }
+      trailingWin = other.trailingWin;
+      trailingStreak = other.trailingStreak;
+    }
+  }
+
+  private void countStreak(boolean win, int length) {
+    (win ? winStreaks : lossStreaks)[Math.min(length, MAX_STREAK)]++;
+  }
+
+  private void updateLongest(boolean win, int length) {
+    if (win) {
+      longestWinStreak = Math.max(longestWinStreak, length);
+    } else {
+      longestLossStreak = Math.max(longestLossStreak, length);
+    }
+  }
+
+  private void pushWindow(boolean win) {
+    if (windowSize == WINDOW_SIZE) {
+      if (windowBit(windowPosition)) {
+        windowWins--;
+      }
+    } else {
+      windowSize++;
+    }
+    int word = windowPosition >> WORD_SHIFT;
+    long mask = 1L << windowPosition; // Shift distance is implicitly masked to the low 6 bits.
+    if (win) {
+      window[word] |= mask;
+      windowWins++;
+    } else {
+      window[word] &= ~mask;
+    }
+    windowPosition = (windowPosition + 1) & WINDOW_MASK;
+  }
+
+  private boolean windowBit(int index) {
+    return (window[index >> WORD_SHIFT] & (1L << index)) != 0;
+  }
+
+  private int windowStart() {
+    return (windowPosition - windowSize) & WINDOW_MASK;
+  }
+
+  private static void addAll(long[] target, long[] source) {
+    for (int i = 0; i < target.length; i++) {
+      target[i] += source[i];
+    }
+  }
+
+}
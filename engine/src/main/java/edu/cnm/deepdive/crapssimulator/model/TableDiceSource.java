@@ -0,0 +1,76 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import edu.cnm.deepdive.crapssimulator.model.DiceTables.Joint;
+import org.apache.commons.rng.UniformRandomProvider;
+
+/**
+ * Rolls all of the dice with a single uniform draw from the joint outcomes, decoding the dice values
+ * and sum by table lookup. Used for configurations with a small number of joint outcomes (e.g. 36
+ * for 2d6). The joint outcomes are drawn as the base-{@code numOutcomes} digits of 64-bit words, by
+ * a {@link DigitBuffer}.
+ */
+final class TableDiceSource implements DiceSource {
+
+  private final DigitBuffer outcomes;
+  private final int numDice;
+  private final int numSides;
+  private final int[] faces;
+  private final int[] sums;
+
+  TableDiceSource(UniformRandomProvider rng, int numDice, int numSides) {
+    this.numDice = numDice;
+    this.numSides = numSides;
+    Joint joint = DiceTables.jointTable(numDice, numSides);
+    outcomes = new DigitBuffer(rng, joint.numOutcomes);
+    faces = joint.faces;
+    sums = joint.sums;
+  }
+
+  @Override
+  public int getNumDice() {
+    return numDice;
+  }
+
+  @Override
+  public int getNumSides() {
+    return numSides;
+  }
+
+  @Override
+  public int roll(int[] dice) {
+    int outcome = outcomes.next();
+    System.arraycopy(faces, outcome * numDice, dice, 0, numDice);
+    return sums[outcome];
+  }
+
+  @Override
+  public int rollSum() {
+    return sums[outcomes.next()];
+  }
+
+  @Override
+  public int rollOutcome() {
+    return outcomes.next();
+  }
+
+  @Override
+  public void discardBuffered() {
+    outcomes.clear();
+  }
+
+}
@@ -0,0 +1,190 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+/**
+ * Encapsulates variance-reduced estimates of the probability of a win, and of the mean net
+ * wagering result per round, computed from antithetic pairs of rounds (see {@link
+ * AntitheticRounds}), with the rates of naturals and craps on the come-out roll as control
+ * variates. The exact values of these rates depend only on the dice and the come-out rules (2/9
+ * and 1/9, respectively, under the standard rules; see {@link CompiledRules}), so the deviation of
+ * the observed rates from them is a known error, which is removed from each estimate in proportion
+ * to its regression on that error.
+ * <p>Along with each estimate, its standard error, and the effective sample-size gain, are
+ * included. The gain is the ratio of the variance of a plain Monte Carlo estimate from the same
+ * number of rounds to the variance of this estimate; equivalently, it is the factor by which the
+ * number of rounds would have to be multiplied for plain Monte Carlo to achieve the same precision.
+ * Until there are enough pairs to estimate the variances, the standard errors and gains are {@link
+ * Double#NaN}.</p>
+ * <p>As might be inferred from the name, instances of this class are immutable.</p>
+ */
+public final class VarianceReducedEstimate {
+
+  /** Exact probability of a natural (a win on the come-out roll: 7 or 11), standard rules. */
+  public static final double NATURAL_PROBABILITY =
+      Rules.standard().compile().getNaturalProbability();
+  /** Exact probability of craps (a loss on the come-out roll: 2, 3, or 12), standard rules. */
+  public static final double CRAPS_PROBABILITY = Rules.standard().compile().getCrapsProbability();
+
+  private static final int NUM_CONTROLS = 2;
+
+  private final double naturalProbability;
+  private final double crapsProbability;
+  private final long pairs;
+  private final double winRate;
+  private final double winRateError;
+  private final double winRateGain;
+  private final long wageredPairs;
+  private final double meanNet;
+  private final double meanNetError;
+  private final double meanNetGain;
+
+  VarianceReducedEstimate(ControlVariateAccumulator accumulator, CompiledRules rules) {
+    naturalProbability = rules.getNaturalProbability();
+    crapsProbability = rules.getCrapsProbability();
+    pairs = accumulator.pairs;
+    double[] win = regress(pairs, accumulator.wins / 2.0, accumulator.winSquares / 4.0,
+        accumulator.naturals, accumulator.naturalWins / 2.0,
+        accumulator.craps, accumulator.crapsWins / 2.0);
+    double p = (pairs > 0) ? accumulator.wins / (2.0 * pairs) : 0;
+    winRate = win[0];
+    winRateError = Math.sqrt(win[1]);
+    winRateGain = p * (1 - p) / (2 * pairs) / win[1];
+    wageredPairs = accumulator.wageredPairs;
+    double[] net = regress(wageredPairs, accumulator.net / 2, accumulator.netSquares / 4,
+        accumulator.wageredNaturals, accumulator.naturalNet / 2,
+        accumulator.wageredCraps, accumulator.crapsNet / 2);
+    double roundMean = (wageredPairs > 0) ? accumulator.net / (2 * wageredPairs) : 0;
+    double roundVariance =
+        accumulator.roundNetSquares / (2 * wageredPairs) - roundMean * roundMean;
+    meanNet = net[0];
+    meanNetError = Math.sqrt(net[1]);
+    meanNetGain = roundVariance / (2 * wageredPairs) / net[1];
+  }
+
+  /**
+   * Returns the number of antithetic pairs of rounds included.
+   *
+   * @return {@code long}
+   */
+  public long getPairs() {
+    return pairs;
+  }
+
+  /**
+   * Returns the variance-reduced estimate of the probability of a win.
+   *
+   * @return {@code double}
+   */
+  public double getWinRate() {
+    return winRate;
+  }
+
+  /**
+   * Returns the standard error of {@link #getWinRate()}.
+   *
+   * @return {@code double}
+   */
+  public double getWinRateError() {
+    return winRateError;
+  }
+
+  /**
+   * Returns the effective sample-size gain of {@link #getWinRate()}, relative to the plain win rate
+   * of the same rounds.
+   *
+   * @return {@code double}
+   */
+  public double getWinRateGain() {
+    return winRateGain;
+  }
+
+  /**
+   * Returns the number of antithetic pairs of rounds in which bets were placed.
+   *
+   * @return {@code long}
+   */
+  public long getWageredPairs() {
+    return wageredPairs;
+  }
+
+  /**
+   * Returns the variance-reduced estimate of the mean net wagering result per round.
+   *
+   * @return {@code double}
+   */
+  public double getMeanNet() {
+    return meanNet;
+  }
+
+  /**
+   * Returns the standard error of {@link #getMeanNet()}.
+   *
+   * @return {@code double}
+   */
+  public double getMeanNetError() {
+    return meanNetError;
+  }
+
+  /**
+   * Returns the effective sample-size gain of {@link #getMeanNet()}, relative to the plain mean net
+   * result of the same rounds.
+   *
+   * @return {@code double}
+   */
+  public double getMeanNetGain() {
+    return meanNetGain;
+  }
+
+  /**
+   * Computes the control-variate estimate of the mean of a per-pair response, and the variance of
+   * that estimate, from sums over {@code n} pairs of the response, its square, the two control
+   * indicators, and their products with the response. Since the controls are mutually exclusive
+   * indicators, the sums of their squares and product are implied by their sums.
+   */
+  private double[] regress(long n, double sumY, double sumYSquares, long sum1,
+      double sum1Y, long sum2, double sum2Y) {
+    double estimate = 0;
+    double variance = Double.NaN;
+    if (n > 0) {
+      double meanY = sumY / n;
+      double mean1 = (double) sum1 / n;
+      double mean2 = (double) sum2 / n;
+      double c11 = mean1 * (1 - mean1);
+      double c22 = mean2 * (1 - mean2);
+      double c12 = -mean1 * mean2;
+      double c1y = sum1Y / n - mean1 * meanY;
+      double c2y = sum2Y / n - mean2 * meanY;
+      double cyy = sumYSquares / n - meanY * meanY;
+      double determinant = c11 * c22 - c12 * c12;
+      double beta1 = 0;
+      double beta2 = 0;
+      if (determinant > 0) {
+        beta1 = (c22 * c1y - c12 * c2y) / determinant;
+        beta2 = (c11 * c2y - c12 * c1y) / determinant;
+      }
+      estimate = meanY
+          - beta1 * (mean1 - naturalProbability)
+          - beta2 * (mean2 - crapsProbability);
+      if (n > NUM_CONTROLS + 1) {
+        double residual = Math.max(0, cyy - beta1 * c1y - beta2 * c2y);
+        variance = residual / (n - NUM_CONTROLS - 1);
+      }
+    }
+    return new double[]{estimate, variance};
+  }
+
+}
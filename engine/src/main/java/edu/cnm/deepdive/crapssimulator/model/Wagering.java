@@ -0,0 +1,257 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import edu.cnm.deepdive.crapssimulator.model.Round.State;
+import java.util.Arrays;
+
+/**
+ * Resolves the wagers of a {@link BettingStrategy} on each roll of a sequence of {@link Round}
+ * instances, tracking the net result (the change in the bettor's bankroll) and the total amount
+ * wagered. Instances of this class are attached to a {@link Round} as its {@link Round.Listener}.
+ * <p>When an instance is initialized, the net result and action (amount wagered and resolved) of
+ * all bets that depend only on the current point and the value of the roll&mdash;line, odds, place,
+ * and field bets&mdash;are precomputed into tables indexed by point and value; resolving these bets
+ * on each roll is then a pair of array lookups. Come and don't come bets, which travel to the number
+ * rolled, are tracked in per-number arrays. No objects are allocated per roll or per bet.</p>
+ * <p>Line bets are resolved by the come-out rules and seven-out of the {@link Rules} variant in
+ * effect, and odds are paid at the true odds of that seven-out; place bets also lose on the
+ * seven-out. The bets themselves are those of a table with {@link Round#NUM_DICE} dice of {@link
+ * Round#NUM_SIDES} sides.</p>
+ * <p>The action and net result of each round (including any come or don't come bets resolved in
+ * that round, regardless of the round in which they were placed) are added to a {@link
+ * StatisticsAccumulator} when the round completes. Rounds may also be replayed from a {@link
+ * RollBlock}, so that several strategies can be evaluated against the same rolls.</p>
+ */
+public final class Wagering implements Round.Listener {
+
+  private static final int NUM_VALUES = StatisticsAccumulator.NUM_VALUES;
+  private static final int BAR = NUM_VALUES - 1;
+
+  private final StatisticsAccumulator statistics;
+  private final int[] lineResults;
+  private final boolean[] travels;
+  private final int sevenOut;
+  private final double[] rollNet;
+  private final double[] rollAction;
+  private final double comeAmount;
+  private final double dontComeAmount;
+  private final double[] comeBets;
+  private final double[] dontComeBets;
+
+  private double comeTotal;
+  private double dontComeTotal;
+  private double roundNet;
+  private double roundAction;
+  private double bankroll;
+
+  /**
+   * Initializes this instance with the specified strategy, and destination of per-round results,
+   * under the {@link Rules#standard() standard rules}.
+   *
+   * @param strategy Amounts wagered on each {@link Bet}.
+   * @param statistics Destination of the per-round action and net result.
+   */
+  public Wagering(BettingStrategy strategy, StatisticsAccumulator statistics) {
+    this(strategy, statistics, Rules.standard());
+  }
+
+  /**
+   * Initializes this instance with the specified strategy, destination of per-round results, and
+   * rules.
+   *
+   * @param strategy Amounts wagered on each {@link Bet}.
+   * @param statistics Destination of the per-round action and net result.
+   * @param rules {@link Rules} variant of the rounds on which the wagers are resolved.
+   * @throws IllegalArgumentException If the dice of {@code rules} aren't {@link Round#NUM_DICE}
+   *     dice of {@link Round#NUM_SIDES} sides.
+   */
+  public Wagering(BettingStrategy strategy, StatisticsAccumulator statistics, Rules rules)
+      throws IllegalArgumentException {
+    if (rules.getNumDice() != Round.NUM_DICE || rules.getNumSides() != Round.NUM_SIDES) {
+      throw new IllegalArgumentException();
+    }
+    this.statistics = statistics;
+    // Result of a pass (or come) bet on its first roll, per the come-out rules: 1 for a win, -1
+    // for a loss, 0 if the bet travels to the number rolled. Don't bets have the opposite result,
+    // except that a loss on the bar number (12) is a push.
+    CompiledRules compiled = rules.compile();
+    lineResults = new int[NUM_VALUES];
+    travels = new boolean[NUM_VALUES];
+    for (int value = 2; value < NUM_VALUES; value++) {
+      int next = compiled.next(0, value);
+      lineResults[value] = (next == CompiledRules.WIN) ? 1 : (next == CompiledRules.LOSS) ? -1 : 0;
+      travels[value] = (next > 0);
+    }
+    sevenOut = rules.getSevenOut();
+    rollNet = new double[NUM_VALUES * NUM_VALUES];
+    rollAction = new double[NUM_VALUES * NUM_VALUES];
+    for (int point = 0; point < NUM_VALUES; point++) {
+      for (int value = 2; value < NUM_VALUES; value++) {
+        tabulate(strategy, point, value);
+      }
+    }
+    comeAmount = strategy.getAmount(Bet.COME);
+    dontComeAmount = strategy.getAmount(Bet.DONT_COME);
+    comeBets = new double[NUM_VALUES];
+    dontComeBets = new double[NUM_VALUES];
+  }
+
+  @Override
+  public void onRoll(State state, int point, int value, int[] dice) {
+    resolve(point, value);
+  }
+
+  @Override
+  public void onComplete(boolean win, int point, int rollCount) {
+    complete();
+  }
+
+  /**
+   * Resolves the wagers of this instance on each roll recorded in the specified {@link RollBlock},
+   * adding the results of each recorded round to the {@link StatisticsAccumulator} of this instance,
+   * exactly as if this instance had been the {@link Round.Listener} of those rounds.
+   *
+   * @param block Recorded rolls.
+   */
+  public void play(RollBlock block) {
+    byte[] rolls = block.rolls;
+    int[] ends = block.ends;
+    int roll = 0;
+    for (int round = 0; round < block.numRounds; round++) {
+      for (int end = ends[round]; roll < end; roll++) {
+        int code = rolls[roll] & 0xff;
+        int point = code / NUM_VALUES;
+        resolve(point, code - point * NUM_VALUES);
+      }
+      complete();
+    }
+  }
+
+  /**
+   * Returns the net change in the bettor's bankroll, over all rounds completed so far. Amounts
+   * currently at risk in unresolved come and don't come bets are not included.
+   *
+   * @return {@code double}
+   */
+  public double getBankroll() {
+    return bankroll;
+  }
+
+  private void resolve(int point, int value) {
+    int index = point * NUM_VALUES + value;
+    double net = rollNet[index];
+    double action = rollAction[index];
+    if (comeTotal > 0 || dontComeTotal > 0) {
+      if (value == sevenOut) {
+        net += dontComeTotal - comeTotal;
+        action += dontComeTotal + comeTotal;
+        Arrays.fill(comeBets, 0);
+        Arrays.fill(dontComeBets, 0);
+        comeTotal = 0;
+        dontComeTotal = 0;
+      } else {
+        double come = comeBets[value];
+        double dontCome = dontComeBets[value];
+        net += come - dontCome;
+        action += come + dontCome;
+        comeBets[value] = 0;
+        dontComeBets[value] = 0;
+        comeTotal -= come;
+        dontComeTotal -= dontCome;
+      }
+    }
+    if (point != 0) {
+      if (travels[value]) {
+        comeBets[value] += comeAmount;
+        comeTotal += comeAmount;
+        dontComeBets[value] += dontComeAmount;
+        dontComeTotal += dontComeAmount;
+      } else {
+        int result = lineResults[value];
+        net += result * comeAmount;
+        action += comeAmount;
+        if (value != BAR || result >= 0) {
+          net -= result * dontComeAmount;
+          action += dontComeAmount;
+        }
+      }
+    }
+    roundNet += net;
+    roundAction += action;
+  }
+
+  private void complete() {
+    bankroll += roundNet;
+    statistics.addWagering(roundAction, roundNet);
+    roundNet = 0;
+    roundAction = 0;
+  }
+
+  private void tabulate(BettingStrategy strategy, int point, int value) {
+    int index = point * NUM_VALUES + value;
+    double net = 0;
+    double action = 0;
+    if (point == 0) {
+      if (!travels[value]) {
+        double pass = strategy.getAmount(Bet.PASS);
+        double dontPass = strategy.getAmount(Bet.DONT_PASS);
+        int result = lineResults[value];
+        net += result * pass;
+        action += pass;
+        if (value != BAR || result >= 0) {
+          net -= result * dontPass;
+          action += dontPass;
+        }
+      }
+    } else if (value == point || value == sevenOut) {
+      boolean made = (value == point);
+      double pass = strategy.getAmount(Bet.PASS);
+      double dontPass = strategy.getAmount(Bet.DONT_PASS);
+      double odds = strategy.getAmount(Bet.PASS_ODDS);
+      double layOdds = strategy.getAmount(Bet.DONT_PASS_ODDS);
+      double trueOdds = Bet.trueOdds(point, sevenOut);
+      net += made
+          ? pass - dontPass + odds * trueOdds - layOdds
+          : dontPass - pass + layOdds / trueOdds - odds;
+      action += pass + dontPass + odds + layOdds;
+    }
+    if (point != 0) {
+      for (Bet bet : Bet.values()) {
+        int number = bet.getPlaceNumber();
+        double amount = strategy.getAmount(bet);
+        if (number > 0 && amount > 0) {
+          if (value == number) {
+            net += amount * Bet.placePayout(number);
+            action += amount;
+          } else if (value == sevenOut) {
+            net -= amount;
+            action += amount;
+          }
+        }
+      }
+    }
+    double field = strategy.getAmount(Bet.FIELD);
+    if (field > 0) {
+      double payout = Bet.fieldPayout(value);
+      net += (payout > 0) ? payout * field : -field;
+      action += field;
+    }
+    rollNet[index] = net;
+    rollAction[index] = action;
+  }
+
+}
@@ -0,0 +1,87 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sizes batches of rounds so that each batch takes approximately a target duration. The recent
+ * simulation rate (rounds per second) is estimated as an exponentially weighted moving average of
+ * measured batches, and the next batch size is that rate multiplied by the target duration. To damp
+ * the effects of noisy measurements (e.g. during JIT compilation, or when the simulation thread is
+ * preempted), the batch size changes by at most a fixed factor from one batch to the next.
+ */
+public class AdaptiveBatchSizer {
+
+  private static final int INITIAL_BATCH_SIZE = 1_000;
+  private static final int MAX_BATCH_SIZE = 1 << 28;
+  private static final double SMOOTHING = 0.3;
+  private static final double MAX_GROWTH = 4;
+
+  private final long targetNanos;
+
+  private double roundsPerNano;
+  private int batchSize;
+
+  /**
+   * Initializes this instance with the specified target batch duration.
+   *
+   * @param targetInterval Target duration of each batch.
+   * @param unit {@link TimeUnit} of {@code targetInterval}.
+   */
+  public AdaptiveBatchSizer(long targetInterval, TimeUnit unit) {
+    targetNanos = Math.max(1, unit.toNanos(targetInterval));
+    batchSize = INITIAL_BATCH_SIZE;
+  }
+
+  /**
+   * Returns the number of rounds to be simulated in the next batch.
+   *
+   * @return {@code int}
+   */
+  public int next() {
+    return batchSize;
+  }
+
+  /**
+   * Records the duration of a completed batch, updating the rate estimate and the next batch size.
+   *
+   * @param rounds Number of rounds in the batch.
+   * @param nanos Elapsed time of the batch, in nanoseconds.
+   */
+  public void record(int rounds, long nanos) {
+    if (rounds <= 0) {
+      return;
+    }
+    double measured = (double) rounds / Math.max(1, nanos);
+    roundsPerNano = (roundsPerNano > 0)
+        ? (1 - SMOOTHING) * roundsPerNano + SMOOTHING * measured
+        : measured;
+    double ideal = roundsPerNano * targetNanos;
+    double bounded = Math.max(batchSize / MAX_GROWTH, Math.min(batchSize * MAX_GROWTH, ideal));
+    batchSize = (int) Math.max(1, Math.min(MAX_BATCH_SIZE, Math.round(bounded)));
+  }
+
+  /**
+   * Returns the current estimate of the simulation rate, in rounds per second.
+   *
+   * @return {@code double}
+   */
+  public double getRoundsPerSecond() {
+    return roundsPerNano * TimeUnit.SECONDS.toNanos(1);
+  }
+
+}
@@ -0,0 +1,163 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+
+/**
+ * Persists checkpoints of simulation state in a small memory-mapped file. The file holds two slots,
+ * written alternately; each holds a sequence number, the checkpoint data, and a CRC-32 checksum of
+ * both. A write interrupted by the termination of the process can corrupt at most the slot being
+ * written, so the previous checkpoint remains readable.
+ * <p>Checkpoints are written by a dedicated background thread: {@link #write(byte[])} only hands
+ * off the data, and returns immediately. If a checkpoint is written while an earlier one is still
+ * waiting to be written, the earlier one is discarded.</p>
+ */
+final class CheckpointStore {
+
+  /** Largest size (in bytes) of the data in a single checkpoint. */
+  static final int MAX_DATA_SIZE = (1 << 16) - 24;
+
+  private static final int MAGIC = 0x43534350;
+  private static final int SLOT_SIZE = 1 << 16;
+  private static final int NUM_SLOTS = 2;
+  private static final int MAGIC_OFFSET = 0;
+  private static final int CHECKSUM_OFFSET = 4;
+  private static final int SEQUENCE_OFFSET = 8;
+  private static final int LENGTH_OFFSET = 16;
+  private static final int DATA_OFFSET = 20;
+
+  private final MappedByteBuffer buffer;
+  private final ExecutorService writer;
+  private final AtomicReference<byte[]> pending;
+
+  private long sequence;
+
+  /**
+   * Opens (creating, if necessary) the specified checkpoint file.
+   */
+  CheckpointStore(File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      buffer = channel.map(MapMode.READ_WRITE, 0, (long) NUM_SLOTS * SLOT_SIZE);
+    }
+    writer = Executors.newSingleThreadExecutor((runnable) -> {
+      Thread thread = new Thread(runnable, "checkpoint-writer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    pending = new AtomicReference<>();
+    int slot = latestSlot();
+    sequence = (slot >= 0) ? buffer.getLong(slot * SLOT_SIZE + SEQUENCE_OFFSET) : 0;
+  }
+
+  /**
+   * Returns the data of the most recent valid checkpoint, or {@code null} if there is none.
+   */
+  synchronized ByteBuffer read() {
+    ByteBuffer data = null;
+    int slot = latestSlot();
+    if (slot >= 0) {
+      int offset = slot * SLOT_SIZE;
+      data = ByteBuffer.wrap(record(offset, buffer.getInt(offset + LENGTH_OFFSET)));
+      data.position(DATA_OFFSET - SEQUENCE_OFFSET);
+    }
+    return data;
+  }
+
+  /**
+   * Schedules the specified data to be written as a new checkpoint.
+   *
+   * @throws IllegalArgumentException If {@code data} is larger than {@link #MAX_DATA_SIZE}.
+   */
+  void write(byte[] data) throws IllegalArgumentException {
+    if (data.length > MAX_DATA_SIZE) {
+      throw new IllegalArgumentException();
+    }
+    if (pending.getAndSet(data) == null) {
+      writer.execute(this::flush);
+    }
+  }
+
+  /**
+   * Writes any checkpoint still waiting to be written, and stops the background thread; no further
+   * checkpoints may be written after this method is invoked.
+   */
+  void close() throws InterruptedException {
+    writer.shutdown();
+    writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+  }
+
+  private synchronized void flush() {
+    byte[] data = pending.getAndSet(null);
+    long sequence = this.sequence + 1;
+    int offset = (int) (sequence % NUM_SLOTS) * SLOT_SIZE;
+    buffer.putInt(offset + MAGIC_OFFSET, 0);
+    buffer.putLong(offset + SEQUENCE_OFFSET, sequence);
+    buffer.putInt(offset + LENGTH_OFFSET, data.length);
+    ByteBuffer slot = buffer.duplicate();
+    slot.position(offset + DATA_OFFSET);
+    slot.put(data);
+    buffer.putInt(offset + CHECKSUM_OFFSET, checksum(record(offset, data.length)));
+    buffer.putInt(offset + MAGIC_OFFSET, MAGIC);
+    buffer.force();
+    this.sequence = sequence;
+  }
+
+  private int latestSlot() {
+    int latest = -1;
+    long latestSequence = 0;
+    for (int slot = 0; slot < NUM_SLOTS; slot++) {
+      int offset = slot * SLOT_SIZE;
+      int length = buffer.getInt(offset + LENGTH_OFFSET);
+      long sequence = buffer.getLong(offset + SEQUENCE_OFFSET);
+      if (buffer.getInt(offset + MAGIC_OFFSET) == MAGIC
+          && length >= 0 && length <= MAX_DATA_SIZE
+          && buffer.getInt(offset + CHECKSUM_OFFSET) == checksum(record(offset, length))
+          && (latest < 0 || sequence > latestSequence)) {
+        latest = slot;
+        latestSequence = sequence;
+      }
+    }
+    return latest;
+  }
+
+  private byte[] record(int offset, int length) {
+    byte[] record = new byte[DATA_OFFSET - SEQUENCE_OFFSET + length];
+    ByteBuffer slot = buffer.duplicate();
+    slot.position(offset + SEQUENCE_OFFSET);
+    slot.get(record);
+    return record;
+  }
+
+  private static int checksum(byte[] record) {
+    CRC32 crc = new CRC32();
+    crc.update(record, 0, record.length);
+    return (int) crc.getValue();
+  }
+
+}
@@ -0,0 +1,862 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.service;
+
+import edu.cnm.deepdive.crapssimulator.model.BettingStrategy;
+import edu.cnm.deepdive.crapssimulator.model.ConfidenceInterval;
+import edu.cnm.deepdive.crapssimulator.model.Round;
+import edu.cnm.deepdive.crapssimulator.model.Rules;
+import edu.cnm.deepdive.crapssimulator.model.Snapshot;
+import edu.cnm.deepdive.crapssimulator.model.StatisticsAccumulator;
+import io.reactivex.rxjava3.core.BackpressureStrategy;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.FlowableEmitter;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.rng.LongJumpableUniformRandomProvider;
+import org.apache.commons.rng.RestorableUniformRandomProvider;
+import org.apache.commons.rng.UniformRandomProvider;
+import org.apache.commons.rng.simple.RandomSource;
+
+/**
+ * Encapsulates the Craps simulation engine, and acts as a source of simulation data. By default,
+ * the {@link org.apache.commons.rng.core.source64.XoRoShiRo128PlusPlus} pseudorandom number
+ * generator is used as a source of randomness; another may be selected with {@link
+ * #setRandomSource(RandomSource)}. Each batch of rounds is split across a {@link ParallelEngine},
+ * with one independent (jumped, if the source is jumpable) stream per worker. Alternatively, the
+ * outcomes of all but the last round in each batch can be sampled directly by a {@link
+ * SampledEngine}, or rounds can be played in antithetic pairs by an {@link AntitheticEngine}, for
+ * variance-reduced estimates; see {@link #setMode(Mode)}. Rounds are played by the standard rules,
+ * or by another {@link Rules} variant; see {@link #setRules(Rules)}.
+ * <p>Run-control methods ({@link #runFast(int)}, {@link #runOnce(int)}, {@link #stop()}, and {@link
+ * #reset()}) may be invoked from any thread; they signal the simulation thread, which otherwise
+ * blocks (without consuming CPU time) while idle. State changes requested by these methods are
+ * applied by the simulation thread itself, between batches.</p>
+ * <p>Optionally, the win/loss tally, statistics, and states of the random number generators are
+ * checkpointed periodically (and whenever the simulation stops) to a memory-mapped file; the
+ * checkpoints are written on a background thread, so they don't stall the simulation. An instance
+ * constructed with the same checkpoint file (and number of workers) resumes the simulation from the
+ * most recent checkpoint, producing the same sequence of rounds for the same sequence of batch sizes
+ * and modes. (With adaptive batch sizing, the batch sizes depend on timing, so the sequence of
+ * rounds differs after resumption, though it remains statistically equivalent.) Unresolved come and
+ * don't come bets are not included in a checkpoint.</p>
+ * <p>A seeded instance produces a reproducible run: in {@link Mode#SIMULATED} mode, rounds are
+ * played by a {@link SeededEngine}, and any round of the run can be regenerated with {@link
+ * #replay(long)}, without re-simulating the rounds before it.</p>
+ * <p>Every roll may also be recorded, for auditing, in an append-only log; see {@link
+ * #startRecording(File)}.</p>
+ * <p>Rather than for a fixed number of rounds, the simulation may be run until the probability of
+ * a win is estimated to a target precision; see {@link #runToPrecision(double, double, long,
+ * TimeUnit)}.</p>
+ * <p>Performance metrics (throughput, batch durations, and the latency and loss of snapshots under
+ * backpressure) are collected continually, and may be read while the simulation runs; see {@link
+ * #getMetrics()}; throughput is also reported for each source of randomness used.</p>
+ * <p>The engines retained for each source of randomness hold pools of worker threads; these are
+ * released by {@link #close()}.</p>
+ */
+public class CrapsRepository implements AutoCloseable {
+
+  /** Source of randomness used by default, and by seeded instances. */
+  public static final RandomSource DEFAULT_SOURCE = RandomSource.XO_RO_SHI_RO_128_PP;
+
+  private static final int CHECKPOINT_VERSION = 7;
+  private static final long CHECKPOINT_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+  private static final int MIN_PRECISION_BATCH = 1_000;
+
+  private final ExecutorService executor;
+  private final Semaphore signal;
+  private final Scheduler scheduler;
+  private final int parallelism;
+  private final SeededEngine seededEngine;
+  private final StatisticsAccumulator statistics;
+  private final AtomicReference<BettingStrategy> pendingStrategy;
+  private final AtomicReference<Rules> pendingRules;
+  private final AtomicReference<RandomSource> pendingSource;
+  private final AtomicReference<Optional<Engine.Factory>> pendingFactory;
+  private final Map<RandomSource, Engine[]> enginesBySource;
+  private final CheckpointStore checkpoints;
+  private final ByteBuffer checkpointBuffer;
+  private final AtomicReference<Optional<RollLogWriter>> pendingRecorder;
+  private final EngineMetrics metrics;
+
+  private volatile Mode mode;
+  private volatile AdaptiveBatchSizer batchSizer;
+  private volatile PrecisionTarget precisionTarget;
+  private volatile int roundsPerSnapshot;
+  private volatile boolean runningFast;
+  private volatile boolean runningOnce;
+  private volatile boolean resetPending;
+  private long wins;
+  private long losses;
+  private RandomSource source;
+  private Engine.Factory factory;
+  private Engine[] engines;
+  private Engine engine;
+  private BettingStrategy strategy;
+  private Rules rules;
+  private RollLogWriter recorder;
+  private boolean resumePending;
+  private boolean checkpointPending;
+  private long lastCheckpoint;
+
+  /**
+   * Initializes this instance, using one worker per available processor. On completion, the
+   * simulation is ready to begin.
+   */
+  public CrapsRepository() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Initializes this instance, using the specified number of workers. On completion, the simulation
+   * is ready to begin.
+   *
+   * @param parallelism Number of worker threads used to simulate each batch of rounds.
+   */
+  public CrapsRepository(int parallelism) {
+    this(parallelism, null, (CheckpointStore) null);
+  }
+
+  /**
+   * Initializes this instance for a reproducible run with the specified seed, using the specified
+   * number of workers. The rounds played in {@link Mode#SIMULATED} mode depend only on the seed.
+   *
+   * @param parallelism Number of worker threads used to simulate each batch of rounds.
+   * @param seed Seed of the run.
+   */
+  public CrapsRepository(int parallelism, long seed) {
+    this(parallelism, (Long) seed, (CheckpointStore) null);
+  }
+
+  /**
+   * Initializes this instance, using the specified number of workers, and checkpointing to the
+   * specified file. If the file contains a checkpoint written with the same number of workers, the
+   * simulation resumes from that checkpoint (with the source of randomness in use when it was
+   * written); otherwise, it starts afresh.
+   *
+   * @param parallelism Number of worker threads used to simulate each batch of rounds.
+   * @param checkpointFile File in which checkpoints are written (created if necessary).
+   * @throws IOException If the checkpoint file can't be opened and mapped into memory.
+   */
+  public CrapsRepository(int parallelism, File checkpointFile) throws IOException {
+    this(parallelism, null, new CheckpointStore(checkpointFile));
+  }
+
+  /**
+   * Initializes this instance for a reproducible run with the specified seed, using the specified
+   * number of workers, and checkpointing to the specified file. If the file contains a checkpoint
+   * of a run with the same seed, the run resumes from that checkpoint; otherwise, it starts afresh.
+   *
+   * @param parallelism Number of worker threads used to simulate each batch of rounds.
+   * @param seed Seed of the run.
+   * @param checkpointFile File in which checkpoints are written (created if necessary).
+   * @throws IOException If the checkpoint file can't be opened and mapped into memory.
+   */
+  public CrapsRepository(int parallelism, long seed, File checkpointFile) throws IOException {
+    this(parallelism, seed, new CheckpointStore(checkpointFile));
+  }
+
+  private CrapsRepository(int parallelism, Long seed, CheckpointStore checkpoints) {
+    executor = Executors.newSingleThreadExecutor();
+    signal = new Semaphore(0);
+    scheduler = Schedulers.single();
+    this.parallelism = parallelism;
+    source = DEFAULT_SOURCE;
+    enginesBySource = new EnumMap<>(RandomSource.class);
+    if (seed != null) {
+      seededEngine = new SeededEngine(seed, parallelism);
+      // The other engines' streams are seeded from the run seed, but independently of the blocks.
+      UniformRandomProvider seeds = RandomSource.SPLIT_MIX_64.create(seed);
+      engines = new Engine[]{
+          seededEngine,
+          new SampledEngine(source.create(seeds.nextLong())),
+          new AntitheticEngine(
+              (LongJumpableUniformRandomProvider) source.create(seeds.nextLong()), parallelism)
+      };
+    } else {
+      seededEngine = null;
+      engines = createEngines(source);
+    }
+    enginesBySource.put(source, engines);
+    mode = Mode.SIMULATED;
+    engine = engines[mode.ordinal()];
+    strategy = BettingStrategy.none();
+    rules = Rules.standard();
+    statistics = new StatisticsAccumulator();
+    pendingStrategy = new AtomicReference<>();
+    pendingRules = new AtomicReference<>();
+    pendingSource = new AtomicReference<>();
+    pendingFactory = new AtomicReference<>();
+    pendingRecorder = new AtomicReference<>();
+    metrics = new EngineMetrics();
+    this.checkpoints = checkpoints;
+    checkpointBuffer = (checkpoints != null)
+        ? ByteBuffer.allocate(CheckpointStore.MAX_DATA_SIZE)
+        : null;
+    resumePending = (checkpoints != null);
+  }
+
+  /**
+   * Selects the engine used to simulate subsequent batches of rounds. A change takes effect with the
+   * next batch; the win/loss tally is not affected.
+   *
+   * @param mode {@link Mode} of simulation.
+   */
+  public void setMode(Mode mode) {
+    this.mode = mode;
+  }
+
+  /**
+   * Selects the source of randomness used to simulate subsequent batches of rounds, in all modes of
+   * simulation. The change is applied by the simulation thread before the next batch; the win/loss
+   * tally, statistics, betting strategy, and recording are not affected. The engines for each
+   * source are created (with randomly seeded streams) when that source is first selected, and
+   * retained, so that alternating between sources is cheap. The source in use is saved in each
+   * checkpoint.
+   * <p>Sources differ in speed and in statistical quality; the throughput achieved with each source
+   * used is reported in the {@link #getMetrics() metrics}. Since the streams of a jumpable source
+   * (e.g. {@link RandomSource#XO_RO_SHI_RO_128_PP} or {@link RandomSource#L64_X128_MIX}) are
+   * guaranteed not to overlap, while those of other sources (e.g. {@link RandomSource#SPLIT_MIX_64}
+   * or {@link RandomSource#MT}) are only very unlikely to, jumpable sources are preferred.</p>
+   *
+   * @param source Source of randomness.
+   * @throws IllegalStateException If this instance was constructed with a seed; a seeded run always
+   *     uses {@link #DEFAULT_SOURCE}.
+   * @throws IllegalArgumentException If {@code source} can't be created without arguments, or its
+   *     state can't be saved and restored.
+   */
+  public void setRandomSource(RandomSource source)
+      throws IllegalStateException, IllegalArgumentException {
+    if (seededEngine != null) {
+      throw new IllegalStateException();
+    }
+    if (!(source.create() instanceof RestorableUniformRandomProvider)) {
+      throw new IllegalArgumentException();
+    }
+    pendingSource.set(source);
+  }
+
+  /**
+   * Sets the {@link Engine.Factory} of the engines used in {@link Mode#SIMULATED} mode, in place of
+   * the default {@link ParallelEngine}; this allows alternative implementations (e.g. ones using
+   * platform-specific features) to be used. The change is applied by the simulation thread before
+   * the next batch (and before resuming from a checkpoint), by replacing the engine for each source
+   * of randomness with one created by {@code factory}, with the current betting strategy and
+   * recording; the win/loss tally and statistics are not affected.
+   *
+   * @param factory Source of engines; {@code null} to restore the default.
+   * @throws IllegalStateException If this instance was constructed with a seed; a seeded run always
+   *     uses a {@link SeededEngine}.
+   */
+  public void setEngineFactory(Engine.Factory factory) throws IllegalStateException {
+    if (seededEngine != null) {
+      throw new IllegalStateException();
+    }
+    pendingFactory.set(Optional.ofNullable(factory));
+  }
+
+  /**
+   * Sets the {@link BettingStrategy} evaluated on each roll, by both modes of simulation. The
+   * change is applied by the simulation thread before the next batch; the action and net result of
+   * wagering are included in the {@link edu.cnm.deepdive.crapssimulator.model.Statistics} of
+   * subsequent snapshots.
+   *
+   * @param strategy Amounts wagered on each bet; {@link BettingStrategy#none()} for no wagering.
+   */
+  public void setStrategy(BettingStrategy strategy) {
+    pendingStrategy.set(strategy);
+  }
+
+  /**
+   * Sets the {@link Rules} variant by which rounds are played (and wagers resolved), in all modes
+   * of simulation. The change is applied by the simulation thread before the next batch; since the
+   * outcomes of different variants can't be combined, the win/loss tally and statistics are then
+   * reset, as by {@link #reset()} (but without stopping the simulation). The rules in effect are
+   * saved in each checkpoint. Rolls recorded under a variant must be read with a {@link
+   * RollLogReader} for the same variant, and a seeded run is only reproducible for the same rules.
+   *
+   * @param rules {@link Rules} variant, with {@link Round#NUM_DICE} dice of {@link
+   *     Round#NUM_SIDES} sides.
+   * @throws IllegalArgumentException If {@code rules} has different dice.
+   */
+  public void setRules(Rules rules) throws IllegalArgumentException {
+    if (rules.getNumDice() != Round.NUM_DICE || rules.getNumSides() != Round.NUM_SIDES) {
+      throw new IllegalArgumentException();
+    }
+    pendingRules.set(rules);
+  }
+
+  /**
+   * Regenerates the specified round of a seeded run, returning a {@link Round} with the rolls of
+   * that round recorded. This may be invoked from any thread, and doesn't affect the simulation.
+   *
+   * @param number Number (0-based) of the round among those played in {@link Mode#SIMULATED} mode.
+   * @return {@link Round}
+   * @throws IllegalStateException If this instance was not constructed with a seed.
+   * @throws IllegalArgumentException If {@code number} is negative.
+   */
+  public Round replay(long number) throws IllegalStateException, IllegalArgumentException {
+    if (seededEngine == null) {
+      throw new IllegalStateException();
+    }
+    return seededEngine.replay(number);
+  }
+
+  /**
+   * Starts recording every roll of subsequent batches (in either mode of simulation) to the log in
+   * the specified directory, which may be read with a {@link RollLogReader}. If the directory
+   * already holds a log, rolls are appended to it. Recording replaces any log currently being
+   * recorded; the change is applied by the simulation thread before the next batch.
+   *
+   * @param directory Directory holding the log files (created if necessary).
+   * @throws IOException If the log can't be created or opened.
+   */
+  public void startRecording(File directory) throws IOException {
+    pendingRecorder.set(Optional.of(new RollLogWriter(directory)));
+  }
+
+  /**
+   * Stops recording rolls, and closes the log. The change is applied by the simulation thread
+   * before the next batch.
+   */
+  public void stopRecording() {
+    pendingRecorder.set(Optional.empty());
+  }
+
+  /**
+   * Returns the {@link EngineMetrics} of this instance. Metrics are cumulative over the lifetime of
+   * this instance; they are not cleared by {@link #reset()}, or restored from a checkpoint.
+   *
+   * @return {@link EngineMetrics}
+   */
+  public EngineMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Resets the running state, win/loss tally, and statistics of this instance. The tally and
+   * statistics are cleared by the simulation thread, before the next batch of rounds.
+   */
+  public void reset() {
+    runningFast = false;
+    runningOnce = false;
+    resetPending = true;
+    signal.release();
+  }
+
+  /**
+   * Triggers publication of simulation {@link Snapshot} data as a {@link Flowable}&lt;{@link
+   * Snapshot}&gt;. Note that this is a "cold" source: no data is published unless there is a
+   * subscriber; in fact, the simulation will not run at all without a subscriber. While subscribed,
+   * the simulation thread waits for run-control signals, and starts work as soon as one arrives.
+   * <p>A maximum of 128 snapshots (by default) will be buffered: If a subscriber is not able to
+   * consume simulation snapshots as fast as they are published, older snapshots will be discarded
+   * when the number of unconsumed snapshots exceeds this buffer size. The number discarded, and the
+   * latency of those delivered, are included in the {@link #getMetrics() metrics}.</p>
+   *
+   * @return {@link Flowable}&lt;{@link Snapshot}&gt;
+   */
+  public Flowable<Snapshot> getSnapshots() {
+    return Flowable
+        .create((FlowableEmitter<Snapshot> emitter) -> {
+          Future<?> future = executor.submit(() -> {
+            try {
+              while (!emitter.isCancelled()) {
+                simulate(emitter);
+                signal.acquire();
+                signal.drainPermits();
+              }
+            } catch (InterruptedException expected) {
+              // Subscription cancelled while waiting for a signal; simulation task ends.
+            } catch (RuntimeException e) {
+              emitter.tryOnError(e);
+            }
+          });
+          emitter.setCancellable(() -> future.cancel(true));
+        }, BackpressureStrategy.LATEST)
+        .doOnNext(metrics::recordDelivered)
+        .subscribeOn(scheduler);
+  }
+
+  /**
+   * Starts or resumes execution of the simulation in continuous mode, with the specified number of
+   * rounds simulated between snapshot publications.
+   *
+   * @param roundsPerSnapshot Number of rounds to be simulated between snapshots.
+   */
+  public void runFast(int roundsPerSnapshot) {
+    this.roundsPerSnapshot = roundsPerSnapshot;
+    batchSizer = null;
+    precisionTarget = null;
+    runningFast = true;
+    signal.release();
+  }
+
+  /**
+   * Starts or resumes execution of the simulation in continuous mode, with the number of rounds
+   * between snapshot publications adjusted continually, so that snapshots are published at
+   * (approximately) the specified interval. This keeps the simulation running at full speed, while
+   * avoiding both a flood of snapshots that would be discarded by a slower subscriber, and long
+   * pauses between snapshots.
+   *
+   * @param targetInterval Target interval between snapshots.
+   * @param unit {@link TimeUnit} of {@code targetInterval}.
+   */
+  public void runFastAdaptive(long targetInterval, TimeUnit unit) {
+    batchSizer = new AdaptiveBatchSizer(targetInterval, unit);
+    precisionTarget = null;
+    runningFast = true;
+    signal.release();
+  }
+
+  /**
+   * Starts or resumes execution of the simulation in continuous mode, until the half-width of the
+   * Wilson score interval (at the specified confidence level) for the probability of a win is no
+   * more than the specified target; the simulation then stops, as if by {@link #stop()}. Batches are
+   * sized as by {@link #runFastAdaptive(long, TimeUnit)}, but never larger than the estimated
+   * number of rounds remaining (or a small minimum), so the simulation stops soon after the target
+   * is reached. The interval is computed from the entire win/loss tally (including any rounds
+   * already simulated), after each batch; each published {@link Snapshot} includes the interval,
+   * and the estimated number of rounds remaining.
+   *
+   * @param halfWidth Target half-width of the confidence interval (e.g. 0.0001).
+   * @param confidence Confidence level of the interval (e.g. 0.95).
+   * @param targetInterval Target interval between snapshots.
+   * @param unit {@link TimeUnit} of {@code targetInterval}.
+   * @throws IllegalArgumentException If {@code halfWidth} is not greater than 0, or {@code
+   *     confidence} is not strictly between 0 and 1.
+   */
+  public void runToPrecision(double halfWidth, double confidence, long targetInterval,
+      TimeUnit unit) throws IllegalArgumentException {
+    if (!(halfWidth > 0)) {
+      throw new IllegalArgumentException();
+    }
+    ConfidenceInterval.criticalValue(confidence);
+    batchSizer = new AdaptiveBatchSizer(targetInterval, unit);
+    precisionTarget = new PrecisionTarget(halfWidth, confidence);
+    runningFast = true;
+    signal.release();
+  }
+
+  /**
+   * Simulates one batch of rounds, of the specified size.
+   *
+   * @param rounds Number of rounds to be simulated.
+   */
+  public void runOnce(int rounds) {
+    roundsPerSnapshot = rounds;
+    runningOnce = true;
+    signal.release();
+  }
+
+  /**
+   * Suspends continuous-mode simulation. Note that the simulation will actually stop only when the
+   * current batch of rounds has completed; thus, there may be a noticeable lag between invocation
+   * of this method and the actual suspension of execution.
+   */
+  public void stop() {
+    runningFast = false;
+  }
+
+  /**
+   * Releases the worker threads of all engines, closes the log being recorded (if any), finishes
+   * writing the last checkpoint (if any), and stops the simulation thread. This is performed by
+   * the simulation thread itself, after any current subscription to {@link #getSnapshots()} has
+   * been cancelled; this instance may not be used afterward.
+   */
+  @Override
+  public void close() {
+    executor.execute(this::release);
+    executor.shutdown();
+  }
+
+  /**
+   * Blocks until the resources of this instance have been released, after {@link #close()}, or
+   * the specified timeout elapses.
+   *
+   * @param timeout Maximum time to wait.
+   * @param unit {@link TimeUnit} of {@code timeout}.
+   * @return {@code true} if the resources were released; {@code false} if the timeout elapsed
+   *     first.
+   * @throws InterruptedException If interrupted while waiting.
+   */
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return executor.awaitTermination(timeout, unit);
+  }
+
+  private void simulate(FlowableEmitter<Snapshot> emitter) {
+    applyPendingChanges();
+    while (!emitter.isCancelled() && runningFast) {
+      AdaptiveBatchSizer sizer = batchSizer;
+      PrecisionTarget target = precisionTarget;
+      int count = (sizer != null) ? sizer.next() : roundsPerSnapshot;
+      if (target != null) {
+        long remaining = target.remainingRounds(wins, wins + losses);
+        count = (int) Math.min(count, Math.max(MIN_PRECISION_BATCH, remaining));
+      }
+      long elapsed = play(count);
+      if (sizer != null) {
+        sizer.record(count, elapsed);
+      }
+      publish(emitter);
+      if (target != null && target.remainingRounds(wins, wins + losses) == 0) {
+        runningFast = false;
+      }
+      applyPendingChanges();
+      if (System.nanoTime() - lastCheckpoint >= CHECKPOINT_INTERVAL) {
+        checkpoint();
+      }
+    }
+    if (!emitter.isCancelled() && runningOnce) {
+      runningOnce = false;
+      applyPendingChanges();
+      play(roundsPerSnapshot);
+      publish(emitter);
+    }
+    if (checkpointPending) {
+      checkpoint();
+    }
+  }
+
+  private void applyPendingChanges() {
+    Optional<Engine.Factory> factory = pendingFactory.getAndSet(null);
+    if (factory != null) {
+      setFactory(factory.orElse(null));
+    }
+    if (resumePending) {
+      resumePending = false;
+      resume();
+    }
+    RandomSource source = pendingSource.getAndSet(null);
+    if (source != null) {
+      setSource(source);
+    }
+    BettingStrategy strategy = pendingStrategy.getAndSet(null);
+    if (strategy != null) {
+      this.strategy = strategy;
+      applyStrategy();
+    }
+    Rules rules = pendingRules.getAndSet(null);
+    if (rules != null && !rules.equals(this.rules)) {
+      this.rules = rules;
+      applyRules();
+      resetPending = true;
+    }
+    Optional<RollLogWriter> recorder = pendingRecorder.getAndSet(null);
+    if (recorder != null) {
+      setRecorder(recorder.orElse(null));
+    }
+    if (resetPending) {
+      resetPending = false;
+      wins = 0;
+      losses = 0;
+      statistics.reset();
+      checkpointPending = (checkpoints != null);
+    }
+  }
+
+  private void setSource(RandomSource source) {
+    if (source != this.source) {
+      // Engines (and their worker pools) are retained, so that alternating sources is cheap.
+      this.source = source;
+      engines = enginesBySource.computeIfAbsent(source, this::createEngines);
+      applyRules();
+      applyStrategy();
+      applyRecorder();
+    }
+  }
+
+  private void setFactory(Engine.Factory factory) {
+    this.factory = factory;
+    for (Map.Entry<RandomSource, Engine[]> entry : enginesBySource.entrySet()) {
+      RandomSource source = entry.getKey();
+      Engine[] engines = entry.getValue();
+      engines[Mode.SIMULATED.ordinal()].close();
+      engines[Mode.SIMULATED.ordinal()] = (factory != null)
+          ? factory.create(source, parallelism)
+          : new ParallelEngine(source, parallelism);
+    }
+    applyRules();
+    applyStrategy();
+    applyRecorder();
+  }
+
+  private Engine[] createEngines(RandomSource source) {
+    UniformRandomProvider rng = source.create();
+    Engine[] engines;
+    // Indexed by Mode ordinal.
+    if (rng instanceof LongJumpableUniformRandomProvider) {
+      LongJumpableUniformRandomProvider jumpable = (LongJumpableUniformRandomProvider) rng;
+      engines = new Engine[]{
+          (factory != null)
+              ? factory.create(source, parallelism)
+              : new ParallelEngine(jumpable, parallelism),
+          new SampledEngine(jumpable.jump()),
+          new AntitheticEngine(jumpable.longJump(), parallelism)
+      };
+    } else {
+      engines = new Engine[]{
+          (factory != null)
+              ? factory.create(source, parallelism)
+              : new ParallelEngine(source, parallelism),
+          new SampledEngine(rng),
+          new AntitheticEngine(source, parallelism)
+      };
+    }
+    return engines;
+  }
+
+  private void applyStrategy() {
+    for (Engine engine : engines) {
+      engine.setStrategy(strategy);
+    }
+  }
+
+  private void applyRules() {
+    for (Engine engine : engines) {
+      engine.setRules(rules);
+    }
+    statistics.setRules(rules);
+  }
+
+  private void applyRecorder() {
+    for (Engine engine : engines) {
+      engine.setRecorder(recorder);
+    }
+  }
+
+  private void setRecorder(RollLogWriter recorder) {
+    RollLogWriter previous = this.recorder;
+    this.recorder = recorder;
+    applyRecorder();
+    if (previous != null) {
+      try {
+        previous.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private void release() {
+    for (Engine[] engines : enginesBySource.values()) {
+      for (Engine engine : engines) {
+        engine.close();
+      }
+    }
+    Optional<RollLogWriter> recorder = pendingRecorder.getAndSet(null);
+    if (recorder != null) {
+      setRecorder(recorder.orElse(null));
+    }
+    setRecorder(null);
+    if (checkpoints != null) {
+      try {
+        checkpoints.close();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void resume() {
+    ByteBuffer data = checkpoints.read();
+    if (data != null) {
+      RandomSource previous = source;
+      Rules previousRules = rules;
+      ByteBuffer rollback = null;
+      try {
+        if (data.getInt() != CHECKPOINT_VERSION || (data.get() != 0) != (seededEngine != null)) {
+          throw new IllegalArgumentException();
+        }
+        byte[] name = new byte[data.get() & 0xff];
+        data.get(name);
+        RandomSource source = RandomSource.valueOf(new String(name, StandardCharsets.US_ASCII));
+        if (seededEngine != null && source != this.source) {
+          throw new IllegalArgumentException();
+        }
+        Rules rules = readRules(data);
+        setSource(source);
+        this.rules = rules;
+        applyRules();
+        // The engines may be restored partially before an incompatibility is detected; their
+        // current (initial) states are saved first, so that they can be rolled back.
+        rollback = checkpointBuffer;
+        rollback.clear();
+        for (Engine engine : engines) {
+          engine.saveState(rollback);
+        }
+        for (Engine engine : engines) {
+          engine.restoreState(data);
+        }
+        long wins = data.getLong();
+        long losses = data.getLong();
+        statistics.restore(data);
+        this.wins = wins;
+        this.losses = losses;
+      } catch (IllegalArgumentException | IllegalStateException | BufferUnderflowException e) {
+        // Incompatible checkpoint (e.g. different number of workers); start afresh.
+        rules = previousRules;
+        applyRules();
+        if (rollback != null) {
+          rollback.flip();
+          for (Engine engine : engines) {
+            engine.restoreState(rollback);
+          }
+        }
+        setSource(previous);
+        wins = 0;
+        losses = 0;
+        statistics.reset();
+      }
+    }
+    lastCheckpoint = System.nanoTime();
+  }
+
+  private void checkpoint() {
+    if (checkpoints != null) {
+      // The buffer is reused; only the bytes written are copied, for the background writer.
+      ByteBuffer data = checkpointBuffer;
+      data.clear();
+      byte[] name = source.name().getBytes(StandardCharsets.US_ASCII);
+      data.putInt(CHECKPOINT_VERSION).put((byte) ((seededEngine != null) ? 1 : 0));
+      data.put((byte) name.length).put(name);
+      writeRules(rules, data);
+      for (Engine engine : engines) {
+        engine.saveState(data);
+      }
+      data.putLong(wins).putLong(losses);
+      statistics.save(data);
+      checkpoints.write(Arrays.copyOf(data.array(), data.position()));
+      checkpointPending = false;
+      lastCheckpoint = System.nanoTime();
+    }
+  }
+
+  private void publish(FlowableEmitter<Snapshot> emitter) {
+    PrecisionTarget target = precisionTarget;
+    double confidence = (target != null) ? target.confidence : ConfidenceInterval.DEFAULT_CONFIDENCE;
+    ConfidenceInterval interval = ConfidenceInterval.wilson(wins, wins + losses, confidence);
+    long remaining = (target != null) ? interval.estimateRemainingTrials(target.halfWidth) : -1;
+    Snapshot snapshot = new Snapshot(
+        engine.getRound(), wins, losses, statistics.snapshot(), interval, remaining);
+    // Counted first, since delivery (and its count) may take place within onNext.
+    metrics.recordPublished();
+    emitter.onNext(snapshot);
+  }
+
+  private long play(int count) {
+    engine = engines[mode.ordinal()];
+    long rolls = statistics.getRolls();
+    long start = System.nanoTime();
+    long wins = engine.play(count, statistics);
+    long elapsed = System.nanoTime() - start;
+    this.wins += wins;
+    this.losses += count - wins;
+    checkpointPending = (checkpoints != null);
+    metrics.recordBatch(source, count, statistics.getRolls() - rolls, elapsed);
+    return elapsed;
+  }
+
+  private static void writeRules(Rules rules, ByteBuffer buffer) {
+    long naturals = 0;
+    long craps = 0;
+    for (int sum = 0; sum <= Rules.MAX_SUM; sum++) {
+      naturals |= rules.isNatural(sum) ? 1L << sum : 0;
+      craps |= rules.isCraps(sum) ? 1L << sum : 0;
+    }
+    buffer
+        .put((byte) rules.getNumDice())
+        .put((byte) rules.getNumSides())
+        .putLong(naturals)
+        .putLong(craps)
+        .put((byte) rules.getSevenOut());
+  }
+
+  private static Rules readRules(ByteBuffer buffer)
+      throws IllegalArgumentException, BufferUnderflowException {
+    int numDice = buffer.get();
+    int numSides = buffer.get();
+    long naturals = buffer.getLong();
+    long craps = buffer.getLong();
+    int sevenOut = buffer.get();
+    if (numDice != Round.NUM_DICE || numSides != Round.NUM_SIDES) {
+      throw new IllegalArgumentException();
+    }
+    return Rules.standard()
+        .withNaturals(sums(naturals))
+        .withCraps(sums(craps))
+        .withSevenOut(sevenOut);
+  }
+
+  private static int[] sums(long mask) {
+    int[] sums = new int[Long.bitCount(mask)];
+    long remaining = mask;
+    for (int i = 0; i < sums.length; i++, remaining &= remaining - 1) {
+      sums[i] = Long.numberOfTrailingZeros(remaining);
+    }
+    return sums;
+  }
+
+  private static final class PrecisionTarget {
+
+    private final double halfWidth;
+    private final double confidence;
+
+    private PrecisionTarget(double halfWidth, double confidence) {
+      this.halfWidth = halfWidth;
+      this.confidence = confidence;
+    }
+
+    private long remainingRounds(long wins, long rounds) {
+      return ConfidenceInterval
+          .wilson(wins, rounds, confidence)
+          .estimateRemainingTrials(halfWidth);
+    }
+
+  }
+
+  /**
+   * Enumerates the available modes of simulation.
+   */
+  public enum Mode {
+    /** Every die of every round is rolled, with each batch split across multiple workers. */
+    SIMULATED,
+    /** The outcome of each round is sampled directly from its exact distribution. */
+    SAMPLED,
+    /**
+     * Every die of every round is rolled, in antithetic pairs of rounds, with each batch split
+     * across multiple workers; the statistics include a variance-reduced estimate of the win rate.
+     */
+    ANTITHETIC
+  }
+
+}
@@ -0,0 +1,131 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.service;
+
+import edu.cnm.deepdive.crapssimulator.model.BettingStrategy;
+import edu.cnm.deepdive.crapssimulator.model.Round;
+import edu.cnm.deepdive.crapssimulator.model.Rules;
+import edu.cnm.deepdive.crapssimulator.model.StatisticsAccumulator;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import org.apache.commons.rng.simple.RandomSource;
+
+/**
+ * Declares the basic operations of a Craps simulation engine: simulating a batch of rounds, and
+ * returning the most recently completed {@link Round} of that batch, for inclusion in a snapshot.
+ * An engine that splits batches across worker threads holds those threads until it's closed.
+ */
+public interface Engine extends AutoCloseable {
+
+  /**
+   * Simulates a batch of rounds, of the specified size, returning the number of wins. The outcome of
+   * each round is also added to the specified {@link StatisticsAccumulator}.
+   *
+   * @param rounds Number of rounds to be simulated.
+   * @param statistics Destination of round outcomes.
+   * @return Number of rounds (out of {@code rounds}) won.
+   */
+  long play(int rounds, StatisticsAccumulator statistics);
+
+  /**
+   * Sets the {@link BettingStrategy} evaluated on each roll of subsequent batches. The action and
+   * net result of each round are added to the {@link StatisticsAccumulator} passed to {@link
+   * #play(int, StatisticsAccumulator)}.
+   *
+   * @param strategy Amounts wagered on each bet; {@link BettingStrategy#none()} for no wagering.
+   */
+  void setStrategy(BettingStrategy strategy);
+
+  /**
+   * Sets the {@link Rules} variant of subsequent batches; the engines initially play by the {@link
+   * Rules#standard() standard rules}. The wagers of the current {@link BettingStrategy} are
+   * resolved by the same rules; any come and don't come bets still working are abandoned.
+   *
+   * @param rules {@link Rules} variant, with {@link Round#NUM_DICE} dice of {@link
+   *     Round#NUM_SIDES} sides.
+   * @throws IllegalArgumentException If {@code rules} has different dice.
+   */
+  void setRules(Rules rules) throws IllegalArgumentException;
+
+  /**
+   * Sets the {@link RollLogWriter} to which every roll of subsequent batches is appended, in the
+   * order of the rounds. The writer is flushed at the end of each batch.
+   *
+   * @param recorder Destination of rolls; {@code null} to stop recording.
+   */
+  void setRecorder(RollLogWriter recorder);
+
+  /**
+   * Writes the state of the source(s) of randomness of this engine to the specified buffer. After
+   * this state is restored with {@link #restoreState(ByteBuffer)}&mdash;in this or another instance
+   * constructed with the same parameters&mdash;the engine produces the same sequence of rounds for
+   * the same sequence of batch sizes.
+   *
+   * @param buffer Destination of the state.
+   */
+  void saveState(ByteBuffer buffer);
+
+  /**
+   * Restores the state of the source(s) of randomness of this engine from the specified buffer, as
+   * written by {@link #saveState(ByteBuffer)}. If an exception is thrown, the state of this engine
+   * is unchanged.
+   *
+   * @param buffer Source of the state.
+   * @throws IllegalArgumentException If the saved state is for an engine with a different
+   *     configuration.
+   * @throws BufferUnderflowException If {@code buffer} doesn't contain a complete state.
+   */
+  void restoreState(ByteBuffer buffer) throws IllegalArgumentException, BufferUnderflowException;
+
+  /**
+   * Returns the last {@link Round} played in the most recent batch. The rolls of this round are
+   * retained, so that they may be included in a snapshot.
+   *
+   * @return {@link Round}
+   */
+  Round getRound();
+
+  /**
+   * Releases the worker threads (if any) of this engine; no further batches may be played after
+   * this method is invoked. The default implementation does nothing.
+   */
+  @Override
+  default void close() {
+    // No worker threads by default.
+  }
+
+  /**
+   * Creates engines for a {@link CrapsRepository}; see {@link
+   * CrapsRepository#setEngineFactory(Factory)}.
+   */
+  @FunctionalInterface
+  interface Factory {
+
+    /**
+     * Returns a new engine, using randomly seeded streams of the specified source of randomness,
+     * and the specified number of workers. For compatibility of checkpoints with those of the
+     * default engine, the saved state should be that of {@code parallelism} streams, as written by
+     * {@link RandomStreams#saveStates(org.apache.commons.rng.UniformRandomProvider[], ByteBuffer)}.
+     *
+     * @param source Source of randomness.
+     * @param parallelism Number of worker threads (and independent streams) to use.
+     * @return {@link Engine}
+     */
+    Engine create(RandomSource source, int parallelism);
+
+  }
+
+}
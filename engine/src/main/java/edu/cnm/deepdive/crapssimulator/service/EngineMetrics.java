@@ -0,0 +1,460 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.service;
+
+import edu.cnm.deepdive.crapssimulator.model.Snapshot;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.apache.commons.rng.simple.RandomSource;
+
+/**
+ * Collects performance metrics of a {@link CrapsRepository}: the number of rounds and rolls
+ * simulated, and the time spent simulating them; the distribution of batch durations; and the
+ * number of snapshots published, delivered to the subscriber, and dropped under backpressure,
+ * along with the distribution of the latency between publication and delivery. Optionally, the
+ * number of bytes allocated per round is estimated from an external allocation counter.
+ * <p>Throughput is also tallied separately for each {@link RandomSource} used by the simulation
+ * (see {@link CrapsRepository#setRandomSource(RandomSource)}), so that sources may be compared;
+ * since the throughput of the modes of simulation differs widely, sources should be compared only
+ * over batches simulated in the same mode.</p>
+ * <p>All updates are lock-free and allocation-free (a few {@link LongAdder} increments per batch or
+ * snapshot, rather than per round), so metrics are always collected; they may be read from any
+ * thread while a simulation is running. Values read while a batch or snapshot is being recorded may
+ * be momentarily inconsistent with each other.</p>
+ */
+public final class EngineMetrics {
+
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final LongAdder rounds;
+  private final LongAdder rolls;
+  private final LongAdder busyNanos;
+  private final Histogram batchDurations;
+  private final LongAdder published;
+  private final LongAdder delivered;
+  private final Histogram publishLatencies;
+  private final ConcurrentMap<RandomSource, Throughput> throughputs;
+
+  private volatile Listener listener;
+  private volatile AllocationBaseline allocationBaseline;
+
+  EngineMetrics() {
+    rounds = new LongAdder();
+    rolls = new LongAdder();
+    busyNanos = new LongAdder();
+    batchDurations = new Histogram();
+    published = new LongAdder();
+    delivered = new LongAdder();
+    publishLatencies = new Histogram();
+    throughputs = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Returns the total number of rounds simulated.
+   *
+   * @return {@code long}
+   */
+  public long getRounds() {
+    return rounds.sum();
+  }
+
+  /**
+   * Returns the total number of rolls in the rounds simulated.
+   *
+   * @return {@code long}
+   */
+  public long getRolls() {
+    return rolls.sum();
+  }
+
+  /**
+   * Returns the total time spent simulating batches of rounds, in nanoseconds. Time spent idle, or
+   * publishing snapshots, is not included.
+   *
+   * @return {@code long}
+   */
+  public long getBusyNanos() {
+    return busyNanos.sum();
+  }
+
+  /**
+   * Returns the mean simulation rate, in rounds per second of simulation time (see {@link
+   * #getBusyNanos()}).
+   *
+   * @return {@code double}
+   */
+  public double getRoundsPerSecond() {
+    return rate(getRounds());
+  }
+
+  /**
+   * Returns the mean simulation rate, in rolls per second of simulation time (see {@link
+   * #getBusyNanos()}).
+   *
+   * @return {@code double}
+   */
+  public double getRollsPerSecond() {
+    return rate(getRolls());
+  }
+
+  /**
+   * Returns the sources of randomness used in the batches simulated so far.
+   *
+   * @return Unmodifiable {@link Set}&lt;{@link RandomSource}&gt;, in declaration order.
+   */
+  public Set<RandomSource> getSources() {
+    Set<RandomSource> sources = EnumSet.noneOf(RandomSource.class);
+    sources.addAll(throughputs.keySet());
+    return Collections.unmodifiableSet(sources);
+  }
+
+  /**
+   * Returns the {@link Throughput} of the batches simulated with the specified source of
+   * randomness.
+   *
+   * @param source Source of randomness.
+   * @return {@link Throughput}, or {@code null} if no batches have been simulated with {@code
+   *     source}.
+   */
+  public Throughput getThroughput(RandomSource source) {
+    return throughputs.get(source);
+  }
+
+  /**
+   * Returns the {@link Histogram} of batch durations, in nanoseconds.
+   *
+   * @return {@link Histogram}
+   */
+  public Histogram getBatchDurations() {
+    return batchDurations;
+  }
+
+  /**
+   * Returns the number of snapshots published by the simulation.
+   *
+   * @return {@code long}
+   */
+  public long getSnapshotsPublished() {
+    return published.sum();
+  }
+
+  /**
+   * Returns the number of published snapshots delivered downstream of the backpressure buffer of
+   * {@link CrapsRepository#getSnapshots()}&mdash;that is, to the subscriber, or to the first
+   * operator (e.g. {@code observeOn}) between the returned {@code Flowable} and the subscriber.
+   *
+   * @return {@code long}
+   */
+  public long getSnapshotsDelivered() {
+    return delivered.sum();
+  }
+
+  /**
+   * Returns the number of published snapshots not delivered: those discarded because the subscriber
+   * wasn't ready for them, plus (at most) one still waiting to be delivered.
+   *
+   * @return {@code long}
+   */
+  public long getSnapshotsDropped() {
+    long delivered = getSnapshotsDelivered();
+    // Read after delivered, so that a concurrent publication can't yield a negative count.
+    return Math.max(0, getSnapshotsPublished() - delivered);
+  }
+
+  /**
+   * Returns the {@link Histogram} of latencies, in nanoseconds, between the publication of
+   * snapshots and their delivery (see {@link #getSnapshotsDelivered()}).
+   *
+   * @return {@link Histogram}
+   */
+  public Histogram getPublishLatencies() {
+    return publishLatencies;
+  }
+
+  /**
+   * Returns the mean number of bytes allocated per round simulated since the allocation counter was
+   * set, or {@link Double#NaN} if no allocation counter is set, or no rounds have been simulated
+   * since.
+   *
+   * @return {@code double}
+   * @see #setAllocationCounter(LongSupplier)
+   */
+  public double getBytesPerRound() {
+    AllocationBaseline baseline = allocationBaseline;
+    double bytesPerRound = Double.NaN;
+    if (baseline != null) {
+      long rounds = getRounds() - baseline.rounds;
+      if (rounds > 0) {
+        bytesPerRound = (double) (baseline.counter.getAsLong() - baseline.bytes) / rounds;
+      }
+    }
+    return bytesPerRound;
+  }
+
+  /**
+   * Sets the source of allocation counts used by {@link #getBytesPerRound()}. Allocation counters
+   * are platform-specific, so none is set by default; on a HotSpot JVM, for example, the total of
+   * {@code com.sun.management.ThreadMXBean.getThreadAllocatedBytes} over all threads may be used.
+   * The counter is read only when {@link #getBytesPerRound()} is invoked (and once when set, as a
+   * baseline); it should count allocations by at least the simulation and worker threads, and the
+   * estimate includes whatever else it counts.
+   *
+   * @param counter Source of the cumulative number of bytes allocated, or {@code null} to clear.
+   */
+  public void setAllocationCounter(LongSupplier counter) {
+    allocationBaseline = (counter != null)
+        ? new AllocationBaseline(counter, counter.getAsLong(), getRounds())
+        : null;
+  }
+
+  /**
+   * Sets the {@link Listener} notified of each batch, replacing any previously set.
+   *
+   * @param listener Consumer of batch metrics, or {@code null} to clear.
+   */
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  void recordBatch(RandomSource source, int rounds, long rolls, long nanos) {
+    this.rounds.add(rounds);
+    this.rolls.add(rolls);
+    busyNanos.add(nanos);
+    throughputs.computeIfAbsent(source, (key) -> new Throughput()).record(rounds, rolls, nanos);
+    batchDurations.record(nanos);
+    Listener listener = this.listener;
+    if (listener != null) {
+      listener.onBatch(rounds, rolls, nanos);
+    }
+  }
+
+  void recordPublished() {
+    published.increment();
+  }
+
+  void recordDelivered(Snapshot snapshot) {
+    delivered.increment();
+    publishLatencies.record(System.nanoTime() - snapshot.getTimestamp());
+  }
+
+  private double rate(long count) {
+    return rate(count, getBusyNanos());
+  }
+
+  private static double rate(long count, long nanos) {
+    return (nanos > 0) ? count * NANOS_PER_SECOND / nanos : 0;
+  }
+
+  /**
+   * Receives the metrics of each batch, as it completes. Methods of this interface are invoked on
+   * the simulation thread, between batches; implementations should return quickly.
+   */
+  @FunctionalInterface
+  public interface Listener {
+
+    /**
+     * Handles the metrics of a completed batch.
+     *
+     * @param rounds Number of rounds in the batch.
+     * @param rolls Number of rolls in the rounds of the batch.
+     * @param nanos Elapsed time of the batch, in nanoseconds.
+     */
+    void onBatch(int rounds, long rolls, long nanos);
+
+  }
+
+  /**
+   * Tallies the rounds and rolls simulated, and the time spent simulating them, with a single
+   * source of randomness.
+   */
+  public static final class Throughput {
+
+    private final LongAdder rounds;
+    private final LongAdder rolls;
+    private final LongAdder busyNanos;
+
+    Throughput() {
+      rounds = new LongAdder();
+      rolls = new LongAdder();
+      busyNanos = new LongAdder();
+    }
+
+    /**
+     * Returns the number of rounds simulated.
+     *
+     * @return {@code long}
+     */
+    public long getRounds() {
+      return rounds.sum();
+    }
+
+    /**
+     * Returns the number of rolls in the rounds simulated.
+     *
+     * @return {@code long}
+     */
+    public long getRolls() {
+      return rolls.sum();
+    }
+
+    /**
+     * Returns the time spent simulating batches of rounds, in nanoseconds.
+     *
+     * @return {@code long}
+     */
+    public long getBusyNanos() {
+      return busyNanos.sum();
+    }
+
+    /**
+     * Returns the mean simulation rate, in rounds per second of simulation time.
+     *
+     * @return {@code double}
+     */
+    public double getRoundsPerSecond() {
+      return rate(getRounds(), getBusyNanos());
+    }
+
+    /**
+     * Returns the mean simulation rate, in rolls per second of simulation time.
+     *
+     * @return {@code double}
+     */
+    public double getRollsPerSecond() {
+      return rate(getRolls(), getBusyNanos());
+    }
+
+    void record(int rounds, long rolls, long nanos) {
+      this.rounds.add(rounds);
+      this.rolls.add(rolls);
+      busyNanos.add(nanos);
+    }
+
+  }
+
+  /**
+   * Counts non-negative values (e.g. durations, in nanoseconds) in logarithmic buckets, with 4
+   * buckets per power of 2, so that percentiles can be estimated with a relative error of at most
+   * 25%, in constant memory. Values are recorded without locking or allocation.
+   */
+  public static final class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int NUM_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts;
+    private final LongAdder count;
+
+    Histogram() {
+      counts = new AtomicLongArray(NUM_BUCKETS);
+      count = new LongAdder();
+    }
+
+    /**
+     * Returns the number of values recorded.
+     *
+     * @return {@code long}
+     */
+    public long getCount() {
+      return count.sum();
+    }
+
+    /**
+     * Returns an estimate of the specified percentile of the values recorded: the upper bound of
+     * the bucket containing that percentile, or 0 if no values have been recorded.
+     *
+     * @param percentile Percentile, from 0 to 100.
+     * @return {@code long}
+     * @throws IllegalArgumentException If {@code percentile} is not in the range 0 to 100.
+     */
+    public long getPercentile(double percentile) throws IllegalArgumentException {
+      if (!(percentile >= 0 && percentile <= 100)) {
+        throw new IllegalArgumentException();
+      }
+      long[] snapshot = new long[NUM_BUCKETS];
+      long total = 0;
+      for (int i = 0; i < NUM_BUCKETS; i++) {
+        snapshot[i] = counts.get(i);
+        total += snapshot[i];
+      }
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+      long value = 0;
+      long cumulative = 0;
+      for (int i = 0; i < NUM_BUCKETS && total > 0; i++) {
+        cumulative += snapshot[i];
+        if (cumulative >= rank) {
+          value = upperBound(i);
+          break;
+        }
+      }
+      return value;
+    }
+
+    void record(long value) {
+      counts.incrementAndGet(bucket(Math.max(0, value)));
+      count.increment();
+    }
+
+    static int bucket(long value) {
+      int bucket;
+      if (value < SUB_BUCKETS) {
+        bucket = (int) value;
+      } else {
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        bucket = (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+      }
+      return bucket;
+    }
+
+    static long upperBound(int bucket) {
+      long bound;
+      if (bucket < SUB_BUCKETS) {
+        bound = bucket;
+      } else {
+        int shift = bucket / SUB_BUCKETS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        long next = (SUB_BUCKETS + sub + 1) << shift;
+        bound = (next > 0) ? next - 1 : Long.MAX_VALUE;
+      }
+      return bound;
+    }
+
+  }
+
+  private static final class AllocationBaseline {
+
+    private final LongSupplier counter;
+    private final long bytes;
+    private final long rounds;
+
+    private AllocationBaseline(LongSupplier counter, long bytes, long rounds) {
+      this.counter = counter;
+      this.bytes = bytes;
+      this.rounds = rounds;
+    }
+
+  }
+
+}
@@ -0,0 +1,232 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.service;
+
+import edu.cnm.deepdive.crapssimulator.model.BettingStrategy;
+import edu.cnm.deepdive.crapssimulator.model.DiceSource;
+import edu.cnm.deepdive.crapssimulator.model.RollTape;
+import edu.cnm.deepdive.crapssimulator.model.Round;
+import edu.cnm.deepdive.crapssimulator.model.Rules;
+import edu.cnm.deepdive.crapssimulator.model.StatisticsAccumulator;
+import edu.cnm.deepdive.crapssimulator.model.Wagering;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import org.apache.commons.rng.JumpableUniformRandomProvider;
+import org.apache.commons.rng.UniformRandomProvider;
+import org.apache.commons.rng.simple.RandomSource;
+
+/**
+ * Splits each batch of rounds across a pool of worker threads. Each worker has its own {@link
+ * Round}, and its own source of randomness, obtained by jumping the provided generator; since jumps
+ * advance the state of the generator by a very large number of steps, the worker streams don't
+ * overlap in practice. (When constructed from a {@link RandomSource} that isn't jumpable, each
+ * worker stream is seeded independently instead.) The win tallies of the workers are summed, and
+ * their statistics merged, on completion of each batch. Since the division of each batch among the
+ * workers depends only on its size, the sequence of rounds is reproducible from a saved state, for
+ * the same batch sizes.
+ * <p>While the rolls are recorded, each batch is played in parts of at most {@link
+ * RollLogWriter#TAPE_ROUNDS} rounds per worker, each appended to the log as it completes, so that
+ * the memory holding unwritten rolls is bounded regardless of the batch size.</p>
+ */
+public class ParallelEngine implements Engine {
+
+  private static final int MIN_ROUNDS_PER_WORKER = 1_000;
+
+  private final ForkJoinPool pool;
+  private final UniformRandomProvider[] sources;
+  private final DiceSource[] dice;
+  private final Round[] workers;
+  private final StatisticsAccumulator[] accumulators;
+  private final RollTape[] tapes;
+
+  private Round round;
+  private Rules rules;
+  private BettingStrategy strategy;
+  private RollLogWriter recorder;
+
+  /**
+   * Initializes this instance with the specified source of randomness and number of workers.
+   *
+   * @param rng Jumpable source of randomness, from which the worker streams are derived.
+   * @param parallelism Number of worker threads (and independent streams) to use.
+   */
+  public ParallelEngine(JumpableUniformRandomProvider rng, int parallelism) {
+    this(RandomStreams.split(rng, validate(parallelism)));
+  }
+
+  /**
+   * Initializes this instance with randomly seeded streams of the specified source of randomness,
+   * and the specified number of workers.
+   *
+   * @param source Source of randomness, from which the worker streams are created.
+   * @param parallelism Number of worker threads (and independent streams) to use.
+   */
+  public ParallelEngine(RandomSource source, int parallelism) {
+    this(RandomStreams.create(source, validate(parallelism)));
+  }
+
+  /**
+   * Initializes this instance with the specified worker streams, one per worker. The streams are
+   * used (and their states saved and restored) directly, so they may be shared with another engine
+   * that plays alternate batches with them, as long as neither buffers values across batches.
+   *
+   * @param sources Worker streams (e.g. as created by {@link RandomStreams#create(RandomSource,
+   *     int)}).
+   */
+  public ParallelEngine(UniformRandomProvider[] sources) {
+    int parallelism = validate(sources.length);
+    pool = (parallelism > 1) ? new ForkJoinPool(parallelism) : null;
+    this.sources = sources;
+    dice = new DiceSource[parallelism];
+    workers = new Round[parallelism];
+    accumulators = new StatisticsAccumulator[parallelism];
+    tapes = new RollTape[parallelism];
+    for (int i = 0; i < parallelism; i++) {
+      dice[i] = DiceSource.create(sources[i], Round.NUM_DICE, Round.NUM_SIDES);
+      workers[i] = new Round(dice[i]);
+      accumulators[i] = new StatisticsAccumulator();
+      workers[i].setStatistics(accumulators[i]);
+      tapes[i] = new RollTape(RollLogWriter.INDEX_INTERVAL);
+    }
+    round = workers[0];
+    rules = Rules.standard();
+    strategy = BettingStrategy.none();
+  }
+
+  @Override
+  public long play(int rounds, StatisticsAccumulator statistics) {
+    // While recording, the batch is played in parts, so that the tapes remain small.
+    int maxRounds = (recorder != null) ? workers.length * RollLogWriter.TAPE_ROUNDS : rounds;
+    long wins = 0;
+    int remaining = rounds;
+    do {
+      int count = Math.min(remaining, maxRounds);
+      wins += playPart(count, statistics);
+      remaining -= count;
+    } while (remaining > 0);
+    if (recorder != null) {
+      recorder.flush();
+    }
+    return wins;
+  }
+
+  @Override
+  public void setStrategy(BettingStrategy strategy) {
+    this.strategy = strategy;
+    for (int i = 0; i < workers.length; i++) {
+      workers[i].setListener(
+          strategy.isEmpty() ? null : new Wagering(strategy, accumulators[i], rules));
+    }
+  }
+
+  @Override
+  public void setRules(Rules rules) {
+    for (Round worker : workers) {
+      worker.setRules(rules);
+    }
+    this.rules = rules;
+    setStrategy(strategy);
+  }
+
+  @Override
+  public void setRecorder(RollLogWriter recorder) {
+    this.recorder = recorder;
+    for (int i = 0; i < workers.length; i++) {
+      tapes[i].clear();
+      workers[i].setTape((recorder != null) ? tapes[i] : null);
+    }
+  }
+
+  @Override
+  public void saveState(ByteBuffer buffer) {
+    RandomStreams.saveStates(sources, buffer);
+  }
+
+  @Override
+  public void restoreState(ByteBuffer buffer) {
+    RandomStreams.restoreStates(sources, buffer);
+  }
+
+  @Override
+  public Round getRound() {
+    return round;
+  }
+
+  @Override
+  public void close() {
+    if (pool != null) {
+      pool.shutdown();
+    }
+  }
+
+  static int validate(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException();
+    }
+    return parallelism;
+  }
+
+  private long playPart(int rounds, StatisticsAccumulator statistics) {
+    int numWorkers = Math.max(1, Math.min(workers.length, rounds / MIN_ROUNDS_PER_WORKER));
+    long wins;
+    if (numWorkers == 1) {
+      wins = play(workers[0], rounds, true);
+      round = workers[0];
+    } else {
+      List<ForkJoinTask<Long>> tasks = new ArrayList<>(numWorkers);
+      int chunk = rounds / numWorkers;
+      int remainder = rounds % numWorkers;
+      for (int i = 0; i < numWorkers; i++) {
+        Round worker = workers[i];
+        int count = chunk + ((i < remainder) ? 1 : 0);
+        boolean last = (i == numWorkers - 1);
+        tasks.add(pool.submit(() -> play(worker, count, last)));
+      }
+      wins = 0;
+      for (ForkJoinTask<Long> task : tasks) {
+        wins += task.join();
+      }
+      round = workers[numWorkers - 1];
+    }
+    for (int i = 0; i < numWorkers; i++) {
+      // Buffered dice values aren't part of the saved state; discarding them keeps it complete.
+      dice[i].discardBuffered();
+      statistics.merge(accumulators[i]);
+      accumulators[i].reset();
+    }
+    if (recorder != null) {
+      for (int i = 0; i < numWorkers; i++) {
+        recorder.append(tapes[i]);
+        tapes[i].clear();
+      }
+    }
+    return wins;
+  }
+
+  private static long play(Round round, int count, boolean recordLast) {
+    long wins = 0;
+    for (int i = 0; i < count; i++) {
+      if (round.play(recordLast && i == count - 1)) {
+        wins++;
+      }
+    }
+    return wins;
+  }
+
+}
@@ -0,0 +1,160 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.service;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import org.apache.commons.rng.JumpableUniformRandomProvider;
+import org.apache.commons.rng.RestorableUniformRandomProvider;
+import org.apache.commons.rng.UniformRandomProvider;
+import org.apache.commons.rng.core.RandomProviderDefaultState;
+import org.apache.commons.rng.simple.RandomSource;
+
+/**
+ * Creates independent streams of random numbers for the workers of an engine, and saves and
+ * restores the states of providers, for checkpointing. Saving and restoring state requires a {@link
+ * RestorableUniformRandomProvider}, as are all of the providers implemented in {@code
+ * commons-rng-core}. These methods are also available to engines implemented outside this package
+ * (see {@link Engine.Factory}).
+ */
+public final class RandomStreams {
+
+  private RandomStreams() {
+    // Static methods only.
+  }
+
+  /**
+   * Returns the specified number of streams of the specified source. If the source is jumpable,
+   * the streams are obtained by successive jumps from a single randomly seeded instance, so they
+   * are guaranteed not to overlap (in practice); otherwise, each stream is seeded separately, from
+   * the source's default seed generator, so the streams are overlapping with negligible
+   * probability.
+   *
+   * @param source Source of randomness.
+   * @param count Number of streams.
+   * @return Array of {@code count} independent providers.
+   */
+  public static UniformRandomProvider[] create(RandomSource source, int count) {
+    UniformRandomProvider root = source.create();
+    UniformRandomProvider[] streams;
+    if (root instanceof JumpableUniformRandomProvider) {
+      streams = split((JumpableUniformRandomProvider) root, count);
+    } else {
+      streams = new UniformRandomProvider[count];
+      streams[0] = root;
+      for (int i = 1; i < count; i++) {
+        streams[i] = source.create();
+      }
+    }
+    return streams;
+  }
+
+  /**
+   * Returns the specified number of streams, obtained by successive jumps of the specified
+   * provider.
+   *
+   * @param rng Jumpable source of randomness.
+   * @param count Number of streams.
+   * @return Array of {@code count} independent providers.
+   */
+  public static UniformRandomProvider[] split(JumpableUniformRandomProvider rng, int count) {
+    UniformRandomProvider[] streams = new UniformRandomProvider[count];
+    for (int i = 0; i < count; i++) {
+      streams[i] = rng.jump();
+    }
+    return streams;
+  }
+
+  /**
+   * Writes the state of the specified provider to the specified buffer, prefixed by its length.
+   *
+   * @param provider Restorable source of randomness.
+   * @param buffer Destination of the state.
+   */
+  public static void saveState(UniformRandomProvider provider, ByteBuffer buffer) {
+    byte[] state = ((RandomProviderDefaultState)
+        ((RestorableUniformRandomProvider) provider).saveState()).getState();
+    buffer.putInt(state.length).put(state);
+  }
+
+  /**
+   * Reads a provider state, as written by {@link #saveState(UniformRandomProvider, ByteBuffer)},
+   * from the specified buffer, without applying it.
+   *
+   * @param buffer Source of the state.
+   * @return State of a provider.
+   * @throws BufferUnderflowException If {@code buffer} doesn't contain a complete state.
+   */
+  public static byte[] readState(ByteBuffer buffer) throws BufferUnderflowException {
+    int length = buffer.getInt();
+    if (length < 0 || length > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    byte[] state = new byte[length];
+    buffer.get(state);
+    return state;
+  }
+
+  /**
+   * Restores the specified provider to the specified state, as read by {@link
+   * #readState(ByteBuffer)}.
+   *
+   * @param provider Restorable source of randomness.
+   * @param state State of a provider of the same type.
+   */
+  public static void restoreState(UniformRandomProvider provider, byte[] state) {
+    ((RestorableUniformRandomProvider) provider)
+        .restoreState(new RandomProviderDefaultState(state));
+  }
+
+  /**
+   * Writes the states of the specified providers to the specified buffer, prefixed by their count.
+   *
+   * @param providers Restorable sources of randomness.
+   * @param buffer Destination of the states.
+   */
+  public static void saveStates(UniformRandomProvider[] providers, ByteBuffer buffer) {
+    buffer.putInt(providers.length);
+    for (UniformRandomProvider provider : providers) {
+      saveState(provider, buffer);
+    }
+  }
+
+  /**
+   * Restores the specified providers to the states read from the specified buffer, as written by
+   * {@link #saveStates(UniformRandomProvider[], ByteBuffer)}. If an exception is thrown, none of
+   * the providers is modified.
+   *
+   * @param providers Restorable sources of randomness.
+   * @param buffer Source of the states.
+   * @throws IllegalArgumentException If the number of states doesn't match the number of providers.
+   * @throws BufferUnderflowException If {@code buffer} doesn't contain all of the states.
+   */
+  public static void restoreStates(UniformRandomProvider[] providers, ByteBuffer buffer)
+      throws IllegalArgumentException, BufferUnderflowException {
+    if (buffer.getInt() != providers.length) {
+      throw new IllegalArgumentException();
+    }
+    byte[][] states = new byte[providers.length][];
+    for (int i = 0; i < states.length; i++) {
+      states[i] = readState(buffer);
+    }
+    for (int i = 0; i < states.length; i++) {
+      restoreState(providers[i], states[i]);
+    }
+  }
+
+}
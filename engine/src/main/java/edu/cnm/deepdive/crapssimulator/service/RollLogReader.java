@@ -0,0 +1,233 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.service;
+
+import edu.cnm.deepdive.crapssimulator.model.DiceSource;
+import edu.cnm.deepdive.crapssimulator.model.PackedRolls;
+import edu.cnm.deepdive.crapssimulator.model.Roll;
+import edu.cnm.deepdive.crapssimulator.model.Round;
+import edu.cnm.deepdive.crapssimulator.model.Rules;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads the rolls of individual rounds from a log written by {@link RollLogWriter}. The index is
+ * searched for the last indexed round at or before the requested round; from there, rounds are
+ * replayed by a {@link Round} whose {@link DiceSource} reads the logged rolls, so the round
+ * boundaries are determined by exactly the same rules that produced them. (The log doesn't hold
+ * the {@link Rules} variant; a log written under a variant must be read with that variant.) Only
+ * the rounds written (and flushed) before the reader was opened are visible.
+ */
+public class RollLogReader implements Closeable {
+
+  private final File directory;
+  private final Rules rules;
+  private final FileChannel index;
+  private final MappedByteBuffer entries;
+  private final long roundCount;
+  private final long rollCount;
+  private final int entryCount;
+  private final List<MappedByteBuffer> segments;
+
+  /**
+   * Opens the log in the specified directory for reading, replaying rounds by the {@link
+   * Rules#standard() standard rules}.
+   *
+   * @param directory Directory holding the index and segment files.
+   * @throws IOException If the log can't be opened, or is invalid.
+   */
+  public RollLogReader(File directory) throws IOException {
+    this(directory, Rules.standard());
+  }
+
+  /**
+   * Opens the log in the specified directory for reading, replaying rounds by the specified rules.
+   *
+   * @param directory Directory holding the index and segment files.
+   * @param rules {@link Rules} variant under which the log was written.
+   * @throws IOException If the log can't be opened, or is invalid.
+   * @throws IllegalArgumentException If {@code rules} doesn't have {@link Round#NUM_DICE} dice of
+   *     {@link Round#NUM_SIDES} sides.
+   */
+  public RollLogReader(File directory, Rules rules) throws IOException, IllegalArgumentException {
+    if (rules.getNumDice() != Round.NUM_DICE || rules.getNumSides() != Round.NUM_SIDES) {
+      throw new IllegalArgumentException();
+    }
+    this.directory = directory;
+    this.rules = rules;
+    index = FileChannel.open(
+        new File(directory, RollLogWriter.INDEX_FILE_NAME).toPath(), StandardOpenOption.READ);
+    ByteBuffer header = ByteBuffer.allocate(RollLogWriter.HEADER_SIZE);
+    RollLogWriter.readFully(index, header, 0);
+    if (header.getInt(0) != RollLogWriter.MAGIC
+        || header.getInt(4) != RollLogWriter.INDEX_INTERVAL) {
+      throw new IOException("Invalid roll log index");
+    }
+    roundCount = header.getLong(8);
+    rollCount = header.getLong(16);
+    entryCount = (int) header.getLong(24);
+    entries = index.map(MapMode.READ_ONLY, RollLogWriter.HEADER_SIZE,
+        (long) entryCount * RollLogWriter.ENTRY_SIZE);
+    segments = new ArrayList<>();
+  }
+
+  /**
+   * Returns the number of rounds in the log.
+   *
+   * @return {@code long}
+   */
+  public long getRoundCount() {
+    return roundCount;
+  }
+
+  /**
+   * Returns the number of rolls in the log.
+   *
+   * @return {@code long}
+   */
+  public long getRollCount() {
+    return rollCount;
+  }
+
+  /**
+   * Returns the rolls of the specified round, as an unmodifiable {@link List List&lt;Roll&gt;}.
+   *
+   * @param round Number (0-based) of the round in the log.
+   * @return {@link List List&lt;Roll&gt;}
+   * @throws IndexOutOfBoundsException If {@code round} is negative, or not less than {@link
+   *     #getRoundCount()}.
+   * @throws IOException If a segment file can't be read.
+   */
+  public List<Roll> getRolls(long round) throws IndexOutOfBoundsException, IOException {
+    if (round < 0 || round >= roundCount) {
+      throw new IndexOutOfBoundsException();
+    }
+    int entry = search(round);
+    Round replay = new Round(new Replay(offset(entry)), rules);
+    try {
+      for (long skip = entryRound(entry); skip < round; skip++) {
+        replay.play(false);
+      }
+      replay.play(true);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    return Collections.unmodifiableList(new ArrayList<>(replay.getRolls()));
+  }
+
+  @Override
+  public void close() throws IOException {
+    index.close();
+  }
+
+  private int search(long round) {
+    int low = 0;
+    int high = entryCount - 1;
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      if (entryRound(middle) <= round) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low;
+  }
+
+  private long entryRound(int entry) {
+    return entries.getLong(entry * RollLogWriter.ENTRY_SIZE);
+  }
+
+  private long offset(int entry) {
+    return entries.getLong(entry * RollLogWriter.ENTRY_SIZE + Long.BYTES);
+  }
+
+  private MappedByteBuffer segment(int number) throws IOException {
+    while (segments.size() <= number) {
+      segments.add(null);
+    }
+    MappedByteBuffer segment = segments.get(number);
+    if (segment == null) {
+      segment = RollLogWriter.map(directory, number, MapMode.READ_ONLY);
+      segments.set(number, segment);
+    }
+    return segment;
+  }
+
+  private class Replay implements DiceSource {
+
+    private long position;
+
+    private Replay(long position) {
+      this.position = position;
+    }
+
+    @Override
+    public int getNumDice() {
+      return Round.NUM_DICE;
+    }
+
+    @Override
+    public int getNumSides() {
+      return Round.NUM_SIDES;
+    }
+
+    @Override
+    public int roll(int[] dice) {
+      byte code = next();
+      for (int i = 0; i < Round.NUM_DICE; i++) {
+        dice[i] = PackedRolls.die(code, i);
+      }
+      return PackedRolls.value(code);
+    }
+
+    @Override
+    public int rollSum() {
+      return PackedRolls.value(next());
+    }
+
+    @Override
+    public int rollOutcome() {
+      return next() & 0xff;
+    }
+
+    private byte next() {
+      if (position >= rollCount) {
+        throw new IllegalStateException("Round extends past the end of the log");
+      }
+      try {
+        byte code = segment((int) (position / RollLogWriter.SEGMENT_SIZE))
+            .get((int) (position % RollLogWriter.SEGMENT_SIZE));
+        position++;
+        return code;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,257 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.service;
+
+import edu.cnm.deepdive.crapssimulator.model.RollTape;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Appends every roll of a simulation to a binary log, for auditing. Each roll is held in a single
+ * byte, as encoded by {@link edu.cnm.deepdive.crapssimulator.model.PackedRolls}; the rolls are
+ * written sequentially through memory-mapped segment files of {@link #SEGMENT_SIZE} bytes each. No
+ * round boundaries are written, since these are implied by the rules of play; instead, a sparse
+ * index file holds the offset of the first roll of (approximately) every {@link
+ * #INDEX_INTERVAL}th round, so that {@link RollLogReader} can locate any round by replaying at most
+ * a few thousand rounds.
+ * <p>The index file starts with a header holding the numbers of rounds, rolls, and index entries
+ * written so far; this is updated by {@link #flush()}, after the rolls and index entries it counts.
+ * If the process is terminated, the log is thus readable up to the last flush. Opening an existing
+ * log resumes appending after the last flushed round.</p>
+ * <p>Instances of this class are not thread-safe.</p>
+ */
+public class RollLogWriter implements Closeable {
+
+  /** Number of rounds between (most) index entries. */
+  static final int INDEX_INTERVAL = 1 << 10;
+  /**
+   * Largest number of rounds recorded by each worker of an engine between appends to the log; this
+   * bounds each {@link RollTape} to a few hundred kilobytes, so that it stays in cache.
+   */
+  static final int TAPE_ROUNDS = 64 * INDEX_INTERVAL;
+  /** Size (in bytes) of each segment file. */
+  static final int SEGMENT_SIZE = 1 << 26;
+  /** Name of the index file within the log directory. */
+  static final String INDEX_FILE_NAME = "rolls.idx";
+  /** Format of the names of segment files within the log directory. */
+  static final String SEGMENT_FILE_FORMAT = "rolls-%06d.seg";
+
+  static final int MAGIC = 0x43535246;
+  static final int HEADER_SIZE = 32;
+  static final int ENTRY_SIZE = 16;
+
+  private static final int ENTRY_BUFFER_SIZE = 1 << 10;
+
+  private final File directory;
+  private final FileChannel index;
+  private final ByteBuffer header;
+  private final ByteBuffer entries;
+
+  private MappedByteBuffer segment;
+  private int segmentNumber;
+  private long roundCount;
+  private long rollCount;
+  private long entryCount;
+  private long flushedEntryCount;
+  private long indexedRound;
+
+  /**
+   * Opens the log in the specified directory for appending, creating the directory and log files
+   * if necessary.
+   *
+   * @param directory Directory holding the index and segment files.
+   * @throws IOException If the log can't be created or opened, or an existing log is invalid.
+   */
+  public RollLogWriter(File directory) throws IOException {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Unable to create " + directory);
+    }
+    this.directory = directory;
+    index = FileChannel.open(new File(directory, INDEX_FILE_NAME).toPath(),
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    header = ByteBuffer.allocate(HEADER_SIZE);
+    entries = ByteBuffer.allocate(ENTRY_BUFFER_SIZE * ENTRY_SIZE);
+    if (index.size() > 0) {
+      readHeader();
+      if (entryCount > 0) {
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+        readFully(index, entry, HEADER_SIZE + (entryCount - 1) * ENTRY_SIZE);
+        indexedRound = entry.getLong(0);
+      }
+      flushedEntryCount = entryCount;
+    }
+    segmentNumber = (int) (rollCount / SEGMENT_SIZE);
+    segment = map(directory, segmentNumber, MapMode.READ_WRITE);
+    segment.position((int) (rollCount % SEGMENT_SIZE));
+  }
+
+  /**
+   * Appends the rolls recorded in the specified {@link RollTape}, which must have a mark interval
+   * of {@link #INDEX_INTERVAL}. Index entries for these rounds are not written until the next
+   * {@link #flush()}.
+   *
+   * @throws UncheckedIOException If a new segment file can't be created.
+   */
+  void append(RollTape tape) throws UncheckedIOException {
+    int numRounds = tape.getRoundCount();
+    for (int mark = -1; mark < tape.getMarkCount(); mark++) {
+      long round = roundCount + (long) (mark + 1) * INDEX_INTERVAL;
+      if (round - roundCount < numRounds
+          && (entryCount == 0 || round - indexedRound >= INDEX_INTERVAL)) {
+        addEntry(round, rollCount + ((mark < 0) ? 0 : tape.getMark(mark)));
+      }
+    }
+    int numRolls = tape.getRollCount();
+    int offset = 0;
+    while (offset < numRolls) {
+      if (!segment.hasRemaining()) {
+        nextSegment();
+      }
+      offset += tape.copyRolls(offset, segment);
+    }
+    roundCount += numRounds;
+    rollCount += numRolls;
+  }
+
+  /**
+   * Writes all pending index entries, followed by the updated header.
+   *
+   * @throws UncheckedIOException If the index file can't be written.
+   */
+  void flush() throws UncheckedIOException {
+    try {
+      writeEntries();
+      header.clear();
+      header
+          .putInt(MAGIC)
+          .putInt(INDEX_INTERVAL)
+          .putLong(roundCount)
+          .putLong(rollCount)
+          .putLong(entryCount)
+          .flip();
+      while (header.hasRemaining()) {
+        index.write(header, header.position());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns the number of rounds written to the log.
+   *
+   * @return {@code long}
+   */
+  public long getRoundCount() {
+    return roundCount;
+  }
+
+  /**
+   * Returns the number of rolls written to the log.
+   *
+   * @return {@code long}
+   */
+  public long getRollCount() {
+    return rollCount;
+  }
+
+  /**
+   * Flushes all pending index entries and the header, forces all writes to storage, and closes the
+   * log.
+   *
+   * @throws IOException If the index file can't be written.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    segment.force();
+    index.force(true);
+    index.close();
+  }
+
+  static File segmentFile(File directory, int number) {
+    return new File(directory, String.format(Locale.ROOT, SEGMENT_FILE_FORMAT, number));
+  }
+
+  static MappedByteBuffer map(File directory, int number, MapMode mode) throws IOException {
+    StandardOpenOption[] options = (mode == MapMode.READ_ONLY)
+        ? new StandardOpenOption[]{StandardOpenOption.READ}
+        : new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE};
+    try (FileChannel channel = FileChannel.open(segmentFile(directory, number).toPath(), options)) {
+      return channel.map(mode, 0, SEGMENT_SIZE);
+    }
+  }
+
+  static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of file");
+      }
+    }
+  }
+
+  private void readHeader() throws IOException {
+    readFully(index, header, 0);
+    if (header.getInt(0) != MAGIC || header.getInt(4) != INDEX_INTERVAL) {
+      throw new IOException("Invalid roll log index");
+    }
+    roundCount = header.getLong(8);
+    rollCount = header.getLong(16);
+    entryCount = header.getLong(24);
+  }
+
+  private void addEntry(long round, long offset) {
+    if (!entries.hasRemaining()) {
+      flush();
+    }
+    entries.putLong(round).putLong(offset);
+    entryCount++;
+    indexedRound = round;
+  }
+
+  private void writeEntries() throws IOException {
+    entries.flip();
+    long position = HEADER_SIZE + flushedEntryCount * ENTRY_SIZE;
+    while (entries.hasRemaining()) {
+      index.write(entries, position + entries.position());
+    }
+    entries.clear();
+    flushedEntryCount = entryCount;
+  }
+
+  private void nextSegment() {
+    try {
+      segment = map(directory, segmentNumber + 1, MapMode.READ_WRITE);
+      segmentNumber++;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+}
@@ -0,0 +1,133 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.service;
+
+import edu.cnm.deepdive.crapssimulator.model.BettingStrategy;
+import edu.cnm.deepdive.crapssimulator.model.DiceSource;
+import edu.cnm.deepdive.crapssimulator.model.RollTape;
+import edu.cnm.deepdive.crapssimulator.model.Round;
+import edu.cnm.deepdive.crapssimulator.model.RoundSampler;
+import edu.cnm.deepdive.crapssimulator.model.Rules;
+import edu.cnm.deepdive.crapssimulator.model.StatisticsAccumulator;
+import edu.cnm.deepdive.crapssimulator.model.Wagering;
+import java.nio.ByteBuffer;
+import org.apache.commons.rng.UniformRandomProvider;
+
+/**
+ * Simulates each batch of rounds by sampling the outcomes directly with a {@link RoundSampler},
+ * rather than rolling every die. Only the last round of each batch is actually played, so that its
+ * rolls may be included in a snapshot. However, since wagers are resolved on individual rolls, all
+ * rounds are played (on a single thread) while a {@link BettingStrategy} is in effect, or while the
+ * rolls are being recorded. The {@link Wagering} instance of the strategy is retained from one batch
+ * to the next, so that come and don't come bets still working at the end of a batch are resolved in
+ * the following batches, as in the other modes. Recorded rolls are appended to the log every
+ * {@link RollLogWriter#TAPE_ROUNDS} rounds, rather than held until the end of the batch.
+ */
+public class SampledEngine implements Engine {
+
+  private final UniformRandomProvider source;
+  private final DiceSource dice;
+  private final Round round;
+  private final RollTape tape;
+  private final StatisticsAccumulator accumulator;
+
+  private RoundSampler sampler;
+  private BettingStrategy strategy;
+  private Wagering wagering;
+  private RollLogWriter recorder;
+
+  /**
+   * Initializes this instance with the specified source of randomness.
+   *
+   * @param rng Source of randomness.
+   */
+  public SampledEngine(UniformRandomProvider rng) {
+    source = rng;
+    sampler = new RoundSampler(source);
+    dice = DiceSource.create(source, Round.NUM_DICE, Round.NUM_SIDES);
+    round = new Round(dice);
+    tape = new RollTape(RollLogWriter.INDEX_INTERVAL);
+    accumulator = new StatisticsAccumulator();
+    sampler.setStatistics(accumulator);
+    round.setStatistics(accumulator);
+    strategy = BettingStrategy.none();
+  }
+
+  @Override
+  public long play(int rounds, StatisticsAccumulator statistics) {
+    boolean playAll = (wagering != null || recorder != null);
+    long wins = 0;
+    for (int i = 1; i < rounds; i++) {
+      if (playAll ? round.play(false) : sampler.sample()) {
+        wins++;
+      }
+      if (recorder != null && tape.getRoundCount() == RollLogWriter.TAPE_ROUNDS) {
+        recorder.append(tape);
+        tape.clear();
+      }
+    }
+    if (rounds > 0 && round.play()) {
+      wins++;
+    }
+    dice.discardBuffered();
+    statistics.merge(accumulator);
+    accumulator.reset();
+    if (recorder != null) {
+      recorder.append(tape);
+      tape.clear();
+      recorder.flush();
+    }
+    return wins;
+  }
+
+  @Override
+  public void setStrategy(BettingStrategy strategy) {
+    this.strategy = strategy;
+    wagering = strategy.isEmpty() ? null : new Wagering(strategy, accumulator, round.getRules());
+    round.setListener(wagering);
+  }
+
+  @Override
+  public void setRules(Rules rules) {
+    round.setRules(rules);
+    sampler = new RoundSampler(source, rules);
+    sampler.setStatistics(accumulator);
+    setStrategy(strategy);
+  }
+
+  @Override
+  public void setRecorder(RollLogWriter recorder) {
+    this.recorder = recorder;
+    tape.clear();
+    round.setTape((recorder != null) ? tape : null);
+  }
+
+  @Override
+  public void saveState(ByteBuffer buffer) {
+    RandomStreams.saveState(source, buffer);
+  }
+
+  @Override
+  public void restoreState(ByteBuffer buffer) {
+    RandomStreams.restoreState(source, RandomStreams.readState(buffer));
+  }
+
+  @Override
+  public Round getRound() {
+    return round;
+  }
+
+}
@@ -0,0 +1,376 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.service;
+
+import edu.cnm.deepdive.crapssimulator.model.BettingStrategy;
+import edu.cnm.deepdive.crapssimulator.model.DiceSource;
+import edu.cnm.deepdive.crapssimulator.model.RollTape;
+import edu.cnm.deepdive.crapssimulator.model.Round;
+import edu.cnm.deepdive.crapssimulator.model.Rules;
+import edu.cnm.deepdive.crapssimulator.model.StatisticsAccumulator;
+import edu.cnm.deepdive.crapssimulator.model.Wagering;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import org.apache.commons.rng.JumpableUniformRandomProvider;
+import org.apache.commons.rng.LongJumpableUniformRandomProvider;
+import org.apache.commons.rng.UniformRandomProvider;
+import org.apache.commons.rng.simple.RandomSource;
+
+/**
+ * Plays a reproducible run of rounds, determined entirely by a seed, in which any round or block of
+ * rounds can be regenerated without playing the rounds before it. The run is divided into blocks of
+ * {@link #BLOCK_SIZE} rounds; each block is played with its own {@link
+ * org.apache.commons.rng.core.source64.XoRoShiRo128PlusPlus} stream, obtained from the seeded
+ * generator by jumps: block {@code b} starts {@code (b >>> 8)} long jumps (2<sup>96</sup> steps
+ * each) and {@code (b & 0xff)} jumps (2<sup>64</sup> steps each) from the seeded state. Thus, the
+ * stream of any block can be reached with a few hundred jumps, and the streams of successive
+ * blocks, with one jump each; the streams don't overlap.
+ * <p>Since each block is played independently, batches can be split across workers by block,
+ * without affecting the results: the same seed produces the same rounds (and statistics) for any
+ * number of workers, and any sequence of batch sizes. The {@link Wagering} of the block in progress
+ * is retained from one batch to the next, so come and don't come bets are carried across batches;
+ * those still unresolved at the end of a block (or when the state of the engine is restored) are
+ * abandoned.</p>
+ * <p>The {@link Rules} variant is part of the definition of the run: a change applies from the
+ * next round (even within a block), and rounds are regenerated, and the position within a block
+ * restored, by the rules in effect at the time, so a run is only reproducible for the same
+ * rules.</p>
+ */
+public class SeededEngine implements Engine {
+
+  /** Number of rounds in each independently generated block. */
+  public static final int BLOCK_SIZE = 1 << 16;
+
+  private static final RandomSource SOURCE = RandomSource.XO_RO_SHI_RO_128_PP;
+  private static final int JUMP_BITS = 8;
+  private static final long JUMP_MASK = (1L << JUMP_BITS) - 1;
+
+  private final long seed;
+  private final ForkJoinPool pool;
+  private final RollTape[] tapes;
+
+  private Cursor cursor;
+  private Block openBlock;
+  private long position;
+  private Round round;
+  private volatile Rules rules;
+  private BettingStrategy strategy;
+  private RollLogWriter recorder;
+
+  /**
+   * Initializes this instance with the specified seed and number of workers, positioned at the
+   * start of the run.
+   *
+   * @param seed Seed from which all rounds of the run are determined.
+   * @param parallelism Number of worker threads among which the blocks of each batch are divided.
+   */
+  public SeededEngine(long seed, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException();
+    }
+    this.seed = seed;
+    pool = (parallelism > 1) ? new ForkJoinPool(parallelism) : null;
+    tapes = new RollTape[parallelism];
+    for (int i = 0; i < parallelism; i++) {
+      tapes[i] = new RollTape(RollLogWriter.INDEX_INTERVAL);
+    }
+    cursor = new Cursor(seed, 0);
+    rules = Rules.standard();
+    round = new Round(newDice(SOURCE.create(seed)), rules);
+    strategy = BettingStrategy.none();
+  }
+
+  @Override
+  public long play(int rounds, StatisticsAccumulator statistics) {
+    List<Segment> segments = new ArrayList<>(tapes.length);
+    Segment last = null;
+    long wins = 0;
+    for (int remaining = rounds; remaining > 0; ) {
+      // Segments are played in waves of (at most) one per worker, so that the segments held at
+      // any time, and the rolls taped by each worker, are bounded by the size of a block.
+      segments.clear();
+      while (remaining > 0 && segments.size() < tapes.length) {
+        int offset = (int) (position % BLOCK_SIZE);
+        // A block (with its dice, buffered values, and wagers) is retained until it's complete.
+        Block block = (offset > 0) ? openBlock : new Block(cursor.next(), 0);
+        int count = Math.min(remaining, BLOCK_SIZE - offset);
+        RollTape tape = (recorder != null) ? tapes[segments.size()] : null;
+        segments.add(new Segment(block, count, tape));
+        position += count;
+        remaining -= count;
+        openBlock = block;
+      }
+      last = segments.get(segments.size() - 1);
+      last.recordLast = (remaining == 0);
+      if (pool == null || segments.size() == 1) {
+        for (Segment segment : segments) {
+          segment.play();
+        }
+      } else {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(segments.size());
+        for (Segment segment : segments) {
+          tasks.add(pool.submit(segment::play));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+          task.join();
+        }
+      }
+      for (Segment segment : segments) {
+        StatisticsAccumulator blockStatistics = segment.block.statistics;
+        wins += segment.wins;
+        statistics.merge(blockStatistics);
+        blockStatistics.reset();
+        if (segment.tape != null) {
+          recorder.append(segment.tape);
+          segment.tape.clear();
+        }
+      }
+    }
+    if (last != null) {
+      if (recorder != null) {
+        recorder.flush();
+      }
+      round = last.block.round;
+    }
+    return wins;
+  }
+
+  /**
+   * Regenerates the specified round of the run, returning a {@link Round} with the rolls of that
+   * round recorded. This replays at most {@link #BLOCK_SIZE} rounds, regardless of the position of
+   * the round in the run; it does not affect the state of this instance, and may be invoked from
+   * any thread.
+   *
+   * @param number Number (0-based) of the round in the run.
+   * @return {@link Round}
+   * @throws IllegalArgumentException If {@code number} is negative.
+   */
+  public Round replay(long number) throws IllegalArgumentException {
+    if (number < 0) {
+      throw new IllegalArgumentException();
+    }
+    Round round = new Round(newDice(new Cursor(seed, number / BLOCK_SIZE).next()), rules);
+    for (long i = number % BLOCK_SIZE; i > 0; i--) {
+      round.play(false);
+    }
+    round.play(true);
+    return round;
+  }
+
+  /**
+   * Regenerates the specified block of the run, adding the outcome of each round to the specified
+   * {@link StatisticsAccumulator}, and returning the number of wins. This does not affect the state
+   * of this instance, and may be invoked from any thread.
+   *
+   * @param block Number (0-based) of the block in the run.
+   * @param statistics Destination of round outcomes.
+   * @return Number of rounds (out of {@link #BLOCK_SIZE}) won.
+   * @throws IllegalArgumentException If {@code block} is negative.
+   */
+  public long replayBlock(long block, StatisticsAccumulator statistics)
+      throws IllegalArgumentException {
+    if (block < 0) {
+      throw new IllegalArgumentException();
+    }
+    Round round = new Round(newDice(new Cursor(seed, block).next()), rules);
+    round.setStatistics(statistics);
+    long wins = 0;
+    for (int i = 0; i < BLOCK_SIZE; i++) {
+      if (round.play(false)) {
+        wins++;
+      }
+    }
+    return wins;
+  }
+
+  /**
+   * Returns the seed of the run.
+   *
+   * @return {@code long}
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Returns the number of rounds played so far in the run.
+   *
+   * @return {@code long}
+   */
+  public long getPosition() {
+    return position;
+  }
+
+  @Override
+  public void setStrategy(BettingStrategy strategy) {
+    this.strategy = strategy;
+    if (openBlock != null) {
+      openBlock.setStrategy(strategy);
+    }
+  }
+
+  @Override
+  public void setRules(Rules rules) {
+    if (rules.getNumDice() != Round.NUM_DICE || rules.getNumSides() != Round.NUM_SIDES) {
+      throw new IllegalArgumentException();
+    }
+    this.rules = rules;
+    if (openBlock != null) {
+      openBlock.round.setRules(rules);
+      openBlock.setStrategy(strategy);
+    }
+  }
+
+  @Override
+  public void setRecorder(RollLogWriter recorder) {
+    this.recorder = recorder;
+    for (RollTape tape : tapes) {
+      tape.clear();
+    }
+  }
+
+  @Override
+  public void saveState(ByteBuffer buffer) {
+    buffer.putLong(seed).putLong(position);
+  }
+
+  @Override
+  public void restoreState(ByteBuffer buffer) {
+    long seed = buffer.getLong();
+    long position = buffer.getLong();
+    if (seed != this.seed || position < 0) {
+      throw new IllegalArgumentException();
+    }
+    cursor = new Cursor(seed, position / BLOCK_SIZE);
+    int offset = (int) (position % BLOCK_SIZE);
+    openBlock = (offset > 0) ? new Block(cursor.next(), offset) : null;
+    this.position = position;
+  }
+
+  @Override
+  public Round getRound() {
+    return round;
+  }
+
+  @Override
+  public void close() {
+    if (pool != null) {
+      pool.shutdown();
+    }
+  }
+
+  private static DiceSource newDice(UniformRandomProvider rng) {
+    return DiceSource.create(rng, Round.NUM_DICE, Round.NUM_SIDES);
+  }
+
+  /**
+   * Block of the run, with the {@link Round} that plays it, and the accumulator of its statistics
+   * and wagering results since they were last merged.
+   */
+  private class Block {
+
+    private final Round round;
+    private final StatisticsAccumulator statistics;
+
+    /**
+     * Starts a block with the specified stream, skipping the specified number of rounds, whose
+     * outcomes (and wagers) are not accumulated.
+     */
+    private Block(UniformRandomProvider rng, int skip) {
+      round = new Round(newDice(rng), rules);
+      for (int i = 0; i < skip; i++) {
+        round.play(false);
+      }
+      statistics = new StatisticsAccumulator();
+      round.setStatistics(statistics);
+      setStrategy(strategy);
+    }
+
+    private void setStrategy(BettingStrategy strategy) {
+      round.setListener(
+          strategy.isEmpty() ? null : new Wagering(strategy, statistics, round.getRules()));
+    }
+
+  }
+
+  private static class Segment {
+
+    private final Block block;
+    private final int count;
+    private final RollTape tape;
+
+    private boolean recordLast;
+    private long wins;
+
+    private Segment(Block block, int count, RollTape tape) {
+      this.block = block;
+      this.count = count;
+      this.tape = tape;
+      block.round.setTape(tape);
+    }
+
+    private void play() {
+      Round round = block.round;
+      long wins = 0;
+      for (int i = 0; i < count; i++) {
+        if (round.play(recordLast && i == count - 1)) {
+          wins++;
+        }
+      }
+      this.wins = wins;
+    }
+
+  }
+
+  /**
+   * Generates the streams of successive blocks, starting from a specified block.
+   */
+  private static class Cursor {
+
+    private final LongJumpableUniformRandomProvider longJumps;
+
+    private JumpableUniformRandomProvider jumps;
+    private long block;
+    private boolean positioned;
+
+    private Cursor(long seed, long block) {
+      longJumps = (LongJumpableUniformRandomProvider) SOURCE.create(seed);
+      for (long i = block >>> JUMP_BITS; i > 0; i--) {
+        longJumps.longJump();
+      }
+      jumps = longJumps.longJump();
+      for (long i = block & JUMP_MASK; i > 0; i--) {
+        jumps.jump();
+      }
+      this.block = block;
+      positioned = true;
+    }
+
+    private UniformRandomProvider next() {
+      if ((block & JUMP_MASK) == 0 && !positioned) {
+        jumps = longJumps.longJump();
+      }
+      positioned = false;
+      block++;
+      return jumps.jump();
+    }
+
+  }
+
+}
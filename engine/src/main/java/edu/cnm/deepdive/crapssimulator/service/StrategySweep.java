@@ -0,0 +1,216 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.service;
+
+import edu.cnm.deepdive.crapssimulator.model.BettingStrategy;
+import edu.cnm.deepdive.crapssimulator.model.DiceSource;
+import edu.cnm.deepdive.crapssimulator.model.RollBlock;
+import edu.cnm.deepdive.crapssimulator.model.Round;
+import edu.cnm.deepdive.crapssimulator.model.Statistics;
+import edu.cnm.deepdive.crapssimulator.model.StatisticsAccumulator;
+import edu.cnm.deepdive.crapssimulator.model.Wagering;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import org.apache.commons.rng.UniformRandomProvider;
+
+/**
+ * Evaluates a set of {@link BettingStrategy} instances against a single shared sequence of rolls
+ * (common random numbers), so that differences between strategies are not obscured by differences
+ * in the dice. Rounds are played in blocks, each recorded once in a {@link RollBlock}; every
+ * strategy's {@link Wagering} instance then replays the block. The strategies are partitioned across
+ * a pool of worker threads, while the next block is played on the invoking thread. The worker
+ * threads are held until the sweep is closed.
+ */
+public class StrategySweep implements AutoCloseable {
+
+  private static final int ROUNDS_PER_BLOCK = 1 << 16;
+
+  private final ForkJoinPool pool;
+  private final int parallelism;
+  private final Round round;
+
+  /**
+   * Initializes this instance with the specified source of randomness and number of workers.
+   *
+   * @param rng Source of randomness for the shared rolls.
+   * @param parallelism Number of worker threads among which strategies are partitioned.
+   */
+  public StrategySweep(UniformRandomProvider rng, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException();
+    }
+    this.parallelism = parallelism;
+    pool = (parallelism > 1) ? new ForkJoinPool(parallelism) : null;
+    round = new Round(DiceSource.create(rng, Round.NUM_DICE, Round.NUM_SIDES));
+  }
+
+  /**
+   * Evaluates each of the specified strategies over the same sequence of rounds, and returns the
+   * results ranked by expected return (mean net result per round), from highest to lowest.
+   *
+   * @param strategies Strategies to evaluate.
+   * @param rounds Number of rounds over which each strategy is evaluated.
+   * @return {@link List List&lt;Result&gt;}
+   */
+  public List<Result> run(List<BettingStrategy> strategies, long rounds) {
+    int count = strategies.size();
+    StatisticsAccumulator[] accumulators = new StatisticsAccumulator[count];
+    Wagering[] evaluators = new Wagering[count];
+    for (int i = 0; i < count; i++) {
+      accumulators[i] = new StatisticsAccumulator();
+      evaluators[i] = new Wagering(strategies.get(i), accumulators[i]);
+    }
+    RollBlock current = new RollBlock();
+    RollBlock next = new RollBlock();
+    long remaining = rounds - record(current, rounds);
+    while (current.getRoundCount() > 0) {
+      List<ForkJoinTask<?>> tasks = evaluate(evaluators, current);
+      remaining -= record(next, remaining);
+      for (ForkJoinTask<?> task : tasks) {
+        task.join();
+      }
+      RollBlock played = current;
+      current = next;
+      next = played;
+    }
+    List<Result> results = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      results.add(new Result(strategies.get(i), accumulators[i].snapshot()));
+    }
+    results.sort(Collections.reverseOrder(Comparator.comparingDouble(Result::getMeanNet)));
+    return results;
+  }
+
+  /**
+   * Releases the worker threads (if any) of this instance; no further sweeps may be run after this
+   * method is invoked.
+   */
+  @Override
+  public void close() {
+    if (pool != null) {
+      pool.shutdown();
+    }
+  }
+
+  private long record(RollBlock block, long rounds) {
+    int count = (int) Math.min(rounds, ROUNDS_PER_BLOCK);
+    block.clear();
+    round.setListener(block);
+    for (int i = 0; i < count; i++) {
+      round.play(false);
+    }
+    return count;
+  }
+
+  private List<ForkJoinTask<?>> evaluate(Wagering[] evaluators, RollBlock block) {
+    List<ForkJoinTask<?>> tasks = new ArrayList<>(parallelism);
+    if (pool == null) {
+      play(evaluators, 0, evaluators.length, block);
+    } else {
+      int chunk = evaluators.length / parallelism;
+      int remainder = evaluators.length % parallelism;
+      int start = 0;
+      for (int i = 0; i < parallelism; i++) {
+        int from = start;
+        int to = from + chunk + ((i < remainder) ? 1 : 0);
+        if (to > from) {
+          tasks.add(pool.submit(() -> play(evaluators, from, to, block)));
+        }
+        start = to;
+      }
+    }
+    return tasks;
+  }
+
+  private static void play(Wagering[] evaluators, int from, int to, RollBlock block) {
+    for (int i = from; i < to; i++) {
+      evaluators[i].play(block);
+    }
+  }
+
+  /**
+   * Expected return and risk of a single {@link BettingStrategy}, evaluated by a {@link
+   * StrategySweep}.
+   */
+  public static class Result {
+
+    private final BettingStrategy strategy;
+    private final Statistics statistics;
+
+    private Result(BettingStrategy strategy, Statistics statistics) {
+      this.strategy = strategy;
+      this.statistics = statistics;
+    }
+
+    /**
+     * Returns the evaluated strategy.
+     *
+     * @return {@link BettingStrategy}
+     */
+    public BettingStrategy getStrategy() {
+      return strategy;
+    }
+
+    /**
+     * Returns the expected return of the strategy, estimated as the mean net result per round.
+     *
+     * @return {@code double}
+     */
+    public double getMeanNet() {
+      return statistics.getMeanNet();
+    }
+
+    /**
+     * Returns the risk of the strategy, as the standard deviation of the net result per round.
+     *
+     * @return {@code double}
+     */
+    public double getStandardDeviation() {
+      return Math.sqrt(statistics.getNetVariance());
+    }
+
+    /**
+     * Returns the house edge of the strategy: the expected loss per unit of action.
+     *
+     * @return {@code double}
+     */
+    public double getHouseEdge() {
+      return statistics.getHouseEdge();
+    }
+
+    /**
+     * Returns the {@link Statistics} of the wagering results of the strategy. Only the wagering
+     * statistics (action, net result, and their derived values) are populated.
+     *
+     * @return {@link Statistics}
+     */
+    public Statistics getStatistics() {
+      return statistics;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s: mean=%.5f, sd=%.5f, edge=%.5f",
+          strategy, getMeanNet(), getStandardDeviation(), getHouseEdge());
+    }
+
+  }
+
+}
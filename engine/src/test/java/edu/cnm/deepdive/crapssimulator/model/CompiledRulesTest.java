@@ -0,0 +1,92 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.rng.simple.RandomSource;
+import org.junit.Test;
+
+/**
+ * Verifies the transition tables and exact probabilities of {@link CompiledRules}, for the standard
+ * rules, crapless craps, and a degenerate variant in which a point can never continue.
+ */
+public class CompiledRulesTest {
+
+  private static final double TOLERANCE = 1e-12;
+
+  @Test
+  public void compile_standardExactValues() {
+    CompiledRules rules = Rules.standard().compile();
+    assertEquals(244.0 / 495, rules.getWinProbability(), TOLERANCE);
+    assertEquals(557.0 / 165, rules.getExpectedRolls(), TOLERANCE);
+    assertEquals(2.0 / 9, rules.getNaturalProbability(), TOLERANCE);
+    assertEquals(1.0 / 9, rules.getCrapsProbability(), TOLERANCE);
+    assertEquals(1671.0 / 196, rules.getExpectedHandRolls(), TOLERANCE);
+    assertEquals(67.0 / 98, rules.getExpectedHandPointsMade(), TOLERANCE);
+    assertEquals(1.0 / 12, rules.getPointProbability(4), TOLERANCE);
+    assertEquals(1.0 / 3, rules.getPointWinProbability(4), TOLERANCE);
+    assertEquals(5.0 / 36, rules.getPointProbability(8), TOLERANCE);
+    assertEquals(5.0 / 11, rules.getPointWinProbability(8), TOLERANCE);
+    assertEquals(Math.log(27.0 / 36), rules.logContinueProbabilities[4], TOLERANCE);
+  }
+
+  @Test
+  public void compile_craplessPointsIncludeCrapsAndEleven() {
+    CompiledRules rules = Rules.crapless().compile();
+    for (int sum = 2; sum <= 12; sum++) {
+      int expected = (sum == 7) ? CompiledRules.WIN : sum;
+      assertEquals("come-out " + sum, expected, rules.next(0, sum));
+    }
+    for (int point : new int[]{2, 3, 11, 12}) {
+      assertTrue("point " + point, rules.getPointProbability(point) > 0);
+      assertEquals(CompiledRules.WIN, rules.next(point, point));
+      assertEquals(CompiledRules.LOSS, rules.next(point, 7));
+    }
+    assertEquals(1.0 / 36, rules.getPointProbability(2), TOLERANCE);
+    assertEquals(1.0 / 7, rules.getPointWinProbability(2), TOLERANCE);
+    assertEquals(1.0 / 6, rules.getNaturalProbability(), TOLERANCE);
+    assertEquals(0, rules.getCrapsProbability(), 0);
+    double win = rules.getNaturalProbability();
+    for (int point = 2; point <= 12; point++) {
+      win += rules.getPointProbability(point) * rules.getPointWinProbability(point);
+    }
+    assertEquals(win, rules.getWinProbability(), TOLERANCE);
+  }
+
+  @Test
+  public void compile_pointThatCannotContinue() {
+    // With one two-sided die, point 2 is either made or lost on the very next roll.
+    CompiledRules rules = Rules.standard()
+        .withDice(1, 2)
+        .withNaturals()
+        .withCraps(1)
+        .withSevenOut(1)
+        .compile();
+    assertEquals(2, rules.next(0, 2));
+    assertEquals(Double.NEGATIVE_INFINITY, rules.logContinueProbabilities[2], 0);
+    assertEquals(0.25, rules.getWinProbability(), TOLERANCE);
+    assertEquals(1.5, rules.getExpectedRolls(), TOLERANCE);
+    RoundSampler sampler =
+        new RoundSampler(RandomSource.XO_RO_SHI_RO_128_PP.create(4L), rules.getRules());
+    for (int i = 0; i < 1_000; i++) {
+      sampler.sample();
+      assertEquals((sampler.getPoint() == 0) ? 1 : 2, sampler.getRollCount());
+    }
+  }
+
+}
@@ -0,0 +1,103 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Verifies the bounds of the Wilson score intervals computed by {@link ConfidenceInterval} against
+ * published values, at the edges of the range of proportions, and the estimates of the number of
+ * trials required to reach a target half-width.
+ */
+public class ConfidenceIntervalTest {
+
+  private static final double PUBLISHED_TOLERANCE = 5e-5;
+  private static final double TOLERANCE = 1e-12;
+  private static final double Z_95 = 1.959963984540054;
+
+  @Test
+  public void criticalValue_matchesNormalQuantile() {
+    assertEquals(Z_95, ConfidenceInterval.criticalValue(0.95), 1e-8);
+    assertEquals(2.575829303548901, ConfidenceInterval.criticalValue(0.99), 1e-8);
+  }
+
+  @Test
+  public void wilson_matchesPublishedValues() {
+    // Newcombe, R. G. (1998), Statistics in Medicine 17, 857-872, Table I (method 3).
+    assertBounds(0.2553, 0.3662, ConfidenceInterval.wilson(81, 263, 0.95), PUBLISHED_TOLERANCE);
+    assertBounds(0.0624, 0.1605, ConfidenceInterval.wilson(15, 148, 0.95), PUBLISHED_TOLERANCE);
+    assertBounds(0.0061, 0.1718, ConfidenceInterval.wilson(1, 29, 0.95), PUBLISHED_TOLERANCE);
+    assertBounds(0, 0.1611, ConfidenceInterval.wilson(0, 20, 0.95), PUBLISHED_TOLERANCE);
+  }
+
+  @Test
+  public void wilson_edgeProportions() {
+    int trials = 50;
+    double z = ConfidenceInterval.criticalValue(0.95);
+    double zSquared = z * z;
+    assertBounds(0, zSquared / (trials + zSquared),
+        ConfidenceInterval.wilson(0, trials, 0.95), TOLERANCE);
+    assertBounds(trials / (trials + zSquared), 1,
+        ConfidenceInterval.wilson(trials, trials, 0.95), TOLERANCE);
+    assertBounds(0, 1, ConfidenceInterval.wilson(0, 0, 0.95), 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void wilson_rejectsMoreSuccessesThanTrials() {
+    ConfidenceInterval.wilson(3, 2, 0.95);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void wilson_rejectsCertainConfidence() {
+    ConfidenceInterval.wilson(1, 2, 1);
+  }
+
+  @Test
+  public void estimateTrials_reachesTargetHalfWidth() {
+    double target = 0.001;
+    long trials = ConfidenceInterval.wilson(0, 0, 0.95).estimateTrials(target);
+    // A proportion of 0.5 has the widest interval, so any tally of this size is narrow enough.
+    assertTrue(ConfidenceInterval.wilson(trials / 2, trials, 0.95).getHalfWidth() <= target);
+    assertTrue(ConfidenceInterval.wilson(trials / 2, trials - 2, 0.95).getHalfWidth() > target);
+  }
+
+  @Test
+  public void estimateRemainingTrials_zeroOnceTargetReached() {
+    ConfidenceInterval interval = ConfidenceInterval.wilson(244, 495, 0.95);
+    double halfWidth = interval.getHalfWidth();
+    assertEquals(0, interval.estimateRemainingTrials(halfWidth));
+    assertEquals(0, interval.estimateRemainingTrials(2 * halfWidth));
+    // Halving the half-width requires about 4 times as many trials.
+    long remaining = interval.estimateRemainingTrials(halfWidth / 2);
+    assertTrue(remaining > 2.9 * 495 && remaining < 3.1 * 495);
+    assertEquals(1, interval.estimateRemainingTrials(Math.nextDown(halfWidth)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void estimateRemainingTrials_rejectsZeroHalfWidth() {
+    ConfidenceInterval.wilson(244, 495, 0.95).estimateRemainingTrials(0);
+  }
+
+  private static void assertBounds(double lower, double upper, ConfidenceInterval interval,
+      double tolerance) {
+    assertEquals("lower", lower, interval.getLower(), tolerance);
+    assertEquals("upper", upper, interval.getUpper(), tolerance);
+  }
+
+}
@@ -0,0 +1,99 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import org.apache.commons.rng.RestorableUniformRandomProvider;
+import org.apache.commons.rng.simple.RandomSource;
+import org.junit.Test;
+
+/**
+ * Verifies that the digits served by a {@link DigitBuffer} are uniformly distributed, and that
+ * {@link DiceSource#discardBuffered()} leaves subsequent rolls dependent only on the state of the
+ * source of randomness.
+ */
+public class DigitBufferTest {
+
+  private static final int NUM_OUTCOMES = Round.NUM_SIDES * Round.NUM_SIDES;
+  private static final int NUM_DIGITS = 3_600_000;
+  private static final int NUM_ROLLS = 1_000;
+
+  @Test
+  public void next_twoDiceOutcomesUniform() {
+    DigitBuffer buffer =
+        new DigitBuffer(RandomSource.XO_RO_SHI_RO_128_PP.create(3L), NUM_OUTCOMES);
+    long[] counts = new long[NUM_OUTCOMES];
+    for (int i = 0; i < NUM_DIGITS; i++) {
+      counts[buffer.next()]++;
+    }
+    double expected = (double) NUM_DIGITS / NUM_OUTCOMES;
+    double chiSquare = 0;
+    for (long count : counts) {
+      double difference = count - expected;
+      chiSquare += difference * difference / expected;
+    }
+    int degreesOfFreedom = NUM_OUTCOMES - 1;
+    assertTrue(String.format("chi-square = %.1f (df = %d)", chiSquare, degreesOfFreedom),
+        chiSquare < chiSquareCriticalValue(degreesOfFreedom));
+  }
+
+  @Test
+  public void discardBuffered_rollsDependOnlyOnSourceState() {
+    int[][] kept = afterPartialBatch(false);
+    assertFalse(Arrays.equals(kept[0], kept[1]));
+    int[][] discarded = afterPartialBatch(true);
+    assertArrayEquals(discarded[0], discarded[1]);
+  }
+
+  /**
+   * Rolls a few outcomes, leaving digits in the buffer, and then (optionally discarding them)
+   * returns the subsequent outcomes, along with those of a new source constructed on a copy of the
+   * state of the source of randomness at that point.
+   */
+  private static int[][] afterPartialBatch(boolean discard) {
+    RestorableUniformRandomProvider rng = RandomSource.XO_RO_SHI_RO_128_PP.create(5L);
+    DiceSource dice = DiceSource.create(rng, Round.NUM_DICE, Round.NUM_SIDES);
+    for (int i = 0; i < 5; i++) {
+      dice.rollOutcome();
+    }
+    if (discard) {
+      dice.discardBuffered();
+    }
+    RestorableUniformRandomProvider copy = RandomSource.XO_RO_SHI_RO_128_PP.create(0L);
+    copy.restoreState(rng.saveState());
+    DiceSource fresh = DiceSource.create(copy, Round.NUM_DICE, Round.NUM_SIDES);
+    return new int[][]{outcomes(dice), outcomes(fresh)};
+  }
+
+  private static int[] outcomes(DiceSource dice) {
+    int[] outcomes = new int[NUM_ROLLS];
+    for (int i = 0; i < NUM_ROLLS; i++) {
+      outcomes[i] = dice.rollOutcome();
+    }
+    return outcomes;
+  }
+
+  private static double chiSquareCriticalValue(int degreesOfFreedom) {
+    // Wilson-Hilferty approximation of the upper 0.001 quantile.
+    double variance = 2.0 / (9 * degreesOfFreedom);
+    return degreesOfFreedom * Math.pow(1 - variance + 3.09 * Math.sqrt(variance), 3);
+  }
+
+}
@@ -0,0 +1,86 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import static edu.cnm.deepdive.crapssimulator.model.StatisticsAssertions.assertEquivalent;
+import static org.junit.Assert.assertTrue;
+
+import edu.cnm.deepdive.crapssimulator.model.StatisticsAccumulatorTest.Outcomes;
+import org.junit.Test;
+
+/**
+ * Verifies that merging {@link HandAccumulator} instances filled with consecutive chunks of a
+ * sequence of rounds is equivalent to accumulating the whole sequence in a single instance. The
+ * chunks are split in the middle of a hand (after a point has been made), around a chunk with no
+ * seven-out (but with a point made), and with an empty chunk.
+ */
+public class HandAccumulatorTest {
+
+  private static final int NUM_ROUNDS = 6_000;
+  private static final int NUM_TAIL_ROUNDS = 500;
+
+  @Test
+  public void merge_splitSequenceMatchesSequential() {
+    Outcomes outcomes = new Outcomes(NUM_ROUNDS + NUM_TAIL_ROUNDS, 2L);
+    int midHand = findPointMade(outcomes, 500) + 1;
+    int openStart = findPointMade(outcomes, 2_000);
+    int openEnd = findSevenOut(outcomes, openStart);
+    int[] boundaries = {0, midHand, openStart, openEnd, openEnd, NUM_ROUNDS};
+    assertTrue(!isSevenOut(outcomes, midHand - 1) && midHand < openStart);
+    HandAccumulator sequential = new HandAccumulator();
+    addTo(sequential, outcomes, 0, NUM_ROUNDS);
+    HandAccumulator merged = new HandAccumulator();
+    for (int i = 1; i < boundaries.length; i++) {
+      HandAccumulator chunk = new HandAccumulator();
+      addTo(chunk, outcomes, boundaries[i - 1], boundaries[i]);
+      merged.merge(chunk);
+    }
+    assertEquivalent(new HandStatistics(sequential), new HandStatistics(merged));
+    // The hand in progress at the end of the merged chunks continues with subsequent rounds.
+    addTo(sequential, outcomes, NUM_ROUNDS, NUM_ROUNDS + NUM_TAIL_ROUNDS);
+    addTo(merged, outcomes, NUM_ROUNDS, NUM_ROUNDS + NUM_TAIL_ROUNDS);
+    assertEquivalent(new HandStatistics(sequential), new HandStatistics(merged));
+  }
+
+  private static void addTo(HandAccumulator accumulator, Outcomes outcomes, int start, int end) {
+    for (int i = start; i < end; i++) {
+      accumulator.add(outcomes.wins[i], outcomes.points[i], outcomes.rollCounts[i]);
+    }
+  }
+
+  private static boolean isSevenOut(Outcomes outcomes, int index) {
+    return outcomes.points[index] != 0 && !outcomes.wins[index];
+  }
+
+  /** Returns the first index, from {@code start}, of a round in which a point was made. */
+  private static int findPointMade(Outcomes outcomes, int start) {
+    int index = start;
+    while (outcomes.points[index] == 0 || !outcomes.wins[index]) {
+      index++;
+    }
+    return index;
+  }
+
+  /** Returns the first index, from {@code start}, of a seven-out. */
+  private static int findSevenOut(Outcomes outcomes, int start) {
+    int index = start;
+    while (!isSevenOut(outcomes, index)) {
+      index++;
+    }
+    return index;
+  }
+
+}
@@ -0,0 +1,100 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import static edu.cnm.deepdive.crapssimulator.model.StatisticsAssertions.assertEquivalent;
+
+import edu.cnm.deepdive.crapssimulator.model.StatisticsAccumulatorTest.Outcomes;
+import java.util.Arrays;
+import org.apache.commons.rng.UniformRandomProvider;
+import org.apache.commons.rng.simple.RandomSource;
+import org.junit.Test;
+
+/**
+ * Verifies that a {@link LaneAccumulator}, filled with rounds interleaved across its lanes, folds
+ * into the same statistics as separate {@link StatisticsAccumulator} instances, one per lane,
+ * merged in lane order. The lanes are unevenly filled: two are longer than the sliding window, one
+ * shorter, and one empty; outcomes are recorded in 64-round words, so some streaks are aligned with
+ * word boundaries.
+ */
+public class LaneAccumulatorTest {
+
+  private static final int NUM_LANES = 4;
+  private static final int NUM_ROUNDS = 6_000;
+  private static final int SHORT_LANE = 2;
+  private static final double SHORT_LANE_FRACTION = 0.05;
+
+  @Test
+  public void drainTo_matchesLanesMergedInOrder() {
+    StatisticsAccumulator expected = new StatisticsAccumulator();
+    StatisticsAccumulator actual = new StatisticsAccumulator();
+    LaneAccumulator accumulator = new LaneAccumulator(NUM_LANES);
+    for (long seed = 1; seed <= 3; seed++) {
+      // Each drain follows the rounds already accumulated, including those of earlier drains.
+      UniformRandomProvider rng = RandomSource.XO_RO_SHI_RO_128_PP.create(seed);
+      int[] lanes = new int[NUM_ROUNDS];
+      for (int i = 0; i < NUM_ROUNDS; i++) {
+        lanes[i] = (rng.nextDouble() < SHORT_LANE_FRACTION) ? SHORT_LANE : rng.nextInt(2);
+      }
+      addAndDrain(new Outcomes(NUM_ROUNDS, seed), lanes, accumulator, expected, actual);
+    }
+  }
+
+  @Test
+  public void drainTo_streaksJoinAcrossWords() {
+    // Streaks in lane 0 end exactly at the boundaries of 64-round words; lane 1 wins throughout.
+    boolean[] wins = new boolean[500];
+    Arrays.fill(wins, 0, 128, true);
+    Arrays.fill(wins, 192, 400, true);
+    int[] lanes = new int[wins.length];
+    Arrays.fill(lanes, 300, 400, 1);
+    Arrays.fill(lanes, 400, 500, SHORT_LANE);
+    addAndDrain(new Outcomes(wins), lanes, new LaneAccumulator(NUM_LANES),
+        new StatisticsAccumulator(), new StatisticsAccumulator());
+  }
+
+  @Test
+  public void drainTo_untrackedHandsExcluded() {
+    Outcomes outcomes = new Outcomes(NUM_ROUNDS, 4L);
+    StatisticsAccumulator expected = new StatisticsAccumulator(false);
+    StatisticsAccumulator actual = new StatisticsAccumulator(false);
+    LaneAccumulator lanes = new LaneAccumulator(1);
+    for (int i = 0; i < NUM_ROUNDS; i++) {
+      expected.add(outcomes.wins[i], outcomes.points[i], outcomes.rollCounts[i]);
+      lanes.add(0, outcomes.wins[i], outcomes.points[i], outcomes.rollCounts[i]);
+    }
+    lanes.drainTo(actual);
+    assertEquivalent(expected.snapshot(), actual.snapshot());
+  }
+
+  private static void addAndDrain(Outcomes outcomes, int[] lanes, LaneAccumulator accumulator,
+      StatisticsAccumulator expected, StatisticsAccumulator actual) {
+    StatisticsAccumulator[] separate = new StatisticsAccumulator[NUM_LANES];
+    for (int i = 0; i < NUM_LANES; i++) {
+      separate[i] = new StatisticsAccumulator();
+    }
+    for (int i = 0; i < lanes.length; i++) {
+      separate[lanes[i]].add(outcomes.wins[i], outcomes.points[i], outcomes.rollCounts[i]);
+      accumulator.add(lanes[i], outcomes.wins[i], outcomes.points[i], outcomes.rollCounts[i]);
+    }
+    for (StatisticsAccumulator lane : separate) {
+      expected.merge(lane);
+    }
+    accumulator.drainTo(actual);
+    assertEquivalent(expected.snapshot(), actual.snapshot());
+  }
+
+}
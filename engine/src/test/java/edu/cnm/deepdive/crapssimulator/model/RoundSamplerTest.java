@@ -0,0 +1,98 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import edu.cnm.deepdive.crapssimulator.model.Round.State;
+import org.apache.commons.rng.simple.RandomSource;
+import org.junit.Test;
+
+/**
+ * Verifies that {@link RoundSampler} is statistically equivalent to {@link Round#play()}, comparing
+ * the joint distribution of outcome, point, and number of rolls with a two-sample chi-square test.
+ */
+public class RoundSamplerTest {
+
+  private static final int NUM_ROUNDS = 500_000;
+  private static final int MAX_ROLL_COUNT = 12;
+  private static final int NUM_CELLS = 2 * 13 * (MAX_ROLL_COUNT + 1);
+  private static final double EXACT_WIN_PROBABILITY = 244.0 / 495;
+  private static final double EXACT_MEAN_ROLL_COUNT = 557.0 / 165;
+  private static final double CRITICAL_Z = 3.29; // Two-sided significance level of 0.001.
+
+  @Test
+  public void sample_jointDistributionMatchesPlay() {
+    long[] played = new long[NUM_CELLS];
+    long[] sampled = new long[NUM_CELLS];
+    Round round = new Round(DiceSource.create(
+        RandomSource.XO_RO_SHI_RO_128_PP.create(1L), Round.NUM_DICE, Round.NUM_SIDES));
+    RoundSampler sampler = new RoundSampler(RandomSource.XO_RO_SHI_RO_128_PP.create(2L));
+    for (int i = 0; i < NUM_ROUNDS; i++) {
+      boolean win = round.play(false);
+      played[cell(win, round.getPoint(), round.getRollCount())]++;
+      win = sampler.sample();
+      sampled[cell(win, sampler.getPoint(), sampler.getRollCount())]++;
+    }
+    double chiSquare = 0;
+    int degreesOfFreedom = -1;
+    for (int i = 0; i < NUM_CELLS; i++) {
+      long total = played[i] + sampled[i];
+      if (total > 0) {
+        double difference = played[i] - sampled[i];
+        chiSquare += difference * difference / total;
+        degreesOfFreedom++;
+      }
+    }
+    assertTrue(String.format("chi-square = %.1f (df = %d)", chiSquare, degreesOfFreedom),
+        chiSquare < chiSquareCriticalValue(degreesOfFreedom));
+  }
+
+  @Test
+  public void sample_winRateAndLengthMatchExactValues() {
+    RoundSampler sampler = new RoundSampler(RandomSource.XO_RO_SHI_RO_128_PP.create(3L));
+    long wins = 0;
+    long rolls = 0;
+    for (int i = 0; i < NUM_ROUNDS; i++) {
+      if (sampler.sample()) {
+        wins++;
+        assertEquals(State.WIN, sampler.getState());
+      } else {
+        assertEquals(State.LOSS, sampler.getState());
+      }
+      rolls += sampler.getRollCount();
+    }
+    double standardError =
+        Math.sqrt(EXACT_WIN_PROBABILITY * (1 - EXACT_WIN_PROBABILITY) / NUM_ROUNDS);
+    assertEquals(EXACT_WIN_PROBABILITY, (double) wins / NUM_ROUNDS, CRITICAL_Z * standardError);
+    // The standard deviation of the number of rolls per round is less than 3.
+    assertEquals(EXACT_MEAN_ROLL_COUNT, (double) rolls / NUM_ROUNDS,
+        CRITICAL_Z * 3 / Math.sqrt(NUM_ROUNDS));
+  }
+
+  private static int cell(boolean win, int point, int rollCount) {
+    return ((win ? 1 : 0) * 13 + point) * (MAX_ROLL_COUNT + 1)
+        + Math.min(rollCount, MAX_ROLL_COUNT);
+  }
+
+  private static double chiSquareCriticalValue(int degreesOfFreedom) {
+    // Wilson-Hilferty approximation of the upper 0.001 quantile.
+    double variance = 2.0 / (9 * degreesOfFreedom);
+    return degreesOfFreedom * Math.pow(1 - variance + 3.09 * Math.sqrt(variance), 3);
+  }
+
+}
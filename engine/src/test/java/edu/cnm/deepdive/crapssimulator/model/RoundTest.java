@@ -0,0 +1,102 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.rng.simple.RandomSource;
+import org.junit.Test;
+
+/**
+ * Verifies that a {@link Round} plays by the {@link Rules} variant it's given, on construction or
+ * between rounds, comparing the win rate and mean number of rolls with the exact values of the
+ * {@link CompiledRules}.
+ */
+public class RoundTest {
+
+  private static final int NUM_ROUNDS = 200_000;
+  private static final double CRITICAL_Z = 3.29; // Two-sided significance level of 0.001.
+
+  @Test
+  public void setRules_craplessMatchesExactValues() {
+    Round round = new Round(DiceSource.create(
+        RandomSource.XO_RO_SHI_RO_128_PP.create(1L), Round.NUM_DICE, Round.NUM_SIDES));
+    round.setRules(Rules.crapless());
+    assertEquals(Rules.crapless(), round.getRules());
+    long craps = assertExactValues(round, Rules.crapless().compile());
+    assertEquals(0, craps);
+    round.play(true);
+    assertEquals(round.getRollCount(), round.getRolls().size());
+  }
+
+  @Test
+  public void play_otherDiceMatchExactValues() {
+    Rules rules = Rules.standard()
+        .withDice(3, 6)
+        .withNaturals(7, 11, 15)
+        .withCraps(3, 4, 18)
+        .withSevenOut(10);
+    Round round = new Round(DiceSource.create(RandomSource.XO_RO_SHI_RO_128_PP.create(2L), 3, 6),
+        rules);
+    assertExactValues(round, rules.compile());
+    // Rolls of three dice can't be packed, so they're counted, but not recorded.
+    round.play(true);
+    assertTrue(round.getRollCount() > 0);
+    assertTrue(round.getRolls().isEmpty());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_mismatchedDiceRejected() {
+    new Round(DiceSource.create(RandomSource.XO_RO_SHI_RO_128_PP.create(3L), 3, 6),
+        Rules.standard());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void setTape_otherDiceRejected() {
+    Round round = new Round(DiceSource.create(RandomSource.XO_RO_SHI_RO_128_PP.create(4L), 3, 6),
+        Rules.standard().withDice(3, 6));
+    round.setTape(new RollTape(16));
+  }
+
+  /** Plays {@link #NUM_ROUNDS} rounds, checking the exact values; returns the number of craps. */
+  private static long assertExactValues(Round round, CompiledRules rules) {
+    long wins = 0;
+    long craps = 0;
+    long rolls = 0;
+    double rollSquares = 0;
+    for (int i = 0; i < NUM_ROUNDS; i++) {
+      boolean win = round.play(false);
+      if (win) {
+        wins++;
+      } else if (round.getPoint() == 0) {
+        craps++;
+      }
+      rolls += round.getRollCount();
+      rollSquares += (double) round.getRollCount() * round.getRollCount();
+    }
+    double p = rules.getWinProbability();
+    assertEquals(p, (double) wins / NUM_ROUNDS, CRITICAL_Z * Math.sqrt(p * (1 - p) / NUM_ROUNDS));
+    double meanRolls = (double) rolls / NUM_ROUNDS;
+    double rollVariance = rollSquares / NUM_ROUNDS - meanRolls * meanRolls;
+    assertEquals(rules.getExpectedRolls(), meanRolls,
+        CRITICAL_Z * Math.sqrt(rollVariance / NUM_ROUNDS));
+    assertEquals(rules.getCrapsProbability(), (double) craps / NUM_ROUNDS,
+        CRITICAL_Z * Math.sqrt(0.25 / NUM_ROUNDS));
+    return craps;
+  }
+
+}
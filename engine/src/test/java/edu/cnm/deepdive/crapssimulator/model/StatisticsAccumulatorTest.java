@@ -0,0 +1,155 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import static edu.cnm.deepdive.crapssimulator.model.StatisticsAssertions.assertEquivalent;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import org.apache.commons.rng.simple.RandomSource;
+import org.junit.Test;
+
+/**
+ * Verifies that merging {@link StatisticsAccumulator} instances filled with consecutive chunks of a
+ * sequence of rounds is equivalent to accumulating the whole sequence in a single instance. The
+ * chunks are split at awkward points: in the middle of a streak, around a chunk of wins only, and
+ * with an empty chunk; some chunks are longer than the sliding window, and some shorter.
+ */
+public class StatisticsAccumulatorTest {
+
+  private static final int NUM_ROUNDS = 6_000;
+  private static final int NUM_TAIL_ROUNDS = 1_500;
+  private static final int MIN_WIN_CHUNK = 3;
+
+  @Test
+  public void merge_splitSequenceMatchesSequential() {
+    Outcomes outcomes = new Outcomes(NUM_ROUNDS + NUM_TAIL_ROUNDS, 1L);
+    int midStreak = outcomes.findRepeat(500);
+    int winStart = outcomes.findWins(2_000, MIN_WIN_CHUNK + 2) + 1;
+    int winEnd = winStart + MIN_WIN_CHUNK;
+    int[] boundaries = {
+        0, midStreak, winStart, winEnd, winEnd, winEnd + 2 * StatisticsAccumulator.WINDOW_SIZE,
+        NUM_ROUNDS
+    };
+    assertTrue(midStreak < winStart && boundaries[5] < NUM_ROUNDS);
+    StatisticsAccumulator sequential = new StatisticsAccumulator();
+    outcomes.addTo(sequential, 0, NUM_ROUNDS);
+    StatisticsAccumulator merged = new StatisticsAccumulator();
+    for (int i = 1; i < boundaries.length; i++) {
+      StatisticsAccumulator chunk = new StatisticsAccumulator();
+      outcomes.addTo(chunk, boundaries[i - 1], boundaries[i]);
+      merged.merge(chunk);
+    }
+    assertEquivalent(sequential.snapshot(), merged.snapshot());
+    // Rounds added after merging evict the oldest rounds of the window in order.
+    outcomes.addTo(sequential, NUM_ROUNDS, NUM_ROUNDS + NUM_TAIL_ROUNDS);
+    outcomes.addTo(merged, NUM_ROUNDS, NUM_ROUNDS + NUM_TAIL_ROUNDS);
+    assertEquivalent(sequential.snapshot(), merged.snapshot());
+  }
+
+  @Test
+  public void merge_allWinChunksJoinIntoOneStreak() {
+    boolean[] wins = new boolean[100];
+    Arrays.fill(wins, true);
+    Arrays.fill(wins, 90, 100, false);
+    Outcomes outcomes = new Outcomes(wins);
+    StatisticsAccumulator sequential = new StatisticsAccumulator();
+    outcomes.addTo(sequential, 0, wins.length);
+    StatisticsAccumulator merged = new StatisticsAccumulator();
+    int[] boundaries = {0, 30, 30, 60, 90, 95, 100};
+    for (int i = 1; i < boundaries.length; i++) {
+      StatisticsAccumulator chunk = new StatisticsAccumulator();
+      outcomes.addTo(chunk, boundaries[i - 1], boundaries[i]);
+      merged.merge(chunk);
+    }
+    assertEquivalent(sequential.snapshot(), merged.snapshot());
+  }
+
+  @Test
+  public void merge_untrackedHandsExcluded() {
+    Outcomes outcomes = new Outcomes(NUM_ROUNDS, 3L);
+    StatisticsAccumulator tracked = new StatisticsAccumulator();
+    outcomes.addTo(tracked, 0, NUM_ROUNDS / 2);
+    StatisticsAccumulator untracked = new StatisticsAccumulator(false);
+    outcomes.addTo(untracked, NUM_ROUNDS / 2, NUM_ROUNDS);
+    assertEquals(0, untracked.snapshot().getHandStatistics().getHands());
+    HandStatistics expected = tracked.snapshot().getHandStatistics();
+    tracked.merge(untracked);
+    Statistics merged = tracked.snapshot();
+    assertEquals(NUM_ROUNDS, merged.getRounds());
+    assertEquivalent(expected, merged.getHandStatistics());
+  }
+
+  /**
+   * Fixed sequence of round outcomes, either played with seeded dice, or specified directly (as
+   * naturals and craps).
+   */
+  static final class Outcomes {
+
+    final boolean[] wins;
+    final int[] points;
+    final int[] rollCounts;
+
+    Outcomes(int numRounds, long seed) {
+      wins = new boolean[numRounds];
+      points = new int[numRounds];
+      rollCounts = new int[numRounds];
+      Round round = new Round(DiceSource.create(
+          RandomSource.XO_RO_SHI_RO_128_PP.create(seed), Round.NUM_DICE, Round.NUM_SIDES));
+      for (int i = 0; i < numRounds; i++) {
+        wins[i] = round.play(false);
+        points[i] = round.getPoint();
+        rollCounts[i] = round.getRollCount();
+      }
+    }
+
+    Outcomes(boolean[] wins) {
+      this.wins = wins;
+      points = new int[wins.length];
+      rollCounts = new int[wins.length];
+      Arrays.fill(rollCounts, 1);
+    }
+
+    void addTo(StatisticsAccumulator accumulator, int start, int end) {
+      for (int i = start; i < end; i++) {
+        accumulator.add(wins[i], points[i], rollCounts[i]);
+        accumulator.addWagering(1, wins[i] ? 1 : -1);
+      }
+    }
+
+    /** Returns the first index, from {@code start}, in the middle of a streak. */
+    int findRepeat(int start) {
+      int index = start;
+      while (wins[index] != wins[index - 1] || wins[index] != wins[index + 1]) {
+        index++;
+      }
+      return index;
+    }
+
+    /** Returns the first index, from {@code start}, of a streak of at least {@code length} wins. */
+    int findWins(int start, int length) {
+      int index = start;
+      int run = 0;
+      while (run < length) {
+        run = wins[index++] ? run + 1 : 0;
+      }
+      return index - length;
+    }
+
+  }
+
+}
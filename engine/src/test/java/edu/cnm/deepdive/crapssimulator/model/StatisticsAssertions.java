@@ -0,0 +1,103 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Assertions comparing {@link Statistics} instances, for tests of merging, and of reproducibility
+ * across engine configurations. Counts are compared exactly; rates and sums of doubles, which may
+ * be computed in a different order, are compared to within a relative error of 10<sup>-12</sup>.
+ */
+public final class StatisticsAssertions {
+
+  private static final double RELATIVE_TOLERANCE = 1e-12;
+
+  private StatisticsAssertions() {
+    // Static methods only.
+  }
+
+  /**
+   * Asserts that the specified {@link Statistics} are equivalent.
+   *
+   * @param expected Expected statistics.
+   * @param actual Actual statistics.
+   */
+  public static void assertEquivalent(Statistics expected, Statistics actual) {
+    assertEquals("rounds", expected.getRounds(), actual.getRounds());
+    assertEquals("wins", expected.getWins(), actual.getWins());
+    assertEquals("rolls", expected.getRolls(), actual.getRolls());
+    assertEquals("naturals", expected.getNaturals(), actual.getNaturals());
+    assertEquals("craps", expected.getCraps(), actual.getCraps());
+    assertArrayEquals("roll counts",
+        expected.getRollCountHistogram(), actual.getRollCountHistogram());
+    for (int point = 0; point <= Rules.MAX_SUM; point++) {
+      assertEquals("point " + point,
+          expected.getPointFrequency(point), actual.getPointFrequency(point));
+      assertEquals("point wins " + point, expected.getPointWins(point), actual.getPointWins(point));
+    }
+    for (int length = 1; length <= StatisticsAccumulator.MAX_STREAK; length++) {
+      assertEquals("win streaks " + length,
+          expected.getStreakFrequency(true, length), actual.getStreakFrequency(true, length));
+      assertEquals("loss streaks " + length,
+          expected.getStreakFrequency(false, length), actual.getStreakFrequency(false, length));
+    }
+    assertEquals("longest win streak",
+        expected.getLongestWinStreak(), actual.getLongestWinStreak());
+    assertEquals("longest loss streak",
+        expected.getLongestLossStreak(), actual.getLongestLossStreak());
+    assertEquals("current streak win", expected.isCurrentStreakWin(), actual.isCurrentStreakWin());
+    assertEquals("current streak", expected.getCurrentStreak(), actual.getCurrentStreak());
+    assertEquals("window win rate", expected.getWindowWinRate(), actual.getWindowWinRate(), 0);
+    assertClose("decayed win rate", expected.getDecayedWinRate(), actual.getDecayedWinRate());
+    assertClose("action", expected.getAction(), actual.getAction());
+    assertClose("net", expected.getNet(), actual.getNet());
+    assertEquivalent(expected.getHandStatistics(), actual.getHandStatistics());
+  }
+
+  /**
+   * Asserts that the specified {@link HandStatistics} are equivalent.
+   *
+   * @param expected Expected statistics.
+   * @param actual Actual statistics.
+   */
+  public static void assertEquivalent(HandStatistics expected, HandStatistics actual) {
+    assertEquals("hands", expected.getHands(), actual.getHands());
+    assertEquals("mean hand rolls", expected.getMeanRolls(), actual.getMeanRolls(), 0);
+    assertEquals("mean hand rounds", expected.getMeanRounds(), actual.getMeanRounds(), 0);
+    assertEquals("mean points made",
+        expected.getMeanPointsMade(), actual.getMeanPointsMade(), 0);
+    for (int rolls = 0; rolls <= StatisticsAccumulator.MAX_HAND_ROLLS; rolls++) {
+      assertEquals("hands of " + rolls + " rolls",
+          expected.getRollCountFrequency(rolls), actual.getRollCountFrequency(rolls));
+    }
+    for (int points = 0; points <= StatisticsAccumulator.MAX_POINTS_MADE; points++) {
+      assertEquals("hands with " + points + " points made",
+          expected.getPointsMadeFrequency(points), actual.getPointsMadeFrequency(points));
+    }
+    assertEquals("longest hand", expected.getLongestHand(), actual.getLongestHand());
+    assertEquals("most points made", expected.getMostPointsMade(), actual.getMostPointsMade());
+    assertEquals("current hand rolls", expected.getCurrentRolls(), actual.getCurrentRolls());
+    assertEquals("current hand points made",
+        expected.getCurrentPointsMade(), actual.getCurrentPointsMade());
+  }
+
+  private static void assertClose(String message, double expected, double actual) {
+    assertEquals(message, expected, actual, RELATIVE_TOLERANCE * Math.abs(expected));
+  }
+
+}
@@ -0,0 +1,71 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import edu.cnm.deepdive.crapssimulator.model.Statistics;
+import edu.cnm.deepdive.crapssimulator.model.StatisticsAccumulator;
+import edu.cnm.deepdive.crapssimulator.model.VarianceReducedEstimate;
+import org.apache.commons.rng.JumpableUniformRandomProvider;
+import org.apache.commons.rng.simple.RandomSource;
+import org.junit.Test;
+
+/**
+ * Verifies that the {@link VarianceReducedEstimate} computed from the antithetic pairs of an {@link
+ * AntitheticEngine} is consistent with the exact probability of a win, and has less variance than
+ * the plain tally of the same rounds; and that hands, which the dependent rounds of each pair
+ * don't validly form, are not tracked.
+ */
+public class AntitheticEngineTest {
+
+  private static final long SEED = 17L;
+  private static final int NUM_ROUNDS = 1_000_000;
+  private static final int BATCH_SIZE = 100_000;
+  private static final double WIN_PROBABILITY = 244.0 / 495;
+  private static final double CRITICAL_Z = 4;
+
+  @Test
+  public void play_varianceReducedEstimateUnbiasedWithLessVariance() {
+    JumpableUniformRandomProvider rng =
+        (JumpableUniformRandomProvider) RandomSource.XO_RO_SHI_RO_128_PP.create(SEED);
+    StatisticsAccumulator statistics = new StatisticsAccumulator();
+    long wins = 0;
+    try (AntitheticEngine engine = new AntitheticEngine(rng, 2)) {
+      for (int i = 0; i < NUM_ROUNDS / BATCH_SIZE; i++) {
+        wins += engine.play(BATCH_SIZE, statistics);
+      }
+    }
+    Statistics snapshot = statistics.snapshot();
+    assertEquals(NUM_ROUNDS, snapshot.getRounds());
+    assertEquals(wins, snapshot.getWins());
+    assertEquals(0, snapshot.getHandStatistics().getHands());
+    VarianceReducedEstimate estimate = snapshot.getVarianceReducedEstimate();
+    assertEquals(NUM_ROUNDS / 2, estimate.getPairs());
+    double error = estimate.getWinRateError();
+    assertTrue(error > 0);
+    assertEquals(WIN_PROBABILITY, estimate.getWinRate(), CRITICAL_Z * error);
+    double plainRate = (double) wins / NUM_ROUNDS;
+    double plainVariance = plainRate * (1 - plainRate) / NUM_ROUNDS;
+    assertEquals(WIN_PROBABILITY, plainRate, CRITICAL_Z * Math.sqrt(plainVariance));
+    assertTrue(error * error < plainVariance);
+    assertEquals(plainVariance / (error * error), estimate.getWinRateGain(),
+        1e-9 * estimate.getWinRateGain());
+    assertTrue(estimate.getWinRateGain() > 1);
+  }
+
+}
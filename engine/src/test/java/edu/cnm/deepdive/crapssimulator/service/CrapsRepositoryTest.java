@@ -0,0 +1,166 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.service;
+
+import static edu.cnm.deepdive.crapssimulator.model.StatisticsAssertions.assertEquivalent;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import edu.cnm.deepdive.crapssimulator.model.CompiledRules;
+import edu.cnm.deepdive.crapssimulator.model.Rules;
+import edu.cnm.deepdive.crapssimulator.model.Snapshot;
+import io.reactivex.rxjava3.disposables.Disposable;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Verifies checkpointing and resumption of seeded runs in {@link CrapsRepository}: a run resumed
+ * from a checkpoint continues exactly as if it hadn't been interrupted, and a checkpoint that can't
+ * be resumed leaves the run as if it had just started. Also verifies that a change of rules resets
+ * the tally and statistics, and is resumed from a checkpoint, and that a precision-targeted run
+ * stops once the target half-width is reached.
+ */
+public class CrapsRepositoryTest {
+
+  private static final long SEED = 7L;
+  private static final int ROUNDS = 200_000;
+  private static final long TIMEOUT_SECONDS = 60;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void resume_continuesUninterruptedRun() throws IOException, InterruptedException {
+    File checkpoint = folder.newFile();
+    CrapsRepository interrupted = new CrapsRepository(2, SEED, checkpoint);
+    runOnce(interrupted, ROUNDS);
+    close(interrupted);
+    CrapsRepository resumed = new CrapsRepository(2, SEED, checkpoint);
+    Snapshot actual = runOnce(resumed, ROUNDS);
+    close(resumed);
+    CrapsRepository uninterrupted = new CrapsRepository(2, SEED);
+    runOnce(uninterrupted, ROUNDS);
+    Snapshot expected = runOnce(uninterrupted, ROUNDS);
+    close(uninterrupted);
+    assertEquals(2 * ROUNDS, actual.getRounds());
+    assertEquals(expected.getWins(), actual.getWins());
+    assertEquivalent(expected.getStatistics(), actual.getStatistics());
+  }
+
+  @Test
+  public void resume_mismatchedCheckpointStartsAfresh() throws IOException, InterruptedException {
+    File checkpoint = folder.newFile();
+    // The checkpoint holds 2 antithetic worker streams; the seeded and sampled engines, restored
+    // before them, are compatible.
+    CrapsRepository written = new CrapsRepository(2, SEED, checkpoint);
+    runOnce(written, ROUNDS);
+    close(written);
+    CrapsRepository resumed = new CrapsRepository(3, SEED, checkpoint);
+    Snapshot actual = runOnce(resumed, ROUNDS);
+    close(resumed);
+    CrapsRepository fresh = new CrapsRepository(3, SEED);
+    Snapshot expected = runOnce(fresh, ROUNDS);
+    close(fresh);
+    assertEquals(ROUNDS, actual.getRounds());
+    assertEquals(expected.getWins(), actual.getWins());
+    assertEquivalent(expected.getStatistics(), actual.getStatistics());
+  }
+
+  @Test
+  public void setRules_resetsAndResumesVariant() throws IOException, InterruptedException {
+    File checkpoint = folder.newFile();
+    CrapsRepository written = new CrapsRepository(2, SEED, checkpoint);
+    runOnce(written, ROUNDS);
+    written.setRules(Rules.crapless());
+    Snapshot variant = runOnce(written, ROUNDS);
+    close(written);
+    assertEquals(ROUNDS, variant.getRounds());
+    assertEquals(0, variant.getStatistics().getCraps());
+    CompiledRules rules = Rules.crapless().compile();
+    double p = rules.getWinProbability();
+    assertEquals(p, (double) variant.getWins() / ROUNDS, 3.29 * Math.sqrt(p * (1 - p) / ROUNDS));
+    CrapsRepository resumed = new CrapsRepository(2, SEED, checkpoint);
+    Snapshot actual = runOnce(resumed, ROUNDS);
+    close(resumed);
+    assertEquals(2 * ROUNDS, actual.getRounds());
+    assertEquals(0, actual.getStatistics().getCraps());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void setRules_otherDiceRejected() throws InterruptedException {
+    CrapsRepository repository = new CrapsRepository(1, SEED);
+    try {
+      repository.setRules(Rules.standard().withDice(3, 6));
+    } finally {
+      close(repository);
+    }
+  }
+
+  @Test
+  public void runToPrecision_stopsWithNoRoundsRemaining() throws InterruptedException {
+    double halfWidth = 0.005;
+    CrapsRepository repository = new CrapsRepository(2, SEED);
+    AtomicReference<Snapshot> last = new AtomicReference<>();
+    CountDownLatch reached = new CountDownLatch(1);
+    Disposable subscription = repository
+        .getSnapshots()
+        .subscribe((snapshot) -> {
+          last.set(snapshot);
+          if (snapshot.getRemainingRounds() == 0) {
+            reached.countDown();
+          }
+        });
+    repository.runToPrecision(halfWidth, 0.95, 10, TimeUnit.MILLISECONDS);
+    assertTrue(reached.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    subscription.dispose();
+    close(repository);
+    Snapshot snapshot = last.get();
+    assertEquals(0, snapshot.getRemainingRounds());
+    assertTrue(snapshot.getInterval().getHalfWidth() <= halfWidth);
+    assertEquals(snapshot.getRounds(), snapshot.getInterval().getTrials());
+  }
+
+  /** Simulates a single batch of the specified size, and returns the resulting snapshot. */
+  static Snapshot runOnce(CrapsRepository repository, int rounds) throws InterruptedException {
+    AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    CountDownLatch published = new CountDownLatch(1);
+    Disposable subscription = repository
+        .getSnapshots()
+        .subscribe((value) -> {
+          snapshot.set(value);
+          published.countDown();
+        });
+    repository.runOnce(rounds);
+    assertTrue(published.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    subscription.dispose();
+    assertNotNull(snapshot.get());
+    return snapshot.get();
+  }
+
+  /** Closes the specified repository, waiting until its last checkpoint has been written. */
+  static void close(CrapsRepository repository) throws InterruptedException {
+    repository.close();
+    assertTrue(repository.awaitTermination(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+  }
+
+}
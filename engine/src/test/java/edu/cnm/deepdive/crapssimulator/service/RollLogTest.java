@@ -0,0 +1,148 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import edu.cnm.deepdive.crapssimulator.model.DiceSource;
+import edu.cnm.deepdive.crapssimulator.model.PackedRolls;
+import edu.cnm.deepdive.crapssimulator.model.Roll;
+import edu.cnm.deepdive.crapssimulator.model.RollTape;
+import edu.cnm.deepdive.crapssimulator.model.Round;
+import edu.cnm.deepdive.crapssimulator.model.StatisticsAccumulator;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.rng.simple.RandomSource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Verifies that rounds written by a {@link RollLogWriter}, in batches not aligned with the index
+ * interval and across a reopening of the log, are read back unchanged: sequentially, from the
+ * segment file, and by seeking to individual rounds with a {@link RollLogReader}; and that
+ * batches too large to be taped at once are recorded in parts, in order.
+ */
+public class RollLogTest {
+
+  private static final int BATCH_SIZE = 1_500;
+  private static final int BATCHES_PER_SESSION = 4;
+  private static final int SESSIONS = 2;
+  private static final int NUM_ROUNDS = BATCH_SIZE * BATCHES_PER_SESSION * SESSIONS;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void write_roundTripsSequentiallyAndBySeeking() throws IOException {
+    File directory = folder.newFolder();
+    Round round = new Round(DiceSource.create(
+        RandomSource.XO_RO_SHI_RO_128_PP.create(13L), Round.NUM_DICE, Round.NUM_SIDES));
+    RollTape tape = new RollTape(RollLogWriter.INDEX_INTERVAL);
+    round.setTape(tape);
+    List<byte[]> expected = new ArrayList<>(NUM_ROUNDS);
+    ByteArrayOutputStream allRolls = new ByteArrayOutputStream();
+    for (int session = 0; session < SESSIONS; session++) {
+      try (RollLogWriter writer = new RollLogWriter(directory)) {
+        for (int batch = 0; batch < BATCHES_PER_SESSION; batch++) {
+          for (int i = 0; i < BATCH_SIZE; i++) {
+            round.play(true);
+            byte[] rolls = pack(round.getRolls());
+            expected.add(rolls);
+            allRolls.write(rolls, 0, rolls.length);
+          }
+          writer.append(tape);
+          writer.flush();
+          tape.clear();
+        }
+      }
+    }
+    byte[] written = allRolls.toByteArray();
+    try (RollLogReader reader = new RollLogReader(directory)) {
+      assertEquals(NUM_ROUNDS, reader.getRoundCount());
+      assertEquals(written.length, reader.getRollCount());
+      assertArrayEquals(written, readSegment(directory, written.length));
+      for (int i = 0; i < NUM_ROUNDS; i += 97) {
+        assertArrayEquals("round " + i, expected.get(i), pack(reader.getRolls(i)));
+      }
+      for (int i = RollLogWriter.INDEX_INTERVAL - 1; i < NUM_ROUNDS;
+          i += RollLogWriter.INDEX_INTERVAL) {
+        // Last round before, and first round after, each index entry.
+        assertArrayEquals("round " + i, expected.get(i), pack(reader.getRolls(i)));
+        assertArrayEquals("round " + (i + 1), expected.get(i + 1), pack(reader.getRolls(i + 1)));
+      }
+      assertArrayEquals(expected.get(NUM_ROUNDS - 1), pack(reader.getRolls(NUM_ROUNDS - 1)));
+    }
+  }
+
+  @Test
+  public void play_largeBatchesRecordedInParts() throws IOException {
+    int rounds = 3 * SeededEngine.BLOCK_SIZE + 1_000;
+    File seededDirectory = folder.newFolder();
+    try (SeededEngine engine = new SeededEngine(17L, 2)) {
+      try (RollLogWriter writer = new RollLogWriter(seededDirectory)) {
+        engine.setRecorder(writer);
+        engine.play(rounds, new StatisticsAccumulator());
+        engine.setRecorder(null);
+      }
+      try (RollLogReader reader = new RollLogReader(seededDirectory)) {
+        assertEquals(rounds, reader.getRoundCount());
+        for (int i = 0; i < rounds; i += 9_973) {
+          assertArrayEquals("round " + i,
+              pack(engine.replay(i).getRolls()), pack(reader.getRolls(i)));
+        }
+        assertArrayEquals(pack(engine.getRound().getRolls()), pack(reader.getRolls(rounds - 1)));
+      }
+    }
+    File parallelDirectory = folder.newFolder();
+    int perWorker = 2 * RollLogWriter.TAPE_ROUNDS + 1_000;
+    try (ParallelEngine engine = new ParallelEngine(RandomSource.XO_RO_SHI_RO_128_PP, 2)) {
+      try (RollLogWriter writer = new RollLogWriter(parallelDirectory)) {
+        engine.setRecorder(writer);
+        engine.play(2 * perWorker, new StatisticsAccumulator());
+        engine.setRecorder(null);
+      }
+      try (RollLogReader reader = new RollLogReader(parallelDirectory)) {
+        assertEquals(2 * perWorker, reader.getRoundCount());
+        assertArrayEquals(pack(engine.getRound().getRolls()),
+            pack(reader.getRolls(2 * perWorker - 1)));
+      }
+    }
+  }
+
+  private static byte[] pack(List<Roll> rolls) {
+    byte[] packed = new byte[rolls.size()];
+    for (int i = 0; i < packed.length; i++) {
+      packed[i] = PackedRolls.encode(rolls.get(i).getDice());
+    }
+    return packed;
+  }
+
+  private static byte[] readSegment(File directory, int length) throws IOException {
+    byte[] rolls = new byte[length];
+    try (RandomAccessFile segment =
+        new RandomAccessFile(RollLogWriter.segmentFile(directory, 0), "r")) {
+      segment.readFully(rolls);
+    }
+    return rolls;
+  }
+
+}
@@ -0,0 +1,98 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.service;
+
+import static org.junit.Assert.assertEquals;
+
+import edu.cnm.deepdive.crapssimulator.model.Bet;
+import edu.cnm.deepdive.crapssimulator.model.BettingStrategy;
+import edu.cnm.deepdive.crapssimulator.model.Rules;
+import edu.cnm.deepdive.crapssimulator.model.Statistics;
+import edu.cnm.deepdive.crapssimulator.model.StatisticsAccumulator;
+import org.apache.commons.rng.simple.RandomSource;
+import org.junit.Test;
+
+/**
+ * Verifies the payouts of single-bet strategies played by a {@link SampledEngine}, against the exact
+ * house edges of those bets. The batches are small, so that many come and don't come bets are still
+ * working at the end of a batch; these must be resolved in subsequent batches, rather than dropped.
+ * Line bets are also verified under crapless craps, where they must follow the variant's rules.
+ */
+public class SampledEngineTest {
+
+  private static final int NUM_ROUNDS = 2_000_000;
+  private static final int BATCH_SIZE = 20;
+  private static final double CRITICAL_Z = 4;
+  private static final double CRAPLESS_LINE_EDGE =
+      1 - 2 * Rules.crapless().compile().getWinProbability();
+
+  @Test
+  public void play_passLineHouseEdge() {
+    assertHouseEdge(Bet.PASS, 7.0 / 495, 1L);
+  }
+
+  @Test
+  public void play_comeHouseEdge() {
+    assertHouseEdge(Bet.COME, 7.0 / 495, 2L);
+  }
+
+  @Test
+  public void play_dontComeHouseEdge() {
+    // 3/220 per bet placed; pushes on 12 aren't included in the action.
+    assertHouseEdge(Bet.DONT_COME, 27.0 / 1925, 3L);
+  }
+
+  @Test
+  public void play_place6HouseEdge() {
+    assertHouseEdge(Bet.PLACE_6, 1.0 / 66, 4L);
+  }
+
+  @Test
+  public void play_fieldHouseEdge() {
+    // With 2 paying 2:1 and 12 paying 3:1.
+    assertHouseEdge(Bet.FIELD, 1.0 / 36, 5L);
+  }
+
+  @Test
+  public void play_craplessPassLineHouseEdge() {
+    assertHouseEdge(Bet.PASS, Rules.crapless(), CRAPLESS_LINE_EDGE, 6L);
+  }
+
+  @Test
+  public void play_craplessComeHouseEdge() {
+    assertHouseEdge(Bet.COME, Rules.crapless(), CRAPLESS_LINE_EDGE, 7L);
+  }
+
+  private static void assertHouseEdge(Bet bet, double expected, long seed) {
+    assertHouseEdge(bet, Rules.standard(), expected, seed);
+  }
+
+  private static void assertHouseEdge(Bet bet, Rules rules, double expected, long seed) {
+    SampledEngine engine = new SampledEngine(RandomSource.XO_RO_SHI_RO_128_PP.create(seed));
+    engine.setRules(rules);
+    engine.setStrategy(BettingStrategy.none().with(bet, 1));
+    StatisticsAccumulator statistics = new StatisticsAccumulator();
+    for (int i = 0; i < NUM_ROUNDS / BATCH_SIZE; i++) {
+      engine.play(BATCH_SIZE, statistics);
+    }
+    Statistics snapshot = statistics.snapshot();
+    assertEquals(NUM_ROUNDS, snapshot.getRounds());
+    double meanAction = snapshot.getAction() / NUM_ROUNDS;
+    double standardError = Math.sqrt(snapshot.getNetVariance() / NUM_ROUNDS) / meanAction;
+    assertEquals(bet.toString(), expected, snapshot.getHouseEdge(), CRITICAL_Z * standardError);
+  }
+
+}
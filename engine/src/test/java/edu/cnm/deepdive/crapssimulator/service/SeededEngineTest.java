@@ -0,0 +1,148 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.service;
+
+import static edu.cnm.deepdive.crapssimulator.model.StatisticsAssertions.assertEquivalent;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import edu.cnm.deepdive.crapssimulator.model.Bet;
+import edu.cnm.deepdive.crapssimulator.model.BettingStrategy;
+import edu.cnm.deepdive.crapssimulator.model.Roll;
+import edu.cnm.deepdive.crapssimulator.model.Round;
+import edu.cnm.deepdive.crapssimulator.model.StatisticsAccumulator;
+import java.nio.ByteBuffer;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Verifies that the rounds played by a {@link SeededEngine} depend only on the seed: not on the
+ * number of workers, the sequence of batch sizes, or an interruption by saving and restoring its
+ * state. The same holds for wagering results, including those of come and don't come bets carried
+ * from one batch to the next.
+ */
+public class SeededEngineTest {
+
+  private static final long SEED = 42L;
+  private static final int NUM_ROUNDS = 600_000;
+  private static final BettingStrategy STRATEGY = BettingStrategy.none()
+      .with(Bet.PASS, 1)
+      .with(Bet.COME, 1)
+      .with(Bet.DONT_COME, 1);
+
+  @Test
+  public void play_resultsIndependentOfWorkersAndBatchSizes() {
+    assertIndependentOfWorkersAndBatchSizes(BettingStrategy.none());
+  }
+
+  @Test
+  public void play_wageringIndependentOfWorkersAndBatchSizes() {
+    // Come and don't come bets still working at the end of a batch are carried to the next.
+    assertIndependentOfWorkersAndBatchSizes(STRATEGY);
+  }
+
+  @Test
+  public void restoreState_resumesMidBlock() {
+    int interrupted = SeededEngine.BLOCK_SIZE + 34_465;
+    Run uninterrupted = new Run(2);
+    uninterrupted.play(interrupted);
+    uninterrupted.play(NUM_ROUNDS - interrupted);
+    Run saved = new Run(2);
+    saved.play(interrupted);
+    ByteBuffer state = ByteBuffer.allocate(Long.BYTES * 2);
+    saved.engine.saveState(state);
+    state.flip();
+    Run resumed = new Run(3);
+    resumed.engine.restoreState(state);
+    resumed.wins = saved.wins;
+    resumed.statistics.merge(saved.statistics);
+    resumed.play(NUM_ROUNDS - interrupted);
+    assertEquals(NUM_ROUNDS, resumed.engine.getPosition());
+    uninterrupted.assertSameAs(resumed);
+    uninterrupted.engine.close();
+    saved.engine.close();
+    resumed.engine.close();
+  }
+
+  private static void assertIndependentOfWorkersAndBatchSizes(BettingStrategy strategy) {
+    Run sequential = new Run(1, strategy);
+    for (int i = 0; i < 6; i++) {
+      sequential.play(NUM_ROUNDS / 6);
+    }
+    Run parallel = new Run(4, strategy);
+    parallel.play(123_457);
+    parallel.play(250_000);
+    parallel.play(NUM_ROUNDS - 123_457 - 250_000);
+    Run single = new Run(3, strategy);
+    single.play(NUM_ROUNDS);
+    Run small = new Run(2, strategy);
+    for (int remaining = NUM_ROUNDS, size = 1; remaining > 0; size = size * 7 % 50_021) {
+      int count = Math.min(remaining, size);
+      small.play(count);
+      remaining -= count;
+    }
+    sequential.assertSameAs(parallel);
+    sequential.assertSameAs(single);
+    sequential.assertSameAs(small);
+    if (!strategy.isEmpty()) {
+      assertTrue(sequential.statistics.snapshot().getAction() > NUM_ROUNDS);
+    }
+    sequential.engine.close();
+    parallel.engine.close();
+    single.engine.close();
+    small.engine.close();
+  }
+
+  private static final class Run {
+
+    private final SeededEngine engine;
+    private final StatisticsAccumulator statistics;
+
+    private long wins;
+
+    private Run(int parallelism) {
+      this(parallelism, BettingStrategy.none());
+    }
+
+    private Run(int parallelism, BettingStrategy strategy) {
+      engine = new SeededEngine(SEED, parallelism);
+      engine.setStrategy(strategy);
+      statistics = new StatisticsAccumulator();
+    }
+
+    private void play(int rounds) {
+      wins += engine.play(rounds, statistics);
+    }
+
+    private void assertSameAs(Run other) {
+      assertEquals(wins, other.wins);
+      assertEquals(statistics.snapshot().getWins(), wins);
+      assertEquivalent(statistics.snapshot(), other.statistics.snapshot());
+      assertEquals(values(engine.getRound()), values(other.engine.getRound()));
+    }
+
+    private static String values(Round round) {
+      StringBuilder values = new StringBuilder();
+      List<Roll> rolls = round.getRolls();
+      for (Roll roll : rolls) {
+        values.append(roll.getDie(0)).append(roll.getDie(1)).append(' ');
+      }
+      return values.toString();
+    }
+
+  }
+
+}
@@ -0,0 +1,319 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.vector;
+
+import edu.cnm.deepdive.crapssimulator.model.BettingStrategy;
+import edu.cnm.deepdive.crapssimulator.model.DiceSource;
+import edu.cnm.deepdive.crapssimulator.model.LaneAccumulator;
+import edu.cnm.deepdive.crapssimulator.model.Round;
+import edu.cnm.deepdive.crapssimulator.model.Rules;
+import edu.cnm.deepdive.crapssimulator.model.StatisticsAccumulator;
+import edu.cnm.deepdive.crapssimulator.service.Engine;
+import edu.cnm.deepdive.crapssimulator.service.ParallelEngine;
+import edu.cnm.deepdive.crapssimulator.service.RandomStreams;
+import edu.cnm.deepdive.crapssimulator.service.RollLogWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import org.apache.commons.rng.UniformRandomProvider;
+import org.apache.commons.rng.simple.RandomSource;
+
+/**
+ * Simulates batches of rounds of the pass line with the lanes of SIMD vectors, using the
+ * (incubating) Vector API. Each worker plays one round per lane of the preferred {@code long}
+ * vector species (e.g. 4 lanes with AVX2, 8 with AVX-512): on each step, the dice are rolled for
+ * every lane, the come-out and point rules are applied to all lanes at once with masked compares,
+ * and lanes whose rounds are decided are retired, and immediately started on a new round, until
+ * the worker's share of the batch has been started. The dice are rolled in the lanes too, by
+ * multiplication rather than division, with exactly the distribution of those rolled by the {@link
+ * DiceSource} of the scalar engines (though not the same sequence, for the same stream).
+ * <p>Retired rounds are added to a {@link LaneAccumulator}, in primitive per-lane counters and
+ * outcome words, which are folded into the worker's {@link StatisticsAccumulator} once per batch,
+ * so that the statistics (including streaks) are those of an ordinary sequence of rounds: the
+ * sequence of each lane, followed by that of the next. The last round of each batch is played by a
+ * {@link Round}, so that its rolls may be included in a snapshot. While a {@link BettingStrategy}
+ * is in effect, or the rolls are being recorded, batches are delegated to a {@link ParallelEngine}
+ * sharing the same worker streams, since wagers are resolved, and rolls recorded, one roll at a
+ * time; so are those played by a {@link Rules} variant other than the standard rules, which are
+ * built into the lane kernel.</p>
+ * <p>The state saved by this engine is compatible with that of a {@link ParallelEngine} with the
+ * same number of workers. Instances may be created through {@link #FACTORY}; the class can be
+ * loaded only if the {@code jdk.incubator.vector} module is available.</p>
+ */
+public class VectorEngine implements Engine {
+
+  /** Creates instances of this class for a {@code CrapsRepository}. */
+  public static final Engine.Factory FACTORY = VectorEngine::new;
+
+  private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+  private static final int MIN_ROUNDS_PER_WORKER = 1_000;
+  private static final long NUM_OUTCOMES = Round.NUM_SIDES * Round.NUM_SIDES;
+  private static final long LOW_HALF = 0xffff_ffffL;
+  private static final long REJECTION_LIMIT = (1L << Integer.SIZE) % NUM_OUTCOMES;
+  // For outcome indices (0 to 35), (i * 43) >>> 8 == i / 6.
+  private static final long DIV6_MULTIPLIER = 43;
+  private static final int DIV6_SHIFT = 8;
+  private static final long WIN = 2;
+  private static final long LOSS = 1;
+  private static final LongVector ZERO = LongVector.zero(SPECIES);
+
+  private final ForkJoinPool pool;
+  private final UniformRandomProvider[] sources;
+  private final Lanes[] workers;
+  private final ParallelEngine scalarEngine;
+
+  private Round round;
+  private boolean wagering;
+  private boolean recording;
+  private boolean variant;
+
+  /**
+   * Initializes this instance with randomly seeded streams of the specified source of randomness,
+   * and the specified number of workers.
+   *
+   * @param source Source of randomness, from which the worker streams are created.
+   * @param parallelism Number of worker threads (and independent streams) to use.
+   */
+  public VectorEngine(RandomSource source, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException();
+    }
+    pool = (parallelism > 1) ? new ForkJoinPool(parallelism) : null;
+    sources = RandomStreams.create(source, parallelism);
+    workers = new Lanes[parallelism];
+    for (int i = 0; i < parallelism; i++) {
+      workers[i] = new Lanes(sources[i]);
+    }
+    scalarEngine = new ParallelEngine(sources);
+    round = workers[0].round;
+  }
+
+  /**
+   * Returns the number of lanes (rounds played simultaneously by each worker) of the preferred
+   * vector species on this platform.
+   *
+   * @return {@code int}
+   */
+  public static int getLaneCount() {
+    return SPECIES.length();
+  }
+
+  @Override
+  public long play(int rounds, StatisticsAccumulator statistics) {
+    long wins;
+    if (wagering || recording || variant) {
+      wins = scalarEngine.play(rounds, statistics);
+      round = scalarEngine.getRound();
+    } else {
+      int numWorkers = Math.max(1, Math.min(workers.length, rounds / MIN_ROUNDS_PER_WORKER));
+      if (numWorkers == 1) {
+        wins = workers[0].play(rounds, true);
+      } else {
+        List<ForkJoinTask<Long>> tasks = new ArrayList<>(numWorkers);
+        int chunk = rounds / numWorkers;
+        int remainder = rounds % numWorkers;
+        for (int i = 0; i < numWorkers; i++) {
+          Lanes worker = workers[i];
+          int count = chunk + ((i < remainder) ? 1 : 0);
+          boolean last = (i == numWorkers - 1);
+          tasks.add(pool.submit(() -> worker.play(count, last)));
+        }
+        wins = 0;
+        for (ForkJoinTask<Long> task : tasks) {
+          wins += task.join();
+        }
+      }
+      round = workers[numWorkers - 1].round;
+      for (int i = 0; i < numWorkers; i++) {
+        // Buffered dice values aren't part of the saved (or shared) state.
+        workers[i].dice.discardBuffered();
+        statistics.merge(workers[i].statistics);
+        workers[i].statistics.reset();
+      }
+    }
+    return wins;
+  }
+
+  @Override
+  public void setStrategy(BettingStrategy strategy) {
+    scalarEngine.setStrategy(strategy);
+    wagering = !strategy.isEmpty();
+  }
+
+  @Override
+  public void setRules(Rules rules) {
+    scalarEngine.setRules(rules);
+    variant = !rules.equals(Rules.standard());
+  }
+
+  @Override
+  public void setRecorder(RollLogWriter recorder) {
+    scalarEngine.setRecorder(recorder);
+    recording = (recorder != null);
+  }
+
+  @Override
+  public void saveState(ByteBuffer buffer) {
+    RandomStreams.saveStates(sources, buffer);
+  }
+
+  @Override
+  public void restoreState(ByteBuffer buffer) {
+    RandomStreams.restoreStates(sources, buffer);
+  }
+
+  @Override
+  public Round getRound() {
+    return round;
+  }
+
+  @Override
+  public void close() {
+    if (pool != null) {
+      pool.shutdown();
+    }
+    scalarEngine.close();
+  }
+
+  /**
+   * Plays the share of a batch assigned to one worker, with one round in progress per lane.
+   */
+  private static final class Lanes {
+
+    private final UniformRandomProvider rng;
+    private final DiceSource dice;
+    private final Round round;
+    private final StatisticsAccumulator statistics;
+    private final LaneAccumulator laneStatistics;
+    private final long[] words;
+    private final long[] outcomes;
+    private final long[] points;
+    private final long[] rollCounts;
+
+    private Lanes(UniformRandomProvider rng) {
+      int numLanes = SPECIES.length();
+      this.rng = rng;
+      dice = DiceSource.create(rng, Round.NUM_DICE, Round.NUM_SIDES);
+      round = new Round(dice);
+      statistics = new StatisticsAccumulator();
+      round.setStatistics(statistics);
+      laneStatistics = new LaneAccumulator(numLanes);
+      words = new long[numLanes];
+      outcomes = new long[numLanes];
+      points = new long[numLanes];
+      rollCounts = new long[numLanes];
+    }
+
+    private long play(int count, boolean recordLast) {
+      int laneRounds = (recordLast && count > 0) ? count - 1 : count;
+      long wins = playLanes(laneRounds);
+      laneStatistics.drainTo(statistics);
+      if (laneRounds < count && round.play(true)) {
+        wins++;
+      }
+      return wins;
+    }
+
+    private long playLanes(int count) {
+      int numLanes = SPECIES.length();
+      int started = Math.min(numLanes, count);
+      long active = (started < Long.SIZE) ? (1L << started) - 1 : -1L;
+      long wins = 0;
+      boolean highHalves = false;
+      Arrays.fill(points, 0);
+      Arrays.fill(rollCounts, 0);
+      while (active != 0) {
+        // Lane state lives in the arrays between steps, and outcomes are passed back as integers
+        // rather than mask bits, so that no vector or mask needs to be materialized on the heap.
+        rollOutcomes(highHalves);
+        highHalves = !highHalves;
+        LongVector outcome = LongVector.fromArray(SPECIES, outcomes, 0);
+        LongVector sum = outcome
+            .sub(outcome.mul(DIV6_MULTIPLIER).lanewise(VectorOperators.LSHR, DIV6_SHIFT).mul(5))
+            .add(2);
+        LongVector point = LongVector.fromArray(SPECIES, points, 0);
+        VectorMask<Long> comeOut = point.eq(0);
+        VectorMask<Long> seven = sum.eq(7);
+        LongVector comeOutResult = ZERO
+            .blend(WIN, seven.or(sum.eq(11)))
+            .blend(LOSS, sum.lt(4).or(sum.eq(12)));
+        LongVector pointResult = ZERO
+            .blend(WIN, sum.eq(point))
+            .blend(LOSS, seven);
+        LongVector result = pointResult.blend(comeOutResult, comeOut);
+        point.blend(sum, comeOut.and(result.eq(0))).intoArray(points, 0);
+        LongVector.fromArray(SPECIES, rollCounts, 0).add(1).intoArray(rollCounts, 0);
+        result.intoArray(outcomes, 0);
+        for (int lane = 0; lane < numLanes; lane++) {
+          if (outcomes[lane] != 0 && ((active >>> lane) & 1) != 0) {
+            boolean won = (outcomes[lane] == WIN);
+            laneStatistics.add(lane, won, (int) points[lane], (int) rollCounts[lane]);
+            wins += won ? 1 : 0;
+            points[lane] = 0;
+            rollCounts[lane] = 0;
+            if (started < count) {
+              started++;
+            } else {
+              active &= ~(1L << lane);
+            }
+          }
+        }
+      }
+      return wins;
+    }
+
+    /**
+     * Rolls the dice for every lane, leaving the index of each joint outcome (0 to 35) in {@code
+     * outcomes}. Each 64-bit word serves two steps, one per 32-bit half; the outcome is the high
+     * part of the product of a half and 36, which is exactly uniform once the rare products with a
+     * low part less than 2<sup>32</sup> mod 36 are rejected (Lemire's method).
+     */
+    private void rollOutcomes(boolean highHalves) {
+      if (!highHalves) {
+        for (int i = 0; i < words.length; i++) {
+          words[i] = rng.nextLong();
+        }
+      }
+      LongVector word = LongVector.fromArray(SPECIES, words, 0);
+      LongVector product = (highHalves
+          ? word.lanewise(VectorOperators.LSHR, Integer.SIZE)
+          : word.and(LOW_HALF))
+          .mul(NUM_OUTCOMES);
+      product.lanewise(VectorOperators.LSHR, Integer.SIZE).intoArray(outcomes, 0);
+      if (product.and(LOW_HALF).lt(REJECTION_LIMIT).anyTrue()) {
+        product.intoArray(words, 0);
+        for (int i = 0; i < words.length; i++) {
+          long lane = words[i];
+          while ((lane & LOW_HALF) < REJECTION_LIMIT) {
+            lane = (rng.nextInt() & LOW_HALF) * NUM_OUTCOMES;
+          }
+          outcomes[i] = lane >>> Integer.SIZE;
+        }
+        // Both halves of the words have been used (or overwritten).
+        Arrays.fill(words, 0);
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,154 @@
+/*
+ *  Copyright 2022 CNM Ingenuity, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package edu.cnm.deepdive.crapssimulator.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import edu.cnm.deepdive.crapssimulator.model.Bet;
+import edu.cnm.deepdive.crapssimulator.model.BettingStrategy;
+import edu.cnm.deepdive.crapssimulator.model.CompiledRules;
+import edu.cnm.deepdive.crapssimulator.model.Rules;
+import edu.cnm.deepdive.crapssimulator.model.Statistics;
+import edu.cnm.deepdive.crapssimulator.model.StatisticsAccumulator;
+import edu.cnm.deepdive.crapssimulator.service.Engine;
+import edu.cnm.deepdive.crapssimulator.service.ParallelEngine;
+import java.nio.ByteBuffer;
+import org.apache.commons.rng.JumpableUniformRandomProvider;
+import org.apache.commons.rng.simple.RandomSource;
+import org.junit.Test;
+
+/**
+ * Verifies that the rounds played in the lanes of a {@link VectorEngine} have the distribution
+ * given by the standard rules: the win rate, the mean number of rolls per round, and the frequency
+ * of each point (or of a decision on the come-out roll) are compared with their exact values. Its
+ * saved state is also checked against that of a {@link ParallelEngine}: each engine resumes from
+ * the state saved by the other, playing the same rounds when the vector engine delegates to it
+ * (while wagering, or playing by a {@link Rules} variant).
+ */
+public class VectorEngineTest {
+
+  private static final long SEED = 17L;
+  private static final RandomSource SOURCE = RandomSource.XO_RO_SHI_RO_128_PP;
+  private static final int PARALLELISM = 2;
+  private static final int NUM_ROUNDS = 2_000_000;
+  private static final int BATCH_SIZE = 100_000;
+  private static final int STATE_SIZE = 1024;
+  private static final double CRITICAL_Z = 4;
+  private static final CompiledRules RULES = Rules.standard().compile();
+
+  @Test
+  public void play_outcomesMatchExactValues() {
+    StatisticsAccumulator accumulator = new StatisticsAccumulator();
+    long wins = 0;
+    try (Engine engine = new VectorEngine(SOURCE, PARALLELISM)) {
+      engine.restoreState(seededState());
+      for (int played = 0; played < NUM_ROUNDS; played += BATCH_SIZE) {
+        wins += engine.play(BATCH_SIZE, accumulator);
+      }
+    }
+    Statistics statistics = accumulator.snapshot();
+    assertEquals(NUM_ROUNDS, statistics.getRounds());
+    assertEquals(wins, statistics.getWins());
+    assertFrequency(RULES.getWinProbability(), wins);
+    assertFrequency(RULES.getNaturalProbability() + RULES.getCrapsProbability(),
+        statistics.getPointFrequency(0));
+    for (int point = 1; point <= Rules.MAX_SUM; point++) {
+      assertFrequency(RULES.getPointProbability(point), statistics.getPointFrequency(point));
+    }
+    // The standard deviation of the number of rolls per round is less than 3.
+    assertEquals(RULES.getExpectedRolls(), statistics.getMeanRollCount(),
+        CRITICAL_Z * 3 / Math.sqrt(NUM_ROUNDS));
+  }
+
+  @Test
+  public void restoreState_compatibleWithParallelEngine() {
+    ByteBuffer state = seededState();
+    try (Engine vector = new VectorEngine(SOURCE, PARALLELISM);
+        Engine parallel = new ParallelEngine(SOURCE, PARALLELISM)) {
+      // Lane batches advance the streams differently, but leave a state either engine can resume.
+      vector.restoreState(state);
+      vector.play(BATCH_SIZE, new StatisticsAccumulator());
+      state = saveState(vector);
+      parallel.restoreState(state.duplicate());
+      assertArrayEquals(state.array(), saveState(parallel).array());
+      vector.restoreState(state.duplicate());
+      // While wagering, the vector engine plays with a ParallelEngine on the same streams.
+      BettingStrategy strategy = BettingStrategy.none().with(Bet.PASS, 1);
+      vector.setStrategy(strategy);
+      parallel.setStrategy(strategy);
+      StatisticsAccumulator vectorStatistics = new StatisticsAccumulator();
+      StatisticsAccumulator parallelStatistics = new StatisticsAccumulator();
+      assertEquals(parallel.play(BATCH_SIZE, parallelStatistics),
+          vector.play(BATCH_SIZE, vectorStatistics));
+      Statistics expected = parallelStatistics.snapshot();
+      Statistics actual = vectorStatistics.snapshot();
+      assertEquals(expected.getRolls(), actual.getRolls());
+      assertArrayEquals(expected.getRollCountHistogram(), actual.getRollCountHistogram());
+      assertEquals(expected.getNet(), actual.getNet(), 0);
+      assertTrue(actual.getAction() > 0);
+      assertArrayEquals(saveState(parallel).array(), saveState(vector).array());
+    }
+  }
+
+  @Test
+  public void setRules_variantPlayedByParallelEngine() {
+    ByteBuffer state = seededState();
+    try (Engine vector = new VectorEngine(SOURCE, PARALLELISM);
+        Engine parallel = new ParallelEngine(SOURCE, PARALLELISM)) {
+      vector.restoreState(state.duplicate());
+      parallel.restoreState(state.duplicate());
+      vector.setRules(Rules.crapless());
+      parallel.setRules(Rules.crapless());
+      StatisticsAccumulator vectorStatistics = new StatisticsAccumulator();
+      StatisticsAccumulator parallelStatistics = new StatisticsAccumulator();
+      assertEquals(parallel.play(BATCH_SIZE, parallelStatistics),
+          vector.play(BATCH_SIZE, vectorStatistics));
+      Statistics expected = parallelStatistics.snapshot();
+      Statistics actual = vectorStatistics.snapshot();
+      assertEquals(0, actual.getCraps());
+      assertEquals(expected.getRolls(), actual.getRolls());
+      assertArrayEquals(expected.getRollCountHistogram(), actual.getRollCountHistogram());
+      assertArrayEquals(saveState(parallel).array(), saveState(vector).array());
+      // With the standard rules restored, the rounds are played in the lanes again.
+      vector.setRules(Rules.standard());
+      vectorStatistics.reset();
+      vector.play(BATCH_SIZE, vectorStatistics);
+      assertTrue(vectorStatistics.snapshot().getCraps() > 0);
+    }
+  }
+
+  private static ByteBuffer seededState() {
+    try (Engine seeded = new ParallelEngine(
+        (JumpableUniformRandomProvider) SOURCE.create(SEED), PARALLELISM)) {
+      return saveState(seeded);
+    }
+  }
+
+  private static ByteBuffer saveState(Engine engine) {
+    ByteBuffer state = ByteBuffer.allocate(STATE_SIZE);
+    engine.saveState(state);
+    state.flip();
+    return state;
+  }
+
+  private static void assertFrequency(double probability, long count) {
+    double standardError = Math.sqrt(probability * (1 - probability) / NUM_ROUNDS);
+    assertEquals(probability, (double) count / NUM_ROUNDS, CRITICAL_Z * standardError);
+  }
+
+}